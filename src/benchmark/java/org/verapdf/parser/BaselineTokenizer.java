@@ -0,0 +1,365 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.verapdf.as.CharTable;
+import org.verapdf.cos.filters.COSFilterASCIIHexDecode;
+import org.verapdf.io.SeekableInputStream;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copy of tokenizer of BaseParser and Token before byte-level scanning was
+ * introduced. Bytes are read one by one from the source, token value is
+ * collected in StringBuilder, and numbers and keywords are obtained from
+ * String. It is kept only as the baseline for {@link TokenizerBenchmark}.
+ */
+class BaselineTokenizer {
+
+    private static final Map<String, Token.Keyword> KEYWORDS = new HashMap<>();
+
+    static {
+        KEYWORDS.put("null", Token.Keyword.KW_NULL);
+        KEYWORDS.put("true", Token.Keyword.KW_TRUE);
+        KEYWORDS.put("false", Token.Keyword.KW_FALSE);
+        KEYWORDS.put("stream", Token.Keyword.KW_STREAM);
+        KEYWORDS.put("endstream", Token.Keyword.KW_ENDSTREAM);
+        KEYWORDS.put("obj", Token.Keyword.KW_OBJ);
+        KEYWORDS.put("endobj", Token.Keyword.KW_ENDOBJ);
+        KEYWORDS.put("R", Token.Keyword.KW_R);
+        KEYWORDS.put("n", Token.Keyword.KW_N);
+        KEYWORDS.put("f", Token.Keyword.KW_F);
+        KEYWORDS.put("xref", Token.Keyword.KW_XREF);
+        KEYWORDS.put("startxref", Token.Keyword.KW_STARTXREF);
+        KEYWORDS.put("trailer", Token.Keyword.KW_TRAILER);
+        KEYWORDS.put(null, Token.Keyword.KW_NONE);
+    }
+
+    private final SeekableInputStream source;
+    private final StringBuilder value = new StringBuilder();
+
+    Token.Type type;
+    Token.Keyword keyword;
+    long integer;
+    double real;
+
+    BaselineTokenizer(SeekableInputStream source) {
+        this.source = source;
+    }
+
+    void nextToken() throws IOException {
+        skipSpaces();
+        if (this.source.isEOF()) {
+            this.type = Token.Type.TT_EOF;
+            return;
+        }
+        this.type = Token.Type.TT_NONE;
+        byte ch = this.source.readByte();
+        switch (ch) {
+            case '(':
+                this.type = Token.Type.TT_LITSTRING;
+                readLitString();
+                break;
+            case '<':
+                ch = this.source.readByte();
+                if (ch == '<') {
+                    this.type = Token.Type.TT_OPENDICT;
+                } else {
+                    this.source.unread();
+                    this.type = Token.Type.TT_HEXSTRING;
+                    readHexString();
+                }
+                break;
+            case '>':
+                ch = this.source.readByte();
+                if (ch == '>') {
+                    this.type = Token.Type.TT_CLOSEDICT;
+                }
+                break;
+            case '[':
+                this.type = Token.Type.TT_OPENARRAY;
+                break;
+            case ']':
+                this.type = Token.Type.TT_CLOSEARRAY;
+                break;
+            case ')':
+            case '{':
+            case '}':
+                break;
+            case '/':
+                this.type = Token.Type.TT_NAME;
+                readName();
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case '.':
+                this.source.unread();
+                readNumber();
+                break;
+            case '-':
+                readNumber();
+                this.integer = -this.integer;
+                this.real = -this.real;
+                break;
+            default:
+                this.source.unread();
+                readToken();
+                this.type = Token.Type.TT_KEYWORD;
+                this.keyword = KEYWORDS.get(this.value.toString());
+                if (this.keyword == Token.Keyword.KW_NONE) {
+                    this.type = Token.Type.TT_NONE;
+                }
+                break;
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        while (!this.source.isEOF()) {
+            byte ch = this.source.readByte();
+            if (CharTable.isSpace(ch)) {
+                continue;
+            }
+            if (ch == '%') {
+                skipComment();
+                continue;
+            }
+            this.source.unread();
+            break;
+        }
+    }
+
+    private void skipComment() throws IOException {
+        while (!this.source.isEOF()) {
+            byte ch = this.source.readByte();
+            if (ch == CharTable.ASCII_LF) {
+                return;
+            }
+            if (ch == CharTable.ASCII_CR) {
+                ch = this.source.readByte();
+                if (ch == CharTable.ASCII_LF) {
+                    this.source.unread();
+                }
+                return;
+            }
+        }
+    }
+
+    private void readLitString() throws IOException {
+        this.value.setLength(0);
+        int parenthesesDepth = 0;
+        byte ch = this.source.readByte();
+        while (!this.source.isEOF()) {
+            switch (ch) {
+                case '(':
+                    parenthesesDepth++;
+                    append(ch);
+                    break;
+                case ')':
+                    if (parenthesesDepth == 0) {
+                        return;
+                    }
+                    parenthesesDepth--;
+                    append(ch);
+                    break;
+                case '\\':
+                    ch = this.source.readByte();
+                    switch (ch) {
+                        case 'n':
+                            append(CharTable.ASCII_LF);
+                            break;
+                        case 'r':
+                            append(CharTable.ASCII_CR);
+                            break;
+                        case 't':
+                            append(CharTable.ASCII_HT);
+                            break;
+                        case 'b':
+                            append(CharTable.ASCII_BS);
+                            break;
+                        case 'f':
+                            append(CharTable.ASCII_FF);
+                            break;
+                        case '0':
+                        case '1':
+                        case '2':
+                        case '3':
+                        case '4':
+                        case '5':
+                        case '6':
+                        case '7': {
+                            int octal = ch - '0';
+                            for (int i = 1; i < 3; i++) {
+                                ch = this.source.readByte();
+                                if (ch < '0' || ch > '7') {
+                                    this.source.unread();
+                                    break;
+                                }
+                                octal = (octal << 3) + (ch - '0');
+                            }
+                            this.value.append((char) octal);
+                            break;
+                        }
+                        case CharTable.ASCII_LF:
+                            break;
+                        case CharTable.ASCII_CR:
+                            ch = this.source.readByte();
+                            if (ch != CharTable.ASCII_LF) {
+                                this.source.unread();
+                            }
+                            break;
+                        default:
+                            append(ch);
+                            break;
+                    }
+                    break;
+                default:
+                    append(ch);
+                    break;
+            }
+            ch = this.source.readByte();
+        }
+    }
+
+    private void readHexString() throws IOException {
+        this.value.setLength(0);
+        int uc = 0;
+        boolean odd = false;
+        while (!this.source.isEOF()) {
+            byte ch = this.source.readByte();
+            if (CharTable.isSpace(ch)) {
+                continue;
+            } else if (ch == '>') {
+                if (odd) {
+                    this.value.append((char) (uc << 4));
+                }
+                return;
+            }
+            int hex = COSFilterASCIIHexDecode.decodeLoHex(ch);
+            if (hex < 16 && hex > -1) {
+                if (odd) {
+                    this.value.append((char) ((uc << 4) + hex));
+                    uc = 0;
+                } else {
+                    uc = hex;
+                }
+                odd = !odd;
+            }
+        }
+    }
+
+    private void readName() throws IOException {
+        this.value.setLength(0);
+        while (!this.source.isEOF()) {
+            byte ch = this.source.readByte();
+            if (CharTable.isTokenDelimiter(ch)) {
+                this.source.unread();
+                break;
+            }
+            if (ch == '#') {
+                byte ch1 = this.source.readByte();
+                if (!this.source.isEOF() && COSFilterASCIIHexDecode.decodeLoHex(ch1) != COSFilterASCIIHexDecode.er) {
+                    byte dc = COSFilterASCIIHexDecode.decodeLoHex(ch1);
+                    byte ch2 = this.source.readByte();
+                    if (!this.source.isEOF() && COSFilterASCIIHexDecode.decodeLoHex(ch2) != COSFilterASCIIHexDecode.er) {
+                        append((byte) ((dc << 4) + COSFilterASCIIHexDecode.decodeLoHex(ch2)));
+                    } else {
+                        append(ch);
+                        append(ch1);
+                        this.source.unread();
+                    }
+                } else {
+                    append(ch);
+                    this.source.unread();
+                }
+            } else {
+                append(ch);
+            }
+        }
+    }
+
+    private void readToken() throws IOException {
+        this.value.setLength(0);
+        while (!this.source.isEOF()) {
+            byte ch = this.source.readByte();
+            if (CharTable.isTokenDelimiter(ch)) {
+                this.source.unread();
+                break;
+            }
+            append(ch);
+        }
+    }
+
+    private void readNumber() throws IOException {
+        this.value.setLength(0);
+        this.type = Token.Type.TT_INTEGER;
+        while (!this.source.isEOF()) {
+            byte ch = this.source.readByte();
+            if (CharTable.isTokenDelimiter(ch)) {
+                this.source.unread();
+                break;
+            }
+            if (ch >= '0' && ch <= '9') {
+                append(ch);
+            } else if (ch == '.') {
+                this.type = Token.Type.TT_REAL;
+                append(ch);
+            } else {
+                this.source.unread();
+                break;
+            }
+        }
+        try {
+            if (this.type == Token.Type.TT_INTEGER) {
+                long number = Long.valueOf(getValue()).longValue();
+                this.integer = number;
+                this.real = number;
+            } else {
+                double number = Double.valueOf(getValue()).doubleValue();
+                this.integer = Math.round(number);
+                this.real = number;
+            }
+        } catch (NumberFormatException e) {
+            // previous value is kept, as in BaseParser
+        }
+    }
+
+    private String getValue() {
+        byte[] res = new byte[this.value.length()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = (byte) this.value.charAt(i);
+        }
+        return new String(res);
+    }
+
+    private void append(byte ch) {
+        this.value.append((char) (ch & 0xff));
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.operator.Operator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses generated operator-dense content stream of about 2.8 MB with
+ * PDFStreamParser. Classification benchmarks compare keyword and operator
+ * lookup of all operator tokens of the same stream: from raw token bytes, as
+ * parser does it, and from String with HashMap lookups, as it was done before.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark.filter=ContentStreamBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 15)
+@Fork(1)
+public class ContentStreamBenchmark {
+
+    private static final int CONTENT_SIZE = 2800 * 1024;
+
+    private byte[] content;
+    private byte[][] words;
+    private final Token token = new Token();
+    private final StringBuilder baselineToken = new StringBuilder();
+    private final Map<String, Token.Keyword> baselineKeywords = new HashMap<>();
+    private final Map<String, Operator> baselineOperators = new HashMap<>();
+
+    @Setup(Level.Trial)
+    public void createContent() throws IOException {
+        this.content = generateContent(CONTENT_SIZE);
+        PDFStreamParser parser = new PDFStreamParser(new ASMemoryInStream(this.content));
+        List<byte[]> operators = new ArrayList<>();
+        try {
+            parser.parseTokens();
+            for (Object parsed : parser.getTokens()) {
+                if (parsed instanceof Operator) {
+                    operators.add(((Operator) parsed).getOperator().getBytes(StandardCharsets.ISO_8859_1));
+                }
+            }
+        } finally {
+            parser.closeInputStream();
+        }
+        this.words = operators.toArray(new byte[operators.size()][]);
+        this.baselineKeywords.put("null", Token.Keyword.KW_NULL);
+        this.baselineKeywords.put("true", Token.Keyword.KW_TRUE);
+        this.baselineKeywords.put("false", Token.Keyword.KW_FALSE);
+        this.baselineKeywords.put("stream", Token.Keyword.KW_STREAM);
+        this.baselineKeywords.put("endstream", Token.Keyword.KW_ENDSTREAM);
+        this.baselineKeywords.put("obj", Token.Keyword.KW_OBJ);
+        this.baselineKeywords.put("endobj", Token.Keyword.KW_ENDOBJ);
+        this.baselineKeywords.put("R", Token.Keyword.KW_R);
+        this.baselineKeywords.put("n", Token.Keyword.KW_N);
+        this.baselineKeywords.put("f", Token.Keyword.KW_F);
+        this.baselineKeywords.put("xref", Token.Keyword.KW_XREF);
+        this.baselineKeywords.put("startxref", Token.Keyword.KW_STARTXREF);
+        this.baselineKeywords.put("trailer", Token.Keyword.KW_TRAILER);
+    }
+
+    @Benchmark
+    public int parse() throws IOException {
+        PDFStreamParser parser = new PDFStreamParser(new ASMemoryInStream(this.content));
+        try {
+            parser.parseTokens();
+            return parser.getTokens().size();
+        } finally {
+            parser.closeInputStream();
+        }
+    }
+
+    @Benchmark
+    public int classify() {
+        int operators = 0;
+        for (byte[] word : this.words) {
+            this.token.clearValue();
+            for (byte b : word) {
+                this.token.append(b);
+            }
+            this.token.toKeyword();
+            if (this.token.keyword == null &&
+                    Operator.getOperator(this.token.getRawValue(), this.token.getLength()) != null) {
+                ++operators;
+            }
+        }
+        return operators;
+    }
+
+    @Benchmark
+    public int classifyBaseline() {
+        int operators = 0;
+        for (byte[] word : this.words) {
+            this.baselineToken.setLength(0);
+            for (byte b : word) {
+                this.baselineToken.append((char) (b & 0xFF));
+            }
+            String value = this.baselineToken.toString();
+            if (this.baselineKeywords.get(value) == null && getBaselineOperator(value) != null) {
+                ++operators;
+            }
+        }
+        return operators;
+    }
+
+    /**
+     * Operator lookup as it was done before: cache of operators by String.
+     */
+    private Operator getBaselineOperator(String value) {
+        if (value.equals("BI") || value.equals("ID")) {
+            return Operator.getOperator(value);
+        }
+        if (this.baselineOperators.containsKey(value)) {
+            return this.baselineOperators.get(value);
+        }
+        Operator result = Operator.getOperator(value);
+        this.baselineOperators.put(value, result);
+        return result;
+    }
+
+    /**
+     * Generates content stream of at least given size that consists of text,
+     * path, color and graphics state operators with short operands.
+     */
+    static byte[] generateContent(int size) {
+        StringBuilder builder = new StringBuilder(size + 256);
+        int i = 0;
+        while (builder.length() < size) {
+            int x = i % 500;
+            int y = (i * 7) % 700;
+            builder.append("q 1 0 0 1 ").append(x).append(' ').append(y).append(" cm\n")
+                    .append("0.5 g 0 0 1 RG 0.75 w 1 J 0 j [3 2] 0 d\n")
+                    .append(x).append(' ').append(y).append(" m ")
+                    .append(x + 10).append(' ').append(y + 5).append(" l ")
+                    .append(x + 1).append(" 2 3.5 4 ").append(y).append(" .5 c h S\n")
+                    .append("10 10 20.25 30 re f* W n\n")
+                    .append("BT /F1 9 Tf 1.2 Tc 0 Tw 100 Tz 11 TL 0 Tr 0 Ts\n")
+                    .append(x).append(' ').append(y).append(" Td (Line ").append(i)
+                    .append(") Tj T* [(A) -120 (W) 30.5 (ord)] TJ (next) ' ET\n")
+                    .append("/GS1 gs /Im1 Do /P << /MCID ").append(i).append(" >> BDC EMC Q\n");
+            ++i;
+        }
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
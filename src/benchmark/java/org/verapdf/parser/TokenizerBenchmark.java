@@ -0,0 +1,171 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.verapdf.io.SeekableInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizes whole generated document of 650 objects with BaseParser. Document
+ * is read either from file in one of {@link SeekableInputStream.FileAccessMode}
+ * ways or from memory. Baseline benchmark tokenizes the same document with
+ * {@link BaselineTokenizer}, the tokenizer used before byte-level scanning, so
+ * speed-up is reproduced in one run.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark.filter=TokenizerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 15)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    private static final int NUMBER_OF_OBJECTS = 650;
+
+    @Param({"RANDOM_ACCESS_FILE", "MEMORY_MAPPED", "CACHED", "IN_MEMORY"})
+    public String source;
+
+    private byte[] document;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void createDocument() throws IOException {
+        this.document = generateDocument(NUMBER_OF_OBJECTS);
+        this.file = File.createTempFile("veraTokenizerBenchmark", ".pdf");
+        try (OutputStream output = new FileOutputStream(this.file)) {
+            output.write(this.document);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDocument() {
+        if (this.file != null && !this.file.delete()) {
+            this.file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public int tokenize() throws IOException {
+        BaseParser parser = new BaseParser(openSource());
+        try {
+            int tokens = 0;
+            parser.initializeToken();
+            parser.nextToken();
+            while (parser.getToken().type != Token.Type.TT_EOF) {
+                ++tokens;
+                parser.nextToken();
+            }
+            return tokens;
+        } finally {
+            parser.closeInputStream();
+        }
+    }
+
+    @Benchmark
+    public int tokenizeBaseline() throws IOException {
+        SeekableInputStream stream = openSource();
+        try {
+            BaselineTokenizer tokenizer = new BaselineTokenizer(stream);
+            int tokens = 0;
+            tokenizer.nextToken();
+            while (tokenizer.type != Token.Type.TT_EOF) {
+                ++tokens;
+                tokenizer.nextToken();
+            }
+            return tokens;
+        } finally {
+            stream.close();
+        }
+    }
+
+    private SeekableInputStream openSource() throws IOException {
+        if ("IN_MEMORY".equals(this.source)) {
+            return SeekableInputStream.getSeekableStream(new ByteArrayInputStream(this.document));
+        }
+        return SeekableInputStream.getSeekableStream(this.file.getAbsolutePath(),
+                SeekableInputStream.FileAccessMode.valueOf(this.source));
+    }
+
+    /**
+     * Generates document body with objects of kinds that are common in real
+     * files: dictionaries with names and references, arrays of numbers,
+     * strings and short streams.
+     */
+    static byte[] generateDocument(int numberOfObjects) {
+        StringBuilder builder = new StringBuilder("%PDF-1.7\n%\u00E2\u00E3\u00CF\u00D3\n");
+        for (int i = 1; i <= numberOfObjects; ++i) {
+            builder.append(i).append(" 0 obj\n");
+            switch (i % 4) {
+                case 0:
+                    builder.append("<< /Type /Page /Parent 1 0 R /MediaBox [0 0 612.0 792.0] ")
+                            .append("/Resources << /Font << /F1 ").append(i - 1)
+                            .append(" 0 R >> /ProcSet [/PDF /Text] >> /Contents ")
+                            .append(i + 1).append(" 0 R /Rotate 0 >>\n");
+                    break;
+                case 1:
+                    builder.append("<< /Type /Font /Subtype /TrueType /BaseFont /Arial#20Bold ")
+                            .append("/FirstChar 32 /LastChar 126 /Widths [");
+                    for (int w = 0; w < 95; ++w) {
+                        builder.append(' ').append(250 + (w * 37 + i) % 750);
+                    }
+                    builder.append("] >>\n");
+                    break;
+                case 2:
+                    builder.append("<< /Length 42 >>\nstream\n")
+                            .append("BT /F1 12 Tf 72 712 Td (Hello World) Tj ET")
+                            .append("\nendstream\n");
+                    break;
+                default:
+                    builder.append("<< /Title (Object ").append(i)
+                            .append(" \\(escaped\\) text) /Id <0123456789ABCDEF> ")
+                            .append("/Matrix [1.0 0.0 0.0 1.0 -12.5 .75] /Flag true /Next null >>\n");
+                    break;
+            }
+            builder.append("endobj\n");
+        }
+        builder.append("trailer\n<< /Size ").append(numberOfObjects + 1)
+                .append(" /Root 1 0 R >>\n%%EOF\n");
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
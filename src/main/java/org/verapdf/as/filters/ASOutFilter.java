@@ -41,7 +41,7 @@ public abstract class ASOutFilter implements ASOutputStream {
 		return this.storedOutputStream;
 	}
 
-	private ASOutFilter(final ASOutFilter filter) {
+	private ASOutFilter(final ASOutFilter filter) throws IOException {
 		close();
 	}
 
@@ -67,7 +67,17 @@ public abstract class ASOutFilter implements ASOutputStream {
 		return res;
 	}
 
-	public void close() {
+	/**
+	 * Closes this filter together with stored output stream, so data buffered
+	 * in the stored stream is written. Stored stream shouldn't be used after
+	 * this call.
+	 *
+	 * @throws IOException if stored stream can't be closed.
+	 */
+	public void close() throws IOException {
+		if (this.storedOutputStream != null) {
+			this.storedOutputStream.close();
+		}
 		this.storedOutputStream = null;
 	}
 
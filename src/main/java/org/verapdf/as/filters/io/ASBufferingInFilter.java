@@ -24,6 +24,7 @@ import org.verapdf.as.filters.ASInFilter;
 import org.verapdf.as.io.ASInputStream;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -78,7 +79,9 @@ public class ASBufferingInFilter extends ASInFilter {
     /**
      * Reads next portion of data from the underlying stream to the internal
      * buffer, updates begin and end pointers and returns number of bytes
-     * actually placed in buffer.
+     * actually placed in buffer. Data is read with
+     * {@link ASInputStream#read(ByteBuffer)}, so underlying filters and
+     * byte buffer sources write it into internal buffer directly.
      *
      * @param bytesToRead amount of bytes to read.
      * @return amount of bytes actually placed into buffer.
@@ -88,7 +91,7 @@ public class ASBufferingInFilter extends ASInFilter {
             return -1;
         }
         bytesToRead = Math.min(bytesToRead, bufferCapacity);
-        long actuallyRead = this.getInputStream().read(internalBuffer, bytesToRead);
+        long actuallyRead = this.getInputStream().read(ByteBuffer.wrap(internalBuffer, 0, bytesToRead));
         bufferBegin = 0;
         bufferEnd = (int) actuallyRead;
         return actuallyRead;
@@ -159,6 +162,23 @@ public class ASBufferingInFilter extends ASInFilter {
         return actualRead;
     }
 
+    /**
+     * Reads data from internal buffer into passed byte buffer and advances
+     * begin marker. At most buffer.remaining() bytes are read.
+     *
+     * @param buffer is byte buffer where data will be read.
+     * @return amount of actually read bytes.
+     */
+    public int bufferPopBuffer(ByteBuffer buffer) {
+        int actualRead = Math.min(buffer.remaining(), bufferSize());
+        if (actualRead == -1) {
+            return -1;
+        }
+        buffer.put(this.internalBuffer, bufferBegin, actualRead);
+        bufferBegin += actualRead;
+        return actualRead;
+    }
+
     /**
      * @return the number of bytes currently available in the buffer.
      */
@@ -23,6 +23,8 @@ package org.verapdf.as.filters.io;
 import org.verapdf.as.filters.ASOutFilter;
 import org.verapdf.as.io.ASOutputStream;
 
+import java.io.IOException;
+
 /**
  * @author Sergey Shemyakov
  */
@@ -45,7 +47,7 @@ public class ASBufferingOutFilter extends ASOutFilter {
     }
 
     @Override
-    public void close() {
+    public void close() throws IOException {
         this.internalBuffer = null;
         super.close();
     }
@@ -21,29 +21,69 @@
 package org.verapdf.as.io;
 
 
+import org.verapdf.as.filters.io.ASBufferingInFilter;
 import org.verapdf.tools.IntReference;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
 
 /**
+ * Substream of file. Data is read with positional reads of
+ * {@link PositionalFileReader}, which has its own file channel, so file pointer
+ * of underlying RandomAccessFile is never used and several substreams of one
+ * file can be read independently, also from different threads.
+ * <p>
+ * Optionally, read-ahead can be enabled with
+ * {@link #setReadAhead(int, ExecutorService)}. Then, after sequential access
+ * to substream is detected, data is read in large portions and next portion
+ * can be prefetched on background thread.
+ *
  * @author Timur Kamalov
  */
 public class ASFileInStream extends ASInputStream {
 
+	private static final int SEQUENTIAL_READS_THRESHOLD = 2;
+
+	private static int readAheadBlocks = 0;
+	private static ExecutorService readAheadExecutor;
+
 	private RandomAccessFile stream;
+	private PositionalFileReader reader;
+	private boolean isReaderOwner;
 	private long offset;
 	private long size;
 	private long curPos;
 	private IntReference numOfFileUsers;
 	private boolean isTempFile;
 	private String filePath;
+	private final ByteBuffer singleByte = ByteBuffer.allocate(1);
+	private long lastReadEnd = -1;
+	private int sequentialReads = 0;
+	private ReadAheadBuffer readAhead;
 
+	/**
+	 * Constructor of substream that reads data with its own file channel,
+	 * which is opened by file path on the first read.
+	 */
 	public ASFileInStream(RandomAccessFile stream, final long offset, final long size,
 						  IntReference numOfFileUsers, String filePath, boolean isTempFile) {
+		this(stream, PositionalFileReader.openOnRead(filePath), offset, size,
+				numOfFileUsers, filePath, isTempFile);
+		this.isReaderOwner = true;
+	}
+
+	/**
+	 * Constructor of substream that reads data with given reader, which is
+	 * shared by all users of file and is closed together with file.
+	 */
+	public ASFileInStream(RandomAccessFile stream, PositionalFileReader reader,
+						  final long offset, final long size, IntReference numOfFileUsers,
+						  String filePath, boolean isTempFile) {
 		this.stream = stream;
+		this.reader = reader;
 		this.offset = offset;
 		this.size = size;
 		this.curPos = 0;
@@ -53,25 +93,37 @@ public class ASFileInStream extends ASInputStream {
 		this.filePath = filePath;
 	}
 
+	/**
+	 * Enables or disables read-ahead for all file substreams created after
+	 * this call.
+	 *
+	 * @param blocks   is number of blocks of size
+	 *                 {@link org.verapdf.as.filters.io.ASBufferingInFilter#BF_BUFFER_SIZE}
+	 *                 that are read at once, 0 disables read-ahead.
+	 * @param executor is executor for background prefetching of next blocks,
+	 *                 or null if data should be read only on request. It can
+	 *                 be shared with tasks that read streams, as prefetch
+	 *                 that has not started when its data is needed is done
+	 *                 by reading thread instead.
+	 */
+	public static synchronized void setReadAhead(int blocks, ExecutorService executor) {
+		readAheadBlocks = Math.max(0, blocks);
+		readAheadExecutor = executor;
+	}
+
 	@Override
 	public int read() throws IOException {
-		if (this.curPos < this.size) {
-			long prev = stream.getFilePointer();
-
-			stream.seek(this.offset + this.curPos);
-			int result = this.stream.readByte() & 0xFF;
-			curPos++;
-
-			this.stream.seek(prev);
-
-			return result;
-		} else {
-			return -1;
-		}
+		int res = read(this.singleByte.array(), 0, 1);
+		return res == -1 ? -1 : this.singleByte.get(0) & 0xFF;
 	}
 
 	@Override
 	public int read(byte[] buffer, int sizeToRead) throws IOException {
+		return read(buffer, 0, sizeToRead);
+	}
+
+	@Override
+	public int read(byte[] buffer, int off, int sizeToRead) throws IOException {
 		if (sizeToRead == 0 || this.size != nPos && this.curPos >= this.size) {
 			return -1;
 		}
@@ -80,27 +132,79 @@ public class ASFileInStream extends ASInputStream {
 			sizeToRead = (int) (this.size - this.curPos);
 		}
 
-		long prev = this.stream.getFilePointer();
-
-		this.stream.seek(this.offset + this.curPos);
-
-		try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-			byte[] temp = new byte[1024];
-			int n;
-
-			while (sizeToRead > 0 && (n = this.stream.read(temp, 0, Math.min(temp.length, sizeToRead))) != -1) {
-				output.write(temp, 0, n);
-				sizeToRead -= n;
-			}
+		int count;
+		if (this.readAhead != null || detectSequentialRead()) {
+			count = this.readAhead.read(this.offset + this.curPos, buffer, off, sizeToRead);
+		} else {
+			count = this.reader.read(ByteBuffer.wrap(buffer, off, sizeToRead), this.offset + this.curPos);
+		}
+		if (count == 0) {
+			return -1;
+		}
+		this.curPos += count;
+		this.lastReadEnd = this.curPos;
+		return count;
+	}
 
-			byte[] byteArray = output.toByteArray();
-			int count = byteArray.length;
-			System.arraycopy(byteArray, 0, buffer, 0, count);
+	@Override
+	public int read(ByteBuffer buffer) throws IOException {
+		if (this.readAhead != null) {
+			return super.read(buffer);
+		}
+		int sizeToRead = buffer.remaining();
+		if (sizeToRead == 0) {
+			return 0;
+		}
+		if (this.size != nPos && this.curPos >= this.size) {
+			return -1;
+		}
+		ByteBuffer target = buffer;
+		if (this.size != nPos && sizeToRead > this.size - this.curPos) {
+			target = buffer.duplicate();
+			target.limit(target.position() + (int) (this.size - this.curPos));
+		}
+		int count = this.reader.read(target, this.offset + this.curPos);
+		if (count == 0) {
+			return -1;
+		}
+		if (target != buffer) {
+			buffer.position(target.position());
+		}
+		this.curPos += count;
+		this.lastReadEnd = this.curPos;
+		return count;
+	}
 
-			this.stream.seek(prev);
-			this.curPos += count;
-			return count;
+	private boolean detectSequentialRead() {
+		int blocks;
+		ExecutorService executor;
+		synchronized (ASFileInStream.class) {
+			blocks = readAheadBlocks;
+			executor = readAheadExecutor;
+		}
+		if (blocks == 0) {
+			return false;
 		}
+		if (this.curPos == this.lastReadEnd) {
+			this.sequentialReads++;
+		} else {
+			this.sequentialReads = 0;
+		}
+		if (this.sequentialReads < SEQUENTIAL_READS_THRESHOLD) {
+			return false;
+		}
+		long end = this.size == nPos ? Long.MAX_VALUE : this.offset + this.size;
+		this.readAhead = new ReadAheadBuffer(this.reader, end,
+				blocks * ASBufferingInFilter.BF_BUFFER_SIZE, executor);
+		return true;
+	}
+
+	/**
+	 * @return true if sequential access was detected and data is read with
+	 * read-ahead.
+	 */
+	boolean isReadingAhead() {
+		return this.readAhead != null;
 	}
 
 	@Override
@@ -120,9 +224,16 @@ public class ASFileInStream extends ASInputStream {
 
 	@Override
 	public void closeResource() throws IOException {
+		if (this.readAhead != null) {
+			this.readAhead.close();
+		}
+		if (this.isReaderOwner) {
+			this.reader.close();
+		}
         this.numOfFileUsers.decrement();
         if (this.numOfFileUsers.equals(0)) {
             this.stream.close();
+            this.reader.close();
             if (isTempFile) {
                 File tmp = new File(filePath);
                 tmp.delete();
@@ -140,7 +251,60 @@ public class ASFileInStream extends ASInputStream {
 		this.curPos = 0;
 	}
 
+	/**
+	 * @return file of this substream, shared by all substreams of this file.
+	 */
+	public RandomAccessFile getStream() {
+		return stream;
+	}
+
 	public String getFilePath() {
 		return filePath;
 	}
+
+	/**
+	 * @return offset of this substream in underlying file.
+	 */
+	public long getFileOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return length of this substream.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return true if underlying file is temporary and is deleted on close.
+	 */
+	public boolean isTempFile() {
+		return isTempFile;
+	}
+
+	/**
+	 * @return number of bytes of this substream that are present in file. For
+	 * substream of unknown size it is the rest of file.
+	 */
+	public long getAvailableSize() throws IOException {
+		long available = Math.max(0, this.reader.size() - this.offset);
+		return this.size == nPos ? available : Math.min(this.size, available);
+	}
+
+	/**
+	 * Creates new substream of the same region of file. It has its own
+	 * position, so it can be read from other thread, and it keeps file open
+	 * until it is closed.
+	 *
+	 * @return new substream of the same region.
+	 */
+	public ASFileInStream getIndependentStream() {
+		if (this.isReaderOwner) {
+			return new ASFileInStream(this.stream, this.offset, this.size,
+					this.numOfFileUsers, this.filePath, this.isTempFile);
+		}
+		return new ASFileInStream(this.stream, this.reader, this.offset, this.size,
+				this.numOfFileUsers, this.filePath, this.isTempFile);
+	}
 }
@@ -20,10 +20,12 @@
  */
 package org.verapdf.as.io;
 
+import org.verapdf.as.filters.io.ASBufferingInFilter;
 import org.verapdf.tools.IntReference;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * @author Timur Kamalov
@@ -40,6 +42,37 @@ public abstract class ASInputStream extends InputStream {
 
 	public abstract int skip(int size) throws IOException;
 
+	/**
+	 * Reads up to buffer.remaining() bytes into given buffer starting from its
+	 * current position and advances buffer position. Streams that are able to
+	 * write data into byte buffer directly override this method, default
+	 * implementation reads data through intermediate array when buffer has
+	 * no accessible backing array.
+	 *
+	 * @param buffer is buffer into which data is read.
+	 * @return amount of actually read bytes or -1 if end of stream is reached.
+	 * @throws IOException if stream-reading error occurs.
+	 */
+	public int read(ByteBuffer buffer) throws IOException {
+		int size = buffer.remaining();
+		if (size == 0) {
+			return 0;
+		}
+		if (buffer.hasArray() && buffer.arrayOffset() + buffer.position() == 0) {
+			int read = this.read(buffer.array(), size);
+			if (read > 0) {
+				buffer.position(read);
+			}
+			return read;
+		}
+		byte[] temp = new byte[Math.min(size, ASBufferingInFilter.BF_BUFFER_SIZE)];
+		int read = this.read(temp, temp.length);
+		if (read > 0) {
+			buffer.put(temp, 0, read);
+		}
+		return read;
+	}
+
 	public void close() throws IOException {
 		if (!this.resourceUsers.equals(0)) {
 			this.resourceUsers.decrement();
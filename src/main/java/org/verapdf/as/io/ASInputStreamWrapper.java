@@ -21,6 +21,7 @@
 package org.verapdf.as.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Class represents ASInputStream that can be constructed from another
@@ -51,6 +52,11 @@ public class ASInputStreamWrapper extends ASInputStream {
         return this.stream.read(b, off, len);
     }
 
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+        return this.stream.read(buffer);
+    }
+
     @Override
     public int skip(int size) throws IOException {
         return this.stream.skip(size);
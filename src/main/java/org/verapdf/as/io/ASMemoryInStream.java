@@ -26,6 +26,7 @@ import org.verapdf.tools.IntReference;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -67,6 +68,7 @@ public class ASMemoryInStream extends SeekableInputStream {
             buffer = ASBufferingInFilter.concatenate(buffer, buffer.length, temp, read);
             read = stream.read(temp);
         }
+        this.bufferSize = buffer.length;
         this.numOfBufferUsers = new IntReference(1);
     }
 
@@ -149,6 +151,24 @@ public class ASMemoryInStream extends SeekableInputStream {
         return available;
     }
 
+    /**
+     * Reads up to buffer.remaining() bytes of data into given buffer.
+     *
+     * @param buffer is buffer into which data is read.
+     * @return actual amount of bytes read.
+     * @throws IOException
+     */
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+        if (currentPosition == bufferSize) {
+            return -1;
+        }
+        int available = Math.min(bufferSize - currentPosition, buffer.remaining());
+        buffer.put(this.buffer, currentPosition, available);
+        currentPosition += available;
+        return available;
+    }
+
     /**
      * Reads single byte.
      *
@@ -258,4 +278,9 @@ public class ASMemoryInStream extends SeekableInputStream {
             throw new IOException();
         }
     }
+
+    @Override
+    public SeekableInputStream getIndependentStream() {
+        return new ASMemoryInStream(this, 0, this.bufferSize);
+    }
 }
@@ -0,0 +1,175 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads data of file with positional reads from its own file channel. File
+ * pointer is not used, so one reader can be shared by substreams of file that
+ * are read from different threads, and reads don't interfere with
+ * RandomAccessFile of the document.
+ * <p>
+ * Interrupt of reading thread closes file channel. Then channel is opened
+ * again by file path and read is repeated, so interrupt breaks neither reads
+ * of other threads nor read of interrupted thread. Interrupt status of thread
+ * is kept.
+ */
+public class PositionalFileReader implements Closeable {
+
+	private final String filePath;
+	private volatile FileChannel channel;
+	private volatile boolean isClosed = false;
+
+	/**
+	 * Opens channel of given file.
+	 *
+	 * @param filePath is path of file.
+	 * @throws FileNotFoundException if file can't be opened.
+	 */
+	public PositionalFileReader(String filePath) throws FileNotFoundException {
+		this(filePath, open(filePath));
+	}
+
+	private PositionalFileReader(String filePath, FileChannel channel) {
+		this.filePath = filePath;
+		this.channel = channel;
+	}
+
+	/**
+	 * Creates reader that opens channel on the first read.
+	 *
+	 * @param filePath is path of file.
+	 */
+	static PositionalFileReader openOnRead(String filePath) {
+		return new PositionalFileReader(filePath, null);
+	}
+
+	/**
+	 * Reads data starting from given position until buffer is full or end of
+	 * file is reached.
+	 *
+	 * @param buffer   is buffer to read data into.
+	 * @param position is absolute offset in file.
+	 * @return number of bytes read, 0 if end of file is reached.
+	 */
+	public int read(ByteBuffer buffer, long position) throws IOException {
+		int count = 0;
+		while (buffer.hasRemaining()) {
+			int n = readOnce(buffer, position + count);
+			if (n <= 0) {
+				break;
+			}
+			count += n;
+		}
+		return count;
+	}
+
+	/**
+	 * @return current size of file.
+	 */
+	public long size() throws IOException {
+		FileChannel current = getChannel();
+		try {
+			return current.size();
+		} catch (ClosedChannelException e) {
+			reopen(current, e);
+			return size();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.isClosed = true;
+		if (this.channel != null) {
+			this.channel.close();
+		}
+	}
+
+	private int readOnce(ByteBuffer buffer, long position) throws IOException {
+		FileChannel current = getChannel();
+		int start = buffer.position();
+		try {
+			return current.read(buffer, position);
+		} catch (ClosedChannelException e) {
+			buffer.position(start);
+			reopen(current, e);
+			if (!(e instanceof ClosedByInterruptException)) {
+				// channel was closed by interrupt of another reader
+				return readOnce(buffer, position);
+			}
+			Thread.interrupted();
+			try {
+				return readOnce(buffer, position);
+			} finally {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private FileChannel getChannel() throws IOException {
+		FileChannel current = this.channel;
+		if (current == null) {
+			synchronized (this) {
+				if (this.isClosed) {
+					throw new ClosedChannelException();
+				}
+				if (this.channel == null) {
+					this.channel = open(this.filePath);
+				}
+				current = this.channel;
+			}
+		}
+		return current;
+	}
+
+	private synchronized void reopen(FileChannel closed, ClosedChannelException cause)
+			throws IOException {
+		if (this.isClosed) {
+			throw cause;
+		}
+		if (this.channel == closed) {
+			this.channel = open(this.filePath);
+		}
+	}
+
+	private static FileChannel open(String filePath) throws FileNotFoundException {
+		if (filePath == null) {
+			throw new FileNotFoundException("File path is unknown");
+		}
+		try {
+			return FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+		} catch (IOException e) {
+			FileNotFoundException exception = new FileNotFoundException(
+					"Can't open file " + filePath + ": " + e.getMessage());
+			exception.initCause(e);
+			throw exception;
+		}
+	}
+}
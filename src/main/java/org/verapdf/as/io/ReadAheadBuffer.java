@@ -0,0 +1,215 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read-ahead buffer for sequential reading of file region. Data is read into
+ * current buffer in large portions. If executor is given, next portion is
+ * prefetched into second buffer on background thread while current one is
+ * consumed.
+ * <p>
+ * Prefetch that was not started by the moment its data is needed is
+ * cancelled and data is read in the calling thread. So reading never waits
+ * for a task queued in executor, and executor can be shared with tasks that
+ * read streams themselves. If executor rejects prefetch, data is also read
+ * on request.
+ */
+class ReadAheadBuffer {
+
+	private final PositionalFileReader reader;
+	private final long end;
+	private final Executor executor;
+	private ByteBuffer current;
+	private long currentStart = -1;
+	private ByteBuffer next;
+	private Prefetch prefetch;
+
+	/**
+	 * @param reader     is reader of file to read data from.
+	 * @param end        is absolute offset of the end of region.
+	 * @param bufferSize is size of one buffer.
+	 * @param executor   is executor for prefetching, or null if prefetching
+	 *                   should not be done in background.
+	 */
+	ReadAheadBuffer(PositionalFileReader reader, long end, int bufferSize, Executor executor) {
+		this.reader = reader;
+		this.end = end;
+		this.executor = executor;
+		this.current = ByteBuffer.allocate(bufferSize);
+		this.current.limit(0);
+		if (executor != null) {
+			this.next = ByteBuffer.allocate(bufferSize);
+		}
+	}
+
+	/**
+	 * Reads data starting from given absolute offset.
+	 *
+	 * @return number of bytes read, 0 if end of region is reached.
+	 */
+	int read(long position, byte[] buffer, int off, int len) throws IOException {
+		int count = 0;
+		while (count < len) {
+			long pos = position + count;
+			if (pos >= this.end) {
+				break;
+			}
+			if (pos < this.currentStart || pos >= this.currentStart + this.current.limit()) {
+				if (!switchToNext(pos)) {
+					fill(this.current, pos);
+					this.currentStart = pos;
+				}
+				scheduleNext(this.currentStart + this.current.limit());
+			}
+			int inBuffer = (int) (pos - this.currentStart);
+			int toCopy = Math.min(len - count, this.current.limit() - inBuffer);
+			if (toCopy <= 0) {
+				break;
+			}
+			this.current.position(inBuffer);
+			this.current.get(buffer, off + count, toCopy);
+			count += toCopy;
+		}
+		return count;
+	}
+
+	/**
+	 * Cancels prefetching. Already started read is finished on background
+	 * thread.
+	 */
+	void close() {
+		if (this.prefetch != null) {
+			this.prefetch.claim();
+			this.prefetch = null;
+		}
+	}
+
+	private boolean switchToNext(long pos) throws IOException {
+		if (this.prefetch == null) {
+			return false;
+		}
+		Prefetch fetched = this.prefetch;
+		this.prefetch = null;
+		boolean isFilled;
+		try {
+			isFilled = fetched.await();
+		} catch (IOException e) {
+			// prefetch may still write into its buffer
+			this.next = ByteBuffer.allocate(this.next.capacity());
+			throw e;
+		}
+		if (!isFilled || pos < fetched.start || pos >= fetched.start + this.next.limit()) {
+			return false;
+		}
+		ByteBuffer temp = this.current;
+		this.current = this.next;
+		this.currentStart = fetched.start;
+		this.next = temp;
+		return true;
+	}
+
+	private void scheduleNext(long pos) {
+		if (this.next == null || pos >= this.end || this.current.limit() == 0) {
+			return;
+		}
+		Prefetch task = new Prefetch(this.next, pos);
+		try {
+			this.executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			// next portion will be read on request
+			return;
+		}
+		this.prefetch = task;
+	}
+
+	private void fill(ByteBuffer buffer, long pos) throws IOException {
+		buffer.clear();
+		if (this.end - pos < buffer.capacity()) {
+			buffer.limit((int) (this.end - pos));
+		}
+		this.reader.read(buffer, pos);
+		buffer.flip();
+	}
+
+	private class Prefetch implements Runnable {
+
+		private final ByteBuffer buffer;
+		private final long start;
+		private final AtomicBoolean isClaimed = new AtomicBoolean();
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile boolean isFilled = false;
+
+		private Prefetch(ByteBuffer buffer, long start) {
+			this.buffer = buffer;
+			this.start = start;
+		}
+
+		@Override
+		public void run() {
+			if (!this.isClaimed.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				fill(this.buffer, this.start);
+				this.isFilled = true;
+			} catch (IOException e) {
+				// data is read again on request, which reports the error
+			} finally {
+				this.done.countDown();
+			}
+		}
+
+		/**
+		 * Prevents prefetch from starting.
+		 *
+		 * @return true if prefetch was not started yet.
+		 */
+		private boolean claim() {
+			return this.isClaimed.compareAndSet(false, true);
+		}
+
+		/**
+		 * Waits for started prefetch, or cancels prefetch that was not
+		 * started yet.
+		 *
+		 * @return true if buffer was filled.
+		 */
+		private boolean await() throws IOException {
+			if (claim()) {
+				return false;
+			}
+			try {
+				this.done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Read-ahead was interrupted", e);
+			}
+			return this.isFilled;
+		}
+	}
+}
@@ -20,20 +20,85 @@
  */
 package org.verapdf.cos;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * Table of objects of document.
+ * <p>
+ * Objects that are set into body are kept until document is closed. Objects
+ * loaded from file can be set with {@link #setLoaded(COSKey, COSObject)}.
+ * If limit of loaded objects is set, only given number of recently used
+ * loaded objects is kept, other loaded objects are kept weakly: they stay in
+ * body while they are used somewhere else, and then they are removed and
+ * parsed again from file on next access. So changes of loaded objects should
+ * be registered with {@link #pin(COSKey)}, e.g. by
+ * {@link COSDocument#addChangedObject(COSObject)}.
+ *
  * @author Timur Kamalov
  */
 public class COSBody {
 
+	private static int defaultLoadedObjectsLimit = 0;
+
 	private Map<COSKey, COSObject> table;
+	private LoadedObjects loaded;
+	private Map<COSKey, KeyedReference> released;
+	private ReferenceQueue<COSBase> releasedQueue;
+	private int loadedObjectsLimit;
 
 	public COSBody() {
+		this(getDefaultLoadedObjectsLimit());
+	}
+
+	/**
+	 * Constructor with limit of loaded objects.
+	 *
+	 * @param loadedObjectsLimit is maximal number of loaded objects that are
+	 *                           kept strongly, 0 if all loaded objects should
+	 *                           be kept.
+	 */
+	public COSBody(int loadedObjectsLimit) {
 		this.table = new HashMap<>();
+		this.loaded = new LoadedObjects();
+		this.released = new HashMap<>();
+		this.releasedQueue = new ReferenceQueue<>();
+		this.loadedObjectsLimit = Math.max(0, loadedObjectsLimit);
+	}
+
+	/**
+	 * Sets limit of loaded objects for bodies created after this call.
+	 *
+	 * @param limit is maximal number of loaded objects that are kept strongly,
+	 *              0 if all loaded objects should be kept.
+	 */
+	public static synchronized void setDefaultLoadedObjectsLimit(int limit) {
+		defaultLoadedObjectsLimit = Math.max(0, limit);
+	}
+
+	public static synchronized int getDefaultLoadedObjectsLimit() {
+		return defaultLoadedObjectsLimit;
+	}
+
+	/**
+	 * Sets limit of loaded objects and releases objects above it.
+	 *
+	 * @param limit is maximal number of loaded objects that are kept strongly,
+	 *              0 if all loaded objects should be kept.
+	 */
+	public void setLoadedObjectsLimit(int limit) {
+		this.loadedObjectsLimit = Math.max(0, limit);
+		releaseLoaded();
+	}
+
+	public int getLoadedObjectsLimit() {
+		return this.loadedObjectsLimit;
 	}
 
 	public List<COSObject> getAll() {
@@ -44,18 +109,62 @@ public class COSBody {
 				result.add(value);
 			}
 		}
+		result.addAll(this.loaded.values());
 		return result;
 	}
 
 	public COSObject get(final COSKey key) {
 		COSObject value = this.table.get(key);
+		if (value == null && (!this.loaded.isEmpty() || !this.released.isEmpty())) {
+			value = getLoaded(key);
+		}
 		return value != null ? value : new COSObject();
 	}
 
 	public void set(final COSKey key, final COSObject object) {
+		if (!this.loaded.isEmpty() || !this.released.isEmpty()) {
+			this.loaded.remove(key);
+			this.released.remove(key);
+		}
 		table.put(key, object);
 	}
 
+	/**
+	 * Sets object that was loaded from file and was not changed. Such objects
+	 * are released if limit of loaded objects is exceeded.
+	 *
+	 * @param key    is key of object.
+	 * @param object is loaded object.
+	 */
+	public void setLoaded(final COSKey key, final COSObject object) {
+		if (this.loadedObjectsLimit == 0 || object == null || object.empty()) {
+			set(key, object);
+			return;
+		}
+		this.table.remove(key);
+		this.released.remove(key);
+		this.loaded.put(key, object);
+		releaseLoaded();
+	}
+
+	/**
+	 * Makes loaded object with given key to be kept until document is closed.
+	 *
+	 * @param key is key of object.
+	 * @return true if body contains object with given key.
+	 */
+	public boolean pin(final COSKey key) {
+		if (this.table.containsKey(key)) {
+			return true;
+		}
+		COSObject object = getLoaded(key);
+		if (object == null) {
+			return false;
+		}
+		set(key, object);
+		return true;
+	}
+
 	public COSKey getKeyForObject(COSObject obj) {
 		if (obj.isIndirect()) {
 			return obj.getObjectKey();
@@ -65,7 +174,76 @@ public class COSBody {
                     return key;
                 }
 			}
+			for (Map.Entry<COSKey, COSObject> entry : this.loaded.entrySet()) {
+				if (entry.getValue() == obj) {
+					return entry.getKey();
+				}
+			}
+			return null;
+		}
+	}
+
+	private COSObject getLoaded(final COSKey key) {
+		COSObject value = this.loaded.get(key);
+		if (value != null) {
+			return value;
+		}
+		removeCollected();
+		KeyedReference reference = this.released.remove(key);
+		COSBase base = reference == null ? null : reference.get();
+		if (base == null) {
 			return null;
 		}
+		// object is still used somewhere, so the same instance is returned
+		value = new COSObject(base);
+		this.loaded.put(key, value);
+		releaseLoaded();
+		return value;
+	}
+
+	private void releaseLoaded() {
+		if (this.loadedObjectsLimit == 0) {
+			return;
+		}
+		Iterator<Map.Entry<COSKey, COSObject>> iterator = this.loaded.entrySet().iterator();
+		while (this.loaded.size() > this.loadedObjectsLimit) {
+			Map.Entry<COSKey, COSObject> eldest = iterator.next();
+			iterator.remove();
+			COSBase base = eldest.getValue().get();
+			if (base != null) {
+				this.released.put(eldest.getKey(),
+						new KeyedReference(eldest.getKey(), base, this.releasedQueue));
+			}
+		}
+		removeCollected();
+	}
+
+	private void removeCollected() {
+		Object reference;
+		while ((reference = this.releasedQueue.poll()) != null) {
+			COSKey key = ((KeyedReference) reference).key;
+			if (this.released.get(key) == reference) {
+				this.released.remove(key);
+			}
+		}
+	}
+
+	private static class LoadedObjects extends LinkedHashMap<COSKey, COSObject> {
+
+		private static final long serialVersionUID = 1L;
+
+		LoadedObjects() {
+			super(16, 0.75f, true);
+		}
+	}
+
+	private static class KeyedReference extends WeakReference<COSBase> {
+
+		private final COSKey key;
+
+		KeyedReference(COSKey key, COSBase base, ReferenceQueue<COSBase> queue) {
+			super(base, queue);
+			this.key = key;
+		}
 	}
 }
@@ -25,22 +25,25 @@ import org.verapdf.as.filters.io.ASBufferingInFilter;
 import org.verapdf.cos.visitor.Writer;
 import org.verapdf.cos.xref.COSXRefTable;
 import org.verapdf.io.IReader;
-import org.verapdf.io.InternalInputStream;
+import org.verapdf.io.ObjectStreamsCache;
 import org.verapdf.io.Reader;
 import org.verapdf.io.SeekableInputStream;
+import org.verapdf.io.SharedFileSource;
 import org.verapdf.pd.PDDocument;
 import org.verapdf.pd.encryption.StandardSecurityHandler;
 import org.verapdf.tools.resource.ASFileStreamCloser;
 import org.verapdf.tools.resource.FileResourceHandler;
 
-import java.io.File;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -60,6 +63,7 @@ public class COSDocument {
 	private COSTrailer firstTrailer;
 	private COSTrailer lastTrailer;
 	private boolean linearized;
+	private boolean xrefComplete;
 	private boolean isNew;
 	private StandardSecurityHandler standardSecurityHandler;
 	private List<COSObject> changedObjects;
@@ -80,6 +84,7 @@ public class COSDocument {
 		this.firstTrailer = new COSTrailer();
 		this.lastTrailer = new COSTrailer();
 		this.linearized = false;
+		this.xrefComplete = true;
 		this.isNew = true;
 		this.changedObjects = new ArrayList<>();
 		this.addedObjects = new ArrayList<>();
@@ -93,6 +98,68 @@ public class COSDocument {
 		initCOSDocument(document);
 	}
 
+	public COSDocument(final String fileName, final PDDocument document,
+					   final SeekableInputStream.FileAccessMode mode) throws IOException {
+		this.resourceHandler = new FileResourceHandler();
+		initReader(SeekableInputStream.getSeekableStream(fileName, mode));
+
+		initCOSDocument(document);
+	}
+
+	/**
+	 * Constructor from seekable stream. Stream is used as document source
+	 * directly, no data is copied.
+	 *
+	 * @param source is stream with pdf data.
+	 * @param document is pd document.
+	 */
+	public COSDocument(final SeekableInputStream source, final PDDocument document) throws IOException {
+		this.resourceHandler = new FileResourceHandler();
+		initReader(source);
+
+		initCOSDocument(document);
+	}
+
+	/**
+	 * Constructor from seekable stream. In progressive mode only the first
+	 * page section of linearized document is read on creation, so catalog and
+	 * the first page are available before the rest of source, see
+	 * {@link Reader#Reader(COSDocument, SeekableInputStream, boolean)}.
+	 *
+	 * @param source      is stream with pdf data.
+	 * @param document    is pd document.
+	 * @param progressive is true if progressive mode should be used.
+	 */
+	public COSDocument(final SeekableInputStream source, final PDDocument document,
+					   final boolean progressive) throws IOException {
+		this.resourceHandler = new FileResourceHandler();
+		this.reader = new Reader(this, source, progressive);
+		this.resourceHandler.addResource(this.reader);
+
+		initCOSDocument(document);
+	}
+
+	/**
+	 * Constructor from shared file source. Document keeps the source until it
+	 * is closed.
+	 *
+	 * @param source is shared source of pdf file.
+	 * @param document is pd document.
+	 */
+	public COSDocument(final SharedFileSource source, final PDDocument document) throws IOException {
+		this.resourceHandler = new FileResourceHandler();
+		this.resourceHandler.addResource(source);
+		try {
+			this.reader = new Reader(this, source);
+		} catch (IOException e) {
+			this.resourceHandler.close();
+			throw e;
+		}
+		this.resourceHandler.addResource(this.reader);
+
+		initCOSDocument(document);
+	}
+
 	public COSDocument(final InputStream fileStream, final PDDocument document) throws IOException {
 		this.resourceHandler = new FileResourceHandler();
 		initReader(fileStream);
@@ -106,11 +173,13 @@ public class COSDocument {
 
 		this.header = this.reader.getHeader();
 		this.xref = new COSXRefTable();
-		this.xref.set(this.reader.getKeys());
 		this.trailer = reader.getTrailer();
+		Long size = this.trailer.getSize();
+		this.xref.set(this.reader.getKeys(), size == null ? 0 : size.longValue());
 		this.firstTrailer = reader.getFirstTrailer();
 		this.lastTrailer = reader.getLastTrailer();
 		this.linearized = reader.isLinearized();
+		this.xrefComplete = reader.isXRefComplete();
 		this.changedObjects = new ArrayList<>();
 		this.addedObjects = new ArrayList<>();
 	}
@@ -125,6 +194,11 @@ public class COSDocument {
 		this.resourceHandler.addResource(this.reader);
 	}
 
+	private void initReader(final SeekableInputStream source) throws IOException {
+		this.reader = new Reader(this, source);
+		this.resourceHandler.addResource(this.reader);
+	}
+
 	public boolean isNew() {
 		return this.isNew;
 	}
@@ -133,7 +207,66 @@ public class COSDocument {
 		this.header.setHeader(header);
 	}
 
+	/**
+	 * Reads xref sections that were skipped on progressive open of document,
+	 * so all objects of document become available. Does nothing for documents
+	 * that were read completely.
+	 */
+	public void completeXRef() throws IOException {
+		if (!this.xrefComplete) {
+			this.reader.completeXRef();
+			updateXRef();
+		}
+	}
+
+	/**
+	 * Gets page object of the first page of progressively opened linearized
+	 * document from linearization dictionary. Page tree is not read, so the
+	 * page is available as soon as the first page section of source is.
+	 *
+	 * @return indirect page object or null if document was not opened
+	 * progressively or is not linearized.
+	 */
+	public COSObject getFirstPageObject() {
+		COSObject linDict = this.reader == null ? null : this.reader.getLinearizationDictionary();
+		if (linDict == null) {
+			return null;
+		}
+		Long number = linDict.getIntegerKey(ASAtom.O);
+		if (number == null) {
+			return null;
+		}
+		return COSIndirect.construct(new COSKey(number.intValue(), 0), this);
+	}
+
+	private void completeXRefQuietly() {
+		try {
+			completeXRef();
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Can't read xref sections of document", e);
+		}
+	}
+
+	private void updateXRef() {
+		if (this.xrefComplete || !this.reader.isXRefComplete()) {
+			return;
+		}
+		List<COSKey> keys = this.reader.getKeys();
+		Set<COSKey> readKeys = new HashSet<>(keys);
+		for (COSKey key : this.xref.getAllKeys()) {
+			if (!readKeys.contains(key)) {
+				keys.add(key);
+			}
+		}
+		Long size = this.reader.getTrailer().getSize();
+		this.xref.set(keys, size == null ? 0 : size.longValue());
+		this.firstTrailer = reader.getFirstTrailer();
+		this.lastTrailer = reader.getLastTrailer();
+		this.xrefComplete = true;
+	}
+
 	public List<COSObject> getObjects() {
+		completeXRefQuietly();
 		List<COSObject> result = new ArrayList<>();
 		for (COSKey key : this.xref.getAllKeys()) {
 			COSObject obj = this.body.get(key);
@@ -143,7 +276,7 @@ public class COSDocument {
 				try {
 					COSObject newObj = this.reader.getObject(key);
 
-					this.body.set(key, newObj);
+					this.body.setLoaded(key, newObj);
 					result.add(newObj);
 				} catch (IOException e) {
 					LOGGER.log(Level.FINE, "Error while parsing object : " + key.getNumber() +
@@ -155,6 +288,7 @@ public class COSDocument {
 	}
 
 	public List<COSObject> getObjectsByType(ASAtom type) {
+		completeXRefQuietly();
 		List<COSObject> result = new ArrayList<>();
 		for (COSKey key : this.xref.getAllKeys()) {
 			COSObject obj = this.body.get(key);
@@ -164,7 +298,7 @@ public class COSDocument {
 				try {
 					COSObject newObj = this.reader.getObject(key);
 
-					this.body.set(key, newObj);
+					this.body.setLoaded(key, newObj);
 					addObjectWithTypeKeyCheck(result, obj, type);
 				} catch (IOException e) {
 					LOGGER.log(Level.FINE, "Error while parsing object : " + key.getNumber() +
@@ -186,6 +320,7 @@ public class COSDocument {
 	}
 
 	public Map<COSKey, COSObject> getObjectsMap() {
+		completeXRefQuietly();
 		Map<COSKey, COSObject> result = new HashMap<>();
 		for (COSKey key : this.xref.getAllKeys()) {
 			COSObject obj = this.body.get(key);
@@ -195,7 +330,7 @@ public class COSDocument {
 				try {
 					COSObject newObj = this.reader.getObject(key);
 
-					this.body.set(key, newObj);
+					this.body.setLoaded(key, newObj);
 					result.put(key, newObj);
 				} catch (IOException e) {
 					LOGGER.log(Level.FINE, "Error while parsing object : " + key.getNumber() +
@@ -214,11 +349,12 @@ public class COSDocument {
 			}
 
 			COSObject newObj = this.reader.getObject(key);
+			updateXRef();
 			if (newObj == null) {
 				return new COSObject();
 			}
-			this.body.set(key, newObj);
-			return this.body.get(key);
+			this.body.setLoaded(key, newObj);
+			return newObj;
 		} catch (IOException e) {
 			//TODO : maybe not runtime, maybe no exception at all
 			throw new RuntimeException("Error while parsing object : " + key.getNumber() +
@@ -265,6 +401,37 @@ public class COSDocument {
 		return linearized;
 	}
 
+	/**
+	 * Limits number of objects loaded from file that are kept in memory. Other
+	 * loaded objects are parsed again on access when they are not used
+	 * anymore, see {@link COSBody}. Objects of object streams are also kept
+	 * softly by cached object streams, so their streams are not decoded again
+	 * on next access. Changes of such objects should be registered with
+	 * {@link #addChangedObject(COSObject)}.
+	 *
+	 * @param limit is maximal number of loaded objects that are kept, 0 if all
+	 *              loaded objects should be kept.
+	 */
+	public void setLoadedObjectsLimit(int limit) {
+		this.body.setLoadedObjectsLimit(limit);
+	}
+
+	/**
+	 * @return true if xref of document could not be read and objects were
+	 * found by scanning of the whole document.
+	 */
+	public boolean isXRefReconstructed() {
+		return this.reader instanceof Reader && ((Reader) this.reader).isXRefReconstructed();
+	}
+
+	/**
+	 * @return cache of decoded object streams of this document or null if
+	 * document is not read from file.
+	 */
+	public ObjectStreamsCache getObjectStreamsCache() {
+		return this.reader instanceof Reader ? ((Reader) this.reader).getObjectStreamsCache() : null;
+	}
+
 	public PDDocument getPDDocument() {
 		return this.doc;
 	}
@@ -310,6 +477,7 @@ public class COSDocument {
 	}
 
 	public void saveAs(final Writer writer) {
+		completeXRefQuietly();
 		writer.writeHeader(this.header.getHeader());
 
 		writer.addToWrite(this.xref.getAllKeys());
@@ -324,17 +492,13 @@ public class COSDocument {
 
 	public void saveTo(final OutputStream stream) {
 		try {
-			File temp = File.createTempFile("tmp_pdf_file", ".pdf");
-			temp.deleteOnExit();
-			Writer pdfWriter = new Writer(this, temp.getAbsolutePath(),
+			completeXRef();
+			this.getPDFSource().reset();
+			writeInputIntoOutput(this.getPDFSource(), stream);
+			Writer pdfWriter = new Writer(this, stream,
 					this.getPDFSource().getStreamLength());
 			pdfWriter.writeIncrementalUpdate(changedObjects, addedObjects);
 			pdfWriter.close();
-			this.getPDFSource().reset();
-			writeInputIntoOutput(this.getPDFSource(), stream);
-			InternalInputStream pdf = new InternalInputStream(temp.getAbsolutePath());
-			writeInputIntoOutput(pdf, stream);
-			pdf.close();
 		} catch (IOException e) {
 			LOGGER.log(Level.FINE, "Can't write COSDocument to stream", e);
 		}
@@ -374,6 +538,7 @@ public class COSDocument {
 	public void addObject(COSObject obj) {
 		if (obj != null && !obj.empty()) {
 			this.addedObjects.add(obj);
+			pinObject(obj);
 		}
 	}
 
@@ -384,6 +549,23 @@ public class COSDocument {
 	public void addChangedObject(COSObject obj) {
 		if (obj != null && !obj.empty() && !isObjectChanged(obj)) {
 			this.changedObjects.add(obj);
+			pinObject(obj);
+		}
+	}
+
+	/**
+	 * Keeps changed object in body, so it is not parsed again from file when
+	 * loaded objects are limited.
+	 */
+	private void pinObject(COSObject obj) {
+		COSKey key = obj.getObjectKey();
+		if (key == null) {
+			return;
+		}
+		if (obj.isIndirect()) {
+			this.body.pin(key);
+		} else if (obj.get() == this.body.get(key).get()) {
+			this.body.set(key, obj);
 		}
 	}
 
@@ -421,6 +603,17 @@ public class COSDocument {
 		this.resourceHandler.addResource(resource);
 	}
 
+	/**
+	 * Closes given resource before document is closed, e.g. when stream that
+	 * uses it is no longer needed.
+	 *
+	 * @param resource is resource registered in this document.
+	 * @return true if resource was registered in this document.
+	 */
+	public boolean releaseFileResource(Closeable resource) throws IOException {
+		return this.resourceHandler.releaseResource(resource);
+	}
+
 	public FileResourceHandler getResourceHandler() {
 		return resourceHandler;
 	}
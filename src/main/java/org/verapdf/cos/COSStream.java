@@ -21,21 +21,31 @@
 package org.verapdf.cos;
 
 import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASFileInStream;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.as.io.ASMemoryInStream;
 import org.verapdf.as.io.ASOutputStream;
 import org.verapdf.cos.visitor.ICOSVisitor;
 import org.verapdf.cos.visitor.IVisitor;
-import org.verapdf.io.InternalInputStream;
-import org.verapdf.io.InternalOutputStream;
-import org.verapdf.io.SeekableInputStream;
+import org.verapdf.io.AsyncFileReader;
+import org.verapdf.io.RoutingSpillStorage;
+import org.verapdf.io.SpillOutputStream;
+import org.verapdf.io.SpillStorage;
+import org.verapdf.tools.resource.ASFileStreamCloser;
+import org.verapdf.tools.resource.FileResourceHandler;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,6 +58,8 @@ public class COSStream extends COSDictionary {
 
 	private ASInputStream stream;
 	private FilterFlags flags;
+	private FileResourceHandler resourceHandler;
+	private ASInputStream spilledData;
 
 	private boolean streamKeywordCRLFCompliant = true;
 	private boolean endstreamKeywordCRLFCompliant = true;
@@ -160,17 +172,120 @@ public class COSStream extends COSDictionary {
 		}
 	}
 
+	/**
+	 * Starts asynchronous fetching of stream data. If stream data is a part of
+	 * file, raw bytes are read with asynchronous file channel, so many streams
+	 * can be requested at once without blocking the calling thread. If file
+	 * can't be opened by its path, e.g. it is deleted temporary file, or if
+	 * asynchronous reading would exceed its memory limit, see
+	 * {@link AsyncFileReader#setMaxBytesInFlight(long)}, raw bytes are read
+	 * from file of document on given executor without copying them into
+	 * memory. Otherwise raw bytes are copied in the calling thread. This is
+	 * also the case for data of encrypted documents, as it is wrapped into
+	 * decrypting stream. Decoding is performed on given executor, and
+	 * resulting stream contains fully decoded data, which is kept in spill
+	 * storage. If executor rejects the task, returned future fails.
+	 *
+	 * @param filterFlags specifies if data should be decoded.
+	 * @param executor is executor that performs decoding.
+	 * @return future for stream data.
+	 */
+	public Future<ASInputStream> getDataAsync(final FilterFlags filterFlags, final Executor executor) {
+		final ASInputStream[] rawData = new ASInputStream[1];
+		final Throwable[] error = new Throwable[1];
+		final ASFileInStream fileStream = this.stream instanceof ASFileInStream ?
+				(ASFileInStream) this.stream : null;
+		final DataTask result = new DataTask(new Callable<ASInputStream>() {
+			@Override
+			public ASInputStream call() throws Exception {
+				if (error[0] != null) {
+					throw new IOException("Can't read stream data", error[0]);
+				}
+				ASInputStream raw = rawData[0];
+				if (raw == null) {
+					raw = fileStream.getIndependentStream();
+				}
+				return decodeData(raw, filterFlags);
+			}
+		});
+		if (fileStream != null) {
+			if (!fileStream.isTempFile() && fileStream.getFilePath() != null) {
+				CompletionHandler<ByteBuffer, Void> handler = new CompletionHandler<ByteBuffer, Void>() {
+					@Override
+					public void completed(ByteBuffer buffer, Void attachment) {
+						rawData[0] = new ASMemoryInStream(buffer.array(), buffer.limit(), false);
+						result.executeOn(executor);
+					}
+
+					@Override
+					public void failed(Throwable exc, Void attachment) {
+						LOGGER.log(Level.FINE, "Can't read stream data asynchronously", exc);
+						result.executeOn(executor);
+					}
+				};
+				try {
+					long length = fileStream.getAvailableSize();
+					if (length <= Integer.MAX_VALUE && AsyncFileReader.read(fileStream.getFilePath(),
+							fileStream.getFileOffset(), (int) length, handler)) {
+						return result;
+					}
+				} catch (IOException e) {
+					error[0] = e;
+				}
+			}
+			result.executeOn(executor);
+			return result;
+		}
+		try {
+			if (this.stream == null) {
+				throw new IOException("Stream has no data");
+			}
+			this.stream.reset();
+			rawData[0] = new ASMemoryInStream(this.stream);
+			this.stream.reset();
+		} catch (IOException e) {
+			error[0] = e;
+		}
+		result.executeOn(executor);
+		return result;
+	}
+
+	private ASInputStream decodeData(ASInputStream raw, FilterFlags filterFlags) throws IOException {
+		if (filterFlags == FilterFlags.RAW_DATA || this.flags != FilterFlags.RAW_DATA) {
+			return raw;
+		}
+		try (ASInputStream decoded = getFilters().getInputStream(raw, this.getKey(ASAtom.DECODE_PARMS));
+			 SpillOutputStream decodedData = getSpillStorage().createOutput(-1)) {
+			decodedData.write(decoded);
+			return decodedData.getInputStream();
+		}
+	}
+
 	@Override
 	public boolean setData(final ASInputStream stream) {
+		return setData(stream, getSpillStorage());
+	}
+
+	/**
+	 * Encodes given data with filters of this stream and sets it as stream
+	 * data. Encoded data is kept in given spill storage.
+	 *
+	 * @param stream is data to set.
+	 * @param storage is storage for encoded data.
+	 * @return true if data was set successfully.
+	 */
+	public boolean setData(final ASInputStream stream, SpillStorage storage) {
 		COSFilters filters = getFilters();
 		if (filters.empty()) {
 			return setData(stream, FilterFlags.RAW_DATA);
 		}
-		try (InternalOutputStream fileWithData = InternalOutputStream.getInternalOutputStream()) {
-			ASOutputStream encoder = filters.getOutputStream(fileWithData);
+		try (SpillOutputStream encodedData = storage.createOutput(-1)) {
+			ASOutputStream encoder = filters.getOutputStream(encodedData);
 			encoder.write(stream);
-			File encodedDataFile = fileWithData.getFile();
-			return setData(new InternalInputStream(encodedDataFile), FilterFlags.RAW_DATA);
+			ASInputStream encoded = encodedData.getInputStream();
+			setData(encoded, FilterFlags.RAW_DATA);
+			this.spilledData = encoded;
+			return true;
 		} catch (IOException e) {
 			LOGGER.log(Level.FINE, "Can not set data", e);
 			return false;
@@ -179,11 +294,55 @@ public class COSStream extends COSDictionary {
 
 	@Override
 	public boolean setData(final ASInputStream stream, FilterFlags flags) {
+		ASInputStream previous = this.stream;
 		this.stream = stream;
 		this.flags = flags;
+		if (previous != null && previous != stream) {
+			releaseData(previous, stream);
+		}
 		return true;
 	}
 
+	/**
+	 * Sets resource handler of document that owns this stream. Data spilled
+	 * by this stream is registered in this handler, and replaced data that
+	 * was registered in it is released immediately. Stream that reads
+	 * replaced data has to hold its own reference to it, see
+	 * {@link ASInputStream#createStreamFromStream(ASInputStream)}.
+	 *
+	 * @param resourceHandler is resource handler of owning document.
+	 */
+	public void setResourceHandler(FileResourceHandler resourceHandler) {
+		this.resourceHandler = resourceHandler;
+	}
+
+	private SpillStorage getSpillStorage() {
+		return this.resourceHandler != null ? this.resourceHandler.getSpillStorage() :
+				RoutingSpillStorage.getDefault();
+	}
+
+	private void releaseData(ASInputStream data, ASInputStream replacement) {
+		try {
+			if (this.resourceHandler != null && this.resourceHandler.releaseResource(data)) {
+				// replacement may still read released data, e.g. decryption
+				// filter, so it is closed together with document instead
+				if (replacement != null) {
+					this.resourceHandler.addResource(new ASFileStreamCloser(replacement));
+				}
+				return;
+			}
+			if (data == this.spilledData) {
+				data.close();
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Can't release replaced stream data", e);
+		} finally {
+			if (data == this.spilledData) {
+				this.spilledData = null;
+			}
+		}
+	}
+
 	@Override
 	public Boolean isStreamKeywordCRLFCompliant() {
 		return Boolean.valueOf(streamKeywordCRLFCompliant);
@@ -222,16 +381,31 @@ public class COSStream extends COSDictionary {
 	}
 
 	public void setFilters(final COSFilters filters) throws IOException {
-		try (ASInputStream decoded = this.getData(COSStream.FilterFlags.DECODE)) {
-			SeekableInputStream unfilteredData =
-					SeekableInputStream.getSeekableStream(decoded);
-			InternalOutputStream fileWithData = InternalOutputStream.getInternalOutputStream();
+		setFilters(filters, getSpillStorage());
+	}
+
+	/**
+	 * Re-encodes data of this stream with given filters. Encoded data is kept
+	 * in given spill storage.
+	 *
+	 * @param filters is new filters of stream.
+	 * @param storage is storage for encoded data.
+	 */
+	public void setFilters(final COSFilters filters, SpillStorage storage) throws IOException {
+		ASInputStream decoded = this.getData(COSStream.FilterFlags.DECODE);
+		if (decoded == this.stream) {
+			// current data is released on replacement, so it is read through
+			// wrapper that keeps it open until it is encoded
+			decoded = ASInputStream.createStreamFromStream(decoded);
+		}
+		try (ASInputStream toEncode = decoded;
+			 SpillOutputStream encodedData = storage.createOutput(-1)) {
 			setKey(ASAtom.FILTER, filters.getObject());
-			ASOutputStream encoder = filters.getOutputStream(fileWithData);
-			encoder.write(unfilteredData);
-			File encodedDataFile = fileWithData.getFile();
-			fileWithData.close();
-			this.setData(new InternalInputStream(encodedDataFile), FilterFlags.RAW_DATA);
+			ASOutputStream encoder = filters.getOutputStream(encodedData);
+			encoder.write(toEncode);
+			ASInputStream encoded = encodedData.getInputStream();
+			this.setData(encoded, FilterFlags.RAW_DATA);
+			this.spilledData = encoded;
 		}
 	}
 
@@ -260,6 +434,25 @@ public class COSStream extends COSDictionary {
 		}
 	}
 
+	/**
+	 * Task of asynchronous data fetching that fails instead of being lost if
+	 * executor rejects it.
+	 */
+	private static class DataTask extends FutureTask<ASInputStream> {
+
+		private DataTask(Callable<ASInputStream> callable) {
+			super(callable);
+		}
+
+		private void executeOn(Executor executor) {
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				setException(e);
+			}
+		}
+	}
+
 	public enum FilterFlags {
 		RAW_DATA,
 		DECODE,
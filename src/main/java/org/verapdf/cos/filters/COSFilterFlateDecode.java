@@ -24,6 +24,7 @@ import org.verapdf.as.filters.io.ASBufferingInFilter;
 import org.verapdf.as.io.ASInputStream;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 
@@ -34,7 +35,10 @@ import java.util.zip.Inflater;
  */
 public class COSFilterFlateDecode extends ASBufferingInFilter {
 
+    private static final int OUTPUT_CHUNK_SIZE = 64 * 1024;
+
     private Inflater inflater;
+    private byte[] outputChunk;
 
     /**
      * Constructor from Flate encoded stream.
@@ -58,6 +62,43 @@ public class COSFilterFlateDecode extends ASBufferingInFilter {
      */
     @Override
     public int read(byte[] buffer, int size) throws IOException {
+        return inflate(buffer, 0, size);
+    }
+
+    /**
+     * Decodes flate compressed data directly into given buffer. Data is
+     * decompressed into backing array of heap buffer without intermediate
+     * copies. As Inflater can work only with arrays, data for direct buffer is
+     * decompressed into reusable chunk and then transferred with one bulk put.
+     *
+     * @param buffer is buffer into which data will be decompressed.
+     * @return amount of actually read bytes.
+     * @throws IOException
+     */
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return 0;
+        }
+        if (buffer.hasArray()) {
+            int res = inflate(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+            if (res > 0) {
+                buffer.position(buffer.position() + res);
+            }
+            return res;
+        }
+        if (outputChunk == null) {
+            outputChunk = new byte[OUTPUT_CHUNK_SIZE];
+        }
+        int res = inflate(outputChunk, 0, Math.min(outputChunk.length, buffer.remaining()));
+        if (res > 0) {
+            buffer.put(outputChunk, 0, res);
+        }
+        return res;
+    }
+
+    private int inflate(byte[] buffer, int offset, int size) throws IOException {
         int bytesFed = 0;
         if (inflater.getRemaining() == 0) {
             bytesFed = (int) this.feedBuffer(getBufferCapacity());
@@ -67,14 +108,14 @@ public class COSFilterFlateDecode extends ASBufferingInFilter {
             inflater.setInput(this.internalBuffer, 0, bytesFed);
         }
         try {
-            int res = inflater.inflate(buffer, 0, size);
+            int res = inflater.inflate(buffer, offset, size);
             if (res == 0) {
                 long added = this.addToBuffer(BF_BUFFER_SIZE);
                 if (added == -1) {
                     return -1;
                 } else {
                     inflater.setInput(this.internalBuffer, 0, (int) (bytesFed + added));
-                    return inflater.inflate(buffer, 0, size);
+                    return inflater.inflate(buffer, offset, size);
                 }
             } else {
                 return res;
@@ -26,6 +26,8 @@ import org.verapdf.as.io.ASInputStream;
 import org.verapdf.cos.COSDictionary;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * This filter represents predictor that is applied to Flate and LZW encodings.
@@ -43,6 +45,8 @@ public class COSPredictorDecode extends ASBufferingInFilter {
             lineLength;
     private byte predictor;
     private byte[] previousLine = null;
+    private byte[] currentLine;
+    private int linePosition;
     private boolean streamEnded = false;
 
     /**
@@ -72,20 +76,36 @@ public class COSPredictorDecode extends ASBufferingInFilter {
         if (previousLine == null) {
             previousLine = new byte[lineLength];
         }
+        this.currentLine = new byte[lineLength];
+        this.linePosition = lineLength;
     }
 
     @Override
     public int read(byte[] buffer, int size) throws IOException {
-        if (streamEnded) {
-            return -1;
-        }
-        if (this.bufferSize() == 0) {
-            if (this.feedBuffer(getBufferCapacity()) == -1) {
-                this.streamEnded = true;
-            }
-        }
+        return read(ByteBuffer.wrap(buffer, 0, Math.min(size, buffer.length)));
+    }
+
+    /**
+     * Reads up to buffer.remaining() bytes of decoded data into given buffer.
+     * Lines are decoded into reusable array, line that does not fit into
+     * buffer is kept and returned on next read.
+     *
+     * @param buffer is buffer into which data is read.
+     * @return amount of actually read bytes.
+     * @throws IOException
+     */
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
         if (predictor == 1) {
-            int popped = bufferPopArray(buffer, size);
+            if (streamEnded) {
+                return -1;
+            }
+            if (this.bufferSize() == 0) {
+                if (this.feedBuffer(getBufferCapacity()) == -1) {
+                    this.streamEnded = true;
+                }
+            }
+            int popped = bufferPopBuffer(buffer);
             if (this.bufferSize() == 0) {
                 if (this.feedBuffer(getBufferCapacity()) == -1) {
                     this.streamEnded = true;
@@ -94,65 +114,65 @@ public class COSPredictorDecode extends ASBufferingInFilter {
             return popped;
         }
         int outputPointer = 0;
+        while (buffer.hasRemaining()) {
+            if (linePosition == lineLength && !decodeLine()) {
+                break;
+            }
+            int toCopy = Math.min(lineLength - linePosition, buffer.remaining());
+            buffer.put(currentLine, linePosition, toCopy);
+            linePosition += toCopy;
+            outputPointer += toCopy;
+        }
+        return outputPointer == 0 && streamEnded ? -1 : outputPointer;
+    }
+
+    private boolean decodeLine() throws IOException {
+        if (streamEnded) {
+            return false;
+        }
+        if (this.bufferSize() == 0) {
+            if (this.feedBuffer(getBufferCapacity()) == -1) {
+                this.streamEnded = true;
+                return false;
+            }
+        }
         byte linePredictor = predictor;
-        byte[] currentLine = new byte[lineLength];
 
-        while (!streamEnded) {
+        // Determine if PNG predictor
+        if (predictor >= 10) {
+            // each line starts with type 0 - 4
+            linePredictor = bufferPop();
+            linePredictor += 10;
+        }
 
-            // Determine if PNG predictor
-            if (predictor >= 10) {
-                if (bufferSize() == 0) {
-                    if (this.feedBuffer(getBufferCapacity()) == -1) {
-                        this.streamEnded = true;
-                        break;
-                    }
-                }
-                // each line starts with type 0 - 4
-                linePredictor = bufferPop();
-                linePredictor += 10;
+        int read;
+        if ((read = bufferPopArray(currentLine, lineLength)) != lineLength) {
+            if (this.feedBuffer(this.getBufferCapacity()) == -1) {
+                this.streamEnded = true;
+                return false;
             }
-
-            int read;
-            if ((read = bufferPopArray(currentLine, lineLength)) != lineLength) {
-                if (this.feedBuffer(this.getBufferCapacity()) == -1) {
-                    this.streamEnded = true;
-                    break;
-                }
-                byte[] extraBytes = new byte[lineLength - read];
-                int readAgain;
-                if ((readAgain = bufferPopArray(extraBytes, extraBytes.length)) != extraBytes.length) {
-                    this.streamEnded = true;
-                    break;
-                }
-                System.arraycopy(extraBytes, 0, currentLine, read, readAgain);
+            byte[] extraBytes = new byte[lineLength - read];
+            int readAgain;
+            if ((readAgain = bufferPopArray(extraBytes, extraBytes.length)) != extraBytes.length) {
+                this.streamEnded = true;
+                return false;
             }
+            System.arraycopy(extraBytes, 0, currentLine, read, readAgain);
+        }
 
-            switch (linePredictor) {
-                case 2: // TIFF
-                    if (bitsPerComponent == 16) {
-                        for (int i = 0; i < lineLength; i += 2) {
-                            int value = (currentLine[i] << 8) + currentLine[i + 1];
-                            int left = i - bytesPerChar >= 0 ?
-                                    ((currentLine[i - bytesPerChar] << 8) +
-                                            currentLine[i - bytesPerChar + 1]) : 0;
-                            currentLine[i] = (byte) ((value + left) >> 8);
-                            currentLine[i + 1] = (byte) (value + left);
-                        }
-                        break;
-                    } else if (bitsPerComponent == 8) {
-                        for (int i = 0; i < lineLength; i++) {
-                            byte value = currentLine[i];
-                            byte left = i - bytesPerChar >= 0 ?
-                                    currentLine[i - bytesPerChar] : 0;
-                            currentLine[i] = (byte) (value + left);
-                        }
-                        break;
-                    } else {
-                        throw new IOException(bitsPerComponent + " bits per component can't be processed.");
+        switch (linePredictor) {
+            case 2: // TIFF
+                if (bitsPerComponent == 16) {
+                    for (int i = 0; i < lineLength; i += 2) {
+                        int value = (currentLine[i] << 8) + currentLine[i + 1];
+                        int left = i - bytesPerChar >= 0 ?
+                                ((currentLine[i - bytesPerChar] << 8) +
+                                        currentLine[i - bytesPerChar + 1]) : 0;
+                        currentLine[i] = (byte) ((value + left) >> 8);
+                        currentLine[i + 1] = (byte) (value + left);
                     }
-                case 10: // None
                     break;
-                case 11: // Sub
+                } else if (bitsPerComponent == 8) {
                     for (int i = 0; i < lineLength; i++) {
                         byte value = currentLine[i];
                         byte left = i - bytesPerChar >= 0 ?
@@ -160,55 +180,63 @@ public class COSPredictorDecode extends ASBufferingInFilter {
                         currentLine[i] = (byte) (value + left);
                     }
                     break;
-                case 12: // Up
-                    for (int i = 0; i < lineLength; i++) {
-                        byte value = currentLine[i];
-                        byte up = previousLine[i];
+                } else {
+                    throw new IOException(bitsPerComponent + " bits per component can't be processed.");
+                }
+            case 10: // None
+                break;
+            case 11: // Sub
+                for (int i = 0; i < lineLength; i++) {
+                    byte value = currentLine[i];
+                    byte left = i - bytesPerChar >= 0 ?
+                            currentLine[i - bytesPerChar] : 0;
+                    currentLine[i] = (byte) (value + left);
+                }
+                break;
+            case 12: // Up
+                for (int i = 0; i < lineLength; i++) {
+                    byte value = currentLine[i];
+                    byte up = previousLine[i];
+                    currentLine[i] = (byte) (value + up);
+                }
+                break;
+            case 13: // Avg
+                for (int i = 0; i < lineLength; i++) {
+                    byte value = currentLine[i];
+                    byte left = i - bytesPerChar >= 0 ?
+                            currentLine[i - bytesPerChar] : 0;
+                    byte up = previousLine[i];
+                    currentLine[i] = (byte) (value + (left + up) / 2);
+                }
+                break;
+            case 14: // Paeth
+                for (int i = 0; i < lineLength; i++) {
+                    byte value = currentLine[i];
+                    byte left = i - bytesPerChar >= 0 ?
+                            currentLine[i - bytesPerChar] : 0;
+                    byte up = previousLine[i];
+                    byte upLeft = i - bytesPerChar >= 0 ?
+                            previousLine[i - bytesPerChar] : 0;
+                    int res = left + up - upLeft;
+                    int leftDiff = Math.abs(res - left);
+                    int upDiff = Math.abs(res - up);
+                    int upLeftDiff = Math.abs(res - upLeft);
+
+                    if (leftDiff <= upDiff && leftDiff <= upLeftDiff) {
+                        currentLine[i] = (byte) (value + left);
+                    } else if (upDiff <= upLeftDiff) {
                         currentLine[i] = (byte) (value + up);
+                    } else {
+                        currentLine[i] = (byte) (value + upLeft);
                     }
-                    break;
-                case 13: // Avg
-                    for (int i = 0; i < lineLength; i++) {
-                        byte value = currentLine[i];
-                        byte left = i - bytesPerChar >= 0 ?
-                                currentLine[i - bytesPerChar] : 0;
-                        byte up = previousLine[i];
-                        currentLine[i] = (byte) (value + (left + up) / 2);
-                    }
-                    break;
-                case 14: // Paeth
-                    for (int i = 0; i < lineLength; i++) {
-                        byte value = currentLine[i];
-                        byte left = i - bytesPerChar >= 0 ?
-                                currentLine[i - bytesPerChar] : 0;
-                        byte up = previousLine[i];
-                        byte upLeft = i - bytesPerChar >= 0 ?
-                                previousLine[i - bytesPerChar] : 0;
-                        int res = left + up - upLeft;
-                        int leftDiff = Math.abs(res - left);
-                        int upDiff = Math.abs(res - up);
-                        int upLeftDiff = Math.abs(res - upLeft);
-
-                        if (leftDiff <= upDiff && leftDiff <= upLeftDiff) {
-                            currentLine[i] = (byte) (value + left);
-                        } else if (upDiff <= upLeftDiff) {
-                            currentLine[i] = (byte) (value + up);
-                        } else {
-                            currentLine[i] = (byte) (value + upLeft);
-                        }
-                    }
-                    break;
-                default:
-                    break;
-            }
-            System.arraycopy(currentLine, 0, buffer, outputPointer, lineLength);
-            System.arraycopy(currentLine, 0, previousLine, 0, lineLength);
-            outputPointer += lineLength;
-            if (outputPointer + lineLength > size) {
-                return outputPointer;
-            }
+                }
+                break;
+            default:
+                break;
         }
-        return outputPointer;
+        System.arraycopy(currentLine, 0, previousLine, 0, lineLength);
+        linePosition = 0;
+        return true;
     }
 
     private byte predictorFromParams(COSDictionary decodeParams) {
@@ -246,5 +274,8 @@ public class COSPredictorDecode extends ASBufferingInFilter {
     @Override
     public void reset() throws IOException {
         super.reset();
+        Arrays.fill(previousLine, (byte) 0);
+        this.linePosition = lineLength;
+        this.streamEnded = false;
     }
 }
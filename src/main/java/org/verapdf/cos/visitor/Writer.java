@@ -34,6 +34,7 @@ import org.verapdf.io.InternalOutputStream;
 import org.verapdf.io.SeekableInputStream;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -87,6 +88,26 @@ public class Writer implements IVisitor {
 		}
 	}
 
+	/**
+	 * Constructor of writer that writes data sequentially into given stream.
+	 *
+	 * @param document          is document to write.
+	 * @param stream            is stream into which data is written.
+	 * @param incrementalOffset is offset of the beginning of written data in
+	 *                          resulting file.
+	 */
+	public Writer(final COSDocument document, final OutputStream stream,
+				  long incrementalOffset) {
+		this.document = document;
+		this.os = new InternalOutputStream(stream);
+		this.info = new COSXRefInfo();
+
+		this.toWrite = new ArrayList<COSKey>();
+		this.written = new ArrayList<COSKey>();
+
+		this.incrementalOffset = incrementalOffset;
+	}
+
 	public void writeIncrementalUpdate(List<COSObject> changedObjects,
 									   List<COSObject> addedObjects) {
 		List<COSKey> objectsToWrite = new ArrayList<>();
@@ -0,0 +1,243 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos.xref;
+
+import org.verapdf.cos.COSKey;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable merged cross-reference entries of all xref sections of
+ * document. Entries are stored in primitive columns indexed by object number,
+ * so offset lookup is an array access. If object numbers are sparse, columns
+ * are indexed by position of object number in sorted array of numbers.
+ * <p>
+ * Offset of compressed object is negated number of its object stream, index
+ * of object in object stream is kept separately.
+ */
+public final class COSXRefEntries {
+
+    public static final COSXRefEntries EMPTY = new COSXRefEntries(new ArrayList<COSXRefSection>());
+
+    private static final int MIN_DENSE_SIZE = 1024;
+    private static final int MAX_DENSE_RATIO = 4;
+
+    // sorted object numbers in sparse mode, null in dense mode
+    private final int[] numbers;
+    private final long[] offsets;
+    private final int[] generations;
+    private final BitSet used;
+    private final int[] streamIndices;
+    // slots of used entries in ascending order
+    private final int[] usedSlots;
+
+    /**
+     * Merges xref sections in one pass. Sections are applied in given order,
+     * so entries of later sections replace entries of earlier ones. Free
+     * entry with generation g removes used entry of the same object with
+     * generation g - 1.
+     *
+     * @param sections are sections from the first one to the last one.
+     */
+    public COSXRefEntries(final List<COSXRefSection> sections) {
+        int maxNumber = -1;
+        long total = 0;
+        boolean hasCompressed = false;
+        for (COSXRefSection section : sections) {
+            int size = section.size();
+            if (size > 0) {
+                maxNumber = Math.max(maxNumber, section.getNumber(size - 1));
+                total += size;
+                for (int i = 0; i < size && !hasCompressed; ++i) {
+                    hasCompressed = section.getObjectStreamIndex(i) >= 0;
+                }
+            }
+        }
+        int slots;
+        if (maxNumber < MIN_DENSE_SIZE || maxNumber / MAX_DENSE_RATIO <= total) {
+            this.numbers = null;
+            slots = maxNumber + 1;
+        } else {
+            this.numbers = collectNumbers(sections, (int) total);
+            slots = this.numbers.length;
+        }
+        this.offsets = new long[slots];
+        this.generations = new int[slots];
+        this.used = new BitSet(slots);
+        this.streamIndices = hasCompressed ? new int[slots] : null;
+
+        for (COSXRefSection section : sections) {
+            for (int i = 0; i < section.size(); ++i) {
+                int number = section.getNumber(i);
+                if (number < 0) {
+                    // object numbers are positive, such entries can't be referenced
+                    continue;
+                }
+                int slot = getSlot(number);
+                int generation = section.getGeneration(i);
+                if (section.getType(i) == 'n') {
+                    this.offsets[slot] = section.getOffset(i);
+                    this.generations[slot] = generation;
+                    this.used.set(slot);
+                    if (this.streamIndices != null) {
+                        this.streamIndices[slot] = section.getObjectStreamIndex(i);
+                    }
+                } else if (this.used.get(slot) && this.generations[slot] == generation - 1) {
+                    this.used.clear(slot);
+                }
+            }
+        }
+        this.usedSlots = new int[this.used.cardinality()];
+        int position = 0;
+        for (int slot = this.used.nextSetBit(0); slot >= 0; slot = this.used.nextSetBit(slot + 1)) {
+            this.usedSlots[position++] = slot;
+        }
+    }
+
+    /**
+     * @return true if there is used entry for given object key.
+     */
+    public boolean contains(final COSKey key) {
+        return getUsedSlot(key) >= 0;
+    }
+
+    /**
+     * @return offset of object with given key, negated number of object stream
+     * for compressed object or 0 if there is no entry for this key.
+     */
+    public long getOffset(final COSKey key) {
+        int slot = getUsedSlot(key);
+        return slot >= 0 ? this.offsets[slot] : 0;
+    }
+
+    /**
+     * @return index of compressed object in its object stream or -1 if object
+     * is not compressed or index is unknown.
+     */
+    public int getObjectStreamIndex(final COSKey key) {
+        int slot = getUsedSlot(key);
+        return slot >= 0 && this.streamIndices != null && this.offsets[slot] < 0 ?
+                this.streamIndices[slot] : -1;
+    }
+
+    /**
+     * Gets keys of all used entries sorted by object number. Keys are created
+     * on access, so list doesn't hold key object per entry. New keys can be
+     * appended to the end of list.
+     *
+     * @return list of keys.
+     */
+    public List<COSKey> getKeys() {
+        return new KeyList();
+    }
+
+    /**
+     * @return greatest number of object with used entry or 0 if there are no
+     * such objects.
+     */
+    public int getGreatestNumber() {
+        int slot = this.used.length() - 1;
+        return slot >= 0 ? getNumber(slot) : 0;
+    }
+
+    /**
+     * @return number of used entries.
+     */
+    public int size() {
+        return this.usedSlots.length;
+    }
+
+    private int getUsedSlot(final COSKey key) {
+        int number = key.getNumber();
+        int slot;
+        if (this.numbers == null) {
+            slot = number >= 0 && number < this.offsets.length ? number : -1;
+        } else {
+            slot = Arrays.binarySearch(this.numbers, number);
+        }
+        return slot >= 0 && this.used.get(slot) && this.generations[slot] == key.getGeneration() ?
+                slot : -1;
+    }
+
+    private int getSlot(final int number) {
+        return this.numbers == null ? number : Arrays.binarySearch(this.numbers, number);
+    }
+
+    private int getNumber(final int slot) {
+        return this.numbers == null ? slot : this.numbers[slot];
+    }
+
+    private static int[] collectNumbers(final List<COSXRefSection> sections, final int total) {
+        int[] result = new int[total];
+        int size = 0;
+        for (COSXRefSection section : sections) {
+            for (int i = 0; i < section.size(); ++i) {
+                if (section.getNumber(i) >= 0) {
+                    result[size++] = section.getNumber(i);
+                }
+            }
+        }
+        Arrays.sort(result, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; ++i) {
+            if (unique == 0 || result[unique - 1] != result[i]) {
+                result[unique++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    private final class KeyList extends AbstractList<COSKey> implements RandomAccess {
+
+        private final List<COSKey> appended = new ArrayList<>();
+
+        @Override
+        public COSKey get(int index) {
+            if (index < usedSlots.length) {
+                if (index < 0) {
+                    throw new IndexOutOfBoundsException("Index: " + index);
+                }
+                int slot = usedSlots[index];
+                return new COSKey(getNumber(slot), generations[slot]);
+            }
+            return this.appended.get(index - usedSlots.length);
+        }
+
+        @Override
+        public void add(int index, COSKey key) {
+            if (index != size()) {
+                throw new UnsupportedOperationException("Keys can be added only to the end of list");
+            }
+            this.appended.add(key);
+            this.modCount++;
+        }
+
+        @Override
+        public int size() {
+            return usedSlots.length + this.appended.size();
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.verapdf.cos.COSTrailer;
 public class COSXRefInfo {
 
 	private long startXRef;
+	private long trailerOffset;
 	private COSXRefSection xref;
 	private COSTrailer trailer;
 
@@ -46,6 +47,18 @@ public class COSXRefInfo {
 		this.startXRef = startXRef;
 	}
 
+	/**
+	 * @return offset of trailer dictionary, or -1 if trailer is dictionary of
+	 * xref stream.
+	 */
+	public long getTrailerOffset() {
+		return this.trailerOffset;
+	}
+
+	public void setTrailerOffset(final long trailerOffset) {
+		this.trailerOffset = trailerOffset;
+	}
+
 	public COSXRefSection getXRefSection() {
 		return this.xref;
 	}
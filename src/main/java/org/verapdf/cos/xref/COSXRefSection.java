@@ -25,15 +25,32 @@ import org.verapdf.cos.COSKey;
 import java.util.*;
 
 /**
+ * Entries of one xref section. Entries are kept in columns sorted by object
+ * number, so section doesn't allocate objects per entry. Entries that are
+ * added out of order are appended and columns are sorted once, when entries
+ * are read.
+ *
  * @author Timur Kamalov
  */
 public class COSXRefSection {
 
-	private Map<Integer, COSXRefEntry> entries;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int size;
+	private boolean isSorted = true;
+	private int[] numbers;
+	private long[] offsets;
+	private int[] generations;
+	private char[] types;
+	// indices of compressed objects in object streams, created on demand
+	private int[] streamIndices;
 
 	public COSXRefSection() {
-		this.entries = new TreeMap<Integer, COSXRefEntry>();
-		this.entries.put(0, new COSXRefEntry(0, 65535, 'f'));
+		this.numbers = new int[INITIAL_CAPACITY];
+		this.offsets = new long[INITIAL_CAPACITY];
+		this.generations = new int[INITIAL_CAPACITY];
+		this.types = new char[INITIAL_CAPACITY];
+		put(0, 0, 65535, 'f');
 	}
 
 	public void add(final COSKey key, final long offset) {
@@ -41,7 +58,11 @@ public class COSXRefSection {
 	}
 
 	public void add(final COSKey key, final long offset, final char free) {
-		this.entries.put(key.getNumber(), new COSXRefEntry(offset, key.getGeneration(), free));
+		put(key.getNumber(), offset, key.getGeneration(), free);
+	}
+
+	public void add(final int number, final long offset, final int generation, final char free) {
+		put(number, offset, generation, free);
 	}
 
 	public void add(final Map<COSKey, Long> offsets) {
@@ -54,43 +75,70 @@ public class COSXRefSection {
 		}
 	}
 
+	/**
+	 * Adds entry of object that is compressed in object stream. Offset of
+	 * such entry is negated number of object stream.
+	 *
+	 * @param number             is number of compressed object.
+	 * @param objectStreamNumber is number of object stream.
+	 * @param index              is index of object in object stream.
+	 */
+	public void addCompressed(final int number, final int objectStreamNumber, final int index) {
+		int position = put(number, -(long) objectStreamNumber, 0, 'n');
+		if (this.streamIndices == null) {
+			this.streamIndices = new int[this.numbers.length];
+			Arrays.fill(this.streamIndices, -1);
+		}
+		this.streamIndices[position] = index;
+	}
+
 	public void addTo(final List<COSKey> keys) {
-		for (Map.Entry<Integer, COSXRefEntry> entry : this.entries.entrySet()) {
-			final COSKey key = new COSKey(entry.getKey(), entry.getValue().generation);
-			if (entry.getValue().free == 'n') {
-				keys.add(key);
-			} else {
-				removeIfNumberEqual(keys, key.getNumber());
+		ensureSorted();
+		Set<Integer> freeNumbers = new HashSet<>();
+		for (int i = 0; i < this.size; ++i) {
+			if (this.types[i] != 'n') {
+				freeNumbers.add(this.numbers[i]);
+			}
+		}
+		if (!freeNumbers.isEmpty()) {
+			Iterator<COSKey> iterator = keys.iterator();
+			while (iterator.hasNext()) {
+				if (freeNumbers.contains(iterator.next().getNumber())) {
+					iterator.remove();
+				}
+			}
+		}
+		for (int i = 0; i < this.size; ++i) {
+			if (this.types[i] == 'n') {
+				keys.add(new COSKey(this.numbers[i], this.generations[i]));
 			}
 		}
 	}
 
 	public void addTo(final Map<COSKey, Long> offsets) {
-		for (Map.Entry<Integer, COSXRefEntry> entry : this.entries.entrySet()) {
-			final COSKey key = new COSKey(entry.getKey(), entry.getValue().generation);
-			if (entry.getValue().free == 'n') {
-				offsets.put(key, entry.getValue().offset);
+		ensureSorted();
+		for (int i = 0; i < this.size; ++i) {
+			if (this.types[i] == 'n') {
+				offsets.put(new COSKey(this.numbers[i], this.generations[i]), this.offsets[i]);
 			} else {
-				offsets.remove(new COSKey(key.getNumber(), key.getGeneration() - 1));
+				offsets.remove(new COSKey(this.numbers[i], this.generations[i] - 1));
 			}
 		}
 	}
 
 	public List<COSXRefRange> getRange() {
+		ensureSorted();
 		List<COSXRefRange> result = new ArrayList<COSXRefRange>();
 
-		if (this.entries.isEmpty()) {
+		if (this.size == 0) {
 			return result;
 		}
 
-		Iterator<Map.Entry<Integer, COSXRefEntry>> iterator = this.entries.entrySet().iterator();
-		COSXRefRange segment = new COSXRefRange(iterator.next().getKey());
-		int nextSegment;
-		while(iterator.hasNext()) {
-			nextSegment = iterator.next().getKey();
+		COSXRefRange segment = new COSXRefRange(this.numbers[0]);
+		for (int i = 1; i < this.size; ++i) {
+			int nextSegment = this.numbers[i];
 			if (nextSegment == segment.next()) {
 				segment.count++;
-				continue;
 			} else {
 				result.add(segment);
 				segment = new COSXRefRange(nextSegment);
@@ -102,32 +150,172 @@ public class COSXRefSection {
 	}
 
 	public COSXRefEntry getEntry(final int number) {
-		return this.entries.get(number);
+		int position = find(number);
+		if (position < 0) {
+			return null;
+		}
+		return new COSXRefEntry(this.offsets[position], this.generations[position], this.types[position]);
 	}
 
 	public void addEntry(final int number, final COSXRefEntry entry) {
-		this.entries.put(number, entry);
+		put(number, entry.offset, entry.generation, entry.free);
 	}
 
-	private void removeIfNumberEqual(final List<COSKey> keys, final int number) {
-		for (COSKey key : keys) {
-			if (key.getNumber() == number) {
-				keys.remove(number);
-			}
+	/**
+	 * Adds entries for consecutive object numbers.
+	 *
+	 * @param firstNumber is number of the first object.
+	 * @param count       is amount of entries to add.
+	 * @param offsets     are offsets of objects.
+	 * @param generations are generation numbers of objects.
+	 * @param types       are entry types, 'n' for used and 'f' for free entries.
+	 */
+	public void addEntries(final int firstNumber, final int count, final long[] offsets,
+						   final int[] generations, final char[] types) {
+		ensureCapacity(this.size + count);
+		for (int i = 0; i < count; ++i) {
+			put(firstNumber + i, offsets[i], generations[i], types[i]);
 		}
 	}
 
 	public long next() {
-		if (entries.isEmpty()) {
-			return 1;
+		ensureSorted();
+		return this.size == 0 ? 1 : this.numbers[this.size - 1] + 1L;
+	}
+
+	/**
+	 * @return number of entries in section.
+	 */
+	public int size() {
+		ensureSorted();
+		return this.size;
+	}
+
+	/**
+	 * @param position is position of entry in section, entries are sorted by
+	 *                 object number.
+	 * @return object number of entry.
+	 */
+	public int getNumber(final int position) {
+		ensureSorted();
+		return this.numbers[position];
+	}
+
+	public long getOffset(final int position) {
+		ensureSorted();
+		return this.offsets[position];
+	}
+
+	public int getGeneration(final int position) {
+		ensureSorted();
+		return this.generations[position];
+	}
+
+	public char getType(final int position) {
+		ensureSorted();
+		return this.types[position];
+	}
+
+	/**
+	 * @return index of compressed object in object stream or -1 if entry is
+	 * not entry of compressed object.
+	 */
+	public int getObjectStreamIndex(final int position) {
+		ensureSorted();
+		return this.streamIndices == null ? -1 : this.streamIndices[position];
+	}
+
+	private int find(final int number) {
+		ensureSorted();
+		if (this.size > 0 && this.numbers[this.size - 1] == number) {
+			return this.size - 1;
+		}
+		return Arrays.binarySearch(this.numbers, 0, this.size, number);
+	}
+
+	private int put(final int number, final long offset, final int generation, final char type) {
+		int position;
+		if (this.isSorted && this.size > 0 && this.numbers[this.size - 1] == number) {
+			position = this.size - 1;
 		} else {
-			// TODO : no nice way to get last element of linked hash map
-			Iterator<Map.Entry<Integer, COSXRefEntry>> iterator = this.entries.entrySet().iterator();
-			Map.Entry<Integer, COSXRefEntry> lastElement = iterator.next();
-			while (iterator.hasNext()) {
-				lastElement = iterator.next();
+			if (this.size > 0 && this.numbers[this.size - 1] >= number) {
+				// entry is sorted in place later, see ensureSorted()
+				this.isSorted = false;
+			}
+			position = this.size;
+			ensureCapacity(this.size + 1);
+			this.size++;
+		}
+		this.numbers[position] = number;
+		this.offsets[position] = offset;
+		this.generations[position] = generation;
+		this.types[position] = type;
+		if (this.streamIndices != null) {
+			this.streamIndices[position] = -1;
+		}
+		return position;
+	}
+
+	/**
+	 * Sorts entries that were added out of order by object number. If there
+	 * are several entries for one object number, the last added one is kept.
+	 */
+	private void ensureSorted() {
+		if (this.isSorted) {
+			return;
+		}
+		this.isSorted = true;
+		// number in high bits and position in low bits keep order of addition
+		// for entries with equal numbers
+		long[] order = new long[this.size];
+		for (int i = 0; i < this.size; ++i) {
+			order[i] = ((long) this.numbers[i] << 32) | i;
+		}
+		Arrays.sort(order);
+		int[] sortedNumbers = new int[this.numbers.length];
+		long[] sortedOffsets = new long[this.offsets.length];
+		int[] sortedGenerations = new int[this.generations.length];
+		char[] sortedTypes = new char[this.types.length];
+		int[] sortedIndices = this.streamIndices == null ? null : new int[this.streamIndices.length];
+		int sortedSize = 0;
+		for (int i = 0; i < order.length; ++i) {
+			if (i + 1 < order.length && (order[i + 1] >> 32) == (order[i] >> 32)) {
+				continue;
 			}
-			return lastElement.getKey() + 1;
+			int position = (int) order[i];
+			sortedNumbers[sortedSize] = this.numbers[position];
+			sortedOffsets[sortedSize] = this.offsets[position];
+			sortedGenerations[sortedSize] = this.generations[position];
+			sortedTypes[sortedSize] = this.types[position];
+			if (sortedIndices != null) {
+				sortedIndices[sortedSize] = this.streamIndices[position];
+			}
+			sortedSize++;
+		}
+		if (sortedIndices != null) {
+			Arrays.fill(sortedIndices, sortedSize, sortedIndices.length, -1);
+		}
+		this.numbers = sortedNumbers;
+		this.offsets = sortedOffsets;
+		this.generations = sortedGenerations;
+		this.types = sortedTypes;
+		this.streamIndices = sortedIndices;
+		this.size = sortedSize;
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity <= this.numbers.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, this.numbers.length << 1);
+		this.numbers = Arrays.copyOf(this.numbers, newCapacity);
+		this.offsets = Arrays.copyOf(this.offsets, newCapacity);
+		this.generations = Arrays.copyOf(this.generations, newCapacity);
+		this.types = Arrays.copyOf(this.types, newCapacity);
+		if (this.streamIndices != null) {
+			int oldCapacity = this.streamIndices.length;
+			this.streamIndices = Arrays.copyOf(this.streamIndices, newCapacity);
+			Arrays.fill(this.streamIndices, oldCapacity, newCapacity, -1);
 		}
 	}
 
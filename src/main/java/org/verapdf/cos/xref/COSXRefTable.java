@@ -50,6 +50,21 @@ public class COSXRefTable {
         this.size = keys.isEmpty() ? 1 : keys.get(lastIndex).getNumber() + 1;
     }
 
+    /**
+     * Sets keys of table. Number of the next new key is at least given size,
+     * so keys of objects that are not read yet, e.g. on progressive open, are
+     * not reused.
+     *
+     * @param keys    are keys of table.
+     * @param minSize is minimal size of table, e.g. Size entry of trailer.
+     */
+    public void set(final List<COSKey> keys, final long minSize) {
+        set(keys);
+        if (minSize > this.size) {
+            this.size = (int) minSize;
+        }
+    }
+
     public COSKey next() {
         return new COSKey(this.size++);
     }
@@ -0,0 +1,202 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads regions of files with asynchronous file channels. All requests to one
+ * file that are pending at the same time share one channel, so many reads can
+ * be issued at once and reordered by operating system. Channel is closed when
+ * its last pending request is completed.
+ * <p>
+ * Regions are read into heap buffers, so total length of regions that are
+ * being read is limited, see {@link #setMaxBytesInFlight(long)}. Requests that
+ * would exceed the limit are not started, and caller reads such regions by
+ * other means.
+ */
+public final class AsyncFileReader {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncFileReader.class.getCanonicalName());
+
+    public static final long DEFAULT_MAX_BYTES_IN_FLIGHT = 64L * 1024 * 1024;
+
+    private static final Map<String, ChannelEntry> CHANNELS = new HashMap<>();
+
+    private static long maxBytesInFlight = DEFAULT_MAX_BYTES_IN_FLIGHT;
+    private static long bytesInFlight = 0;
+
+    private AsyncFileReader() {
+    }
+
+    /**
+     * Sets limit of total length of regions that are being read at the same
+     * time. It also limits length of one region.
+     *
+     * @param maxBytes is limit in bytes, 0 disables asynchronous reading.
+     */
+    public static void setMaxBytesInFlight(long maxBytes) {
+        synchronized (CHANNELS) {
+            if (maxBytes >= 0) {
+                maxBytesInFlight = maxBytes;
+            }
+        }
+    }
+
+    /**
+     * @return limit of total length of regions that are being read.
+     */
+    public static long getMaxBytesInFlight() {
+        synchronized (CHANNELS) {
+            return maxBytesInFlight;
+        }
+    }
+
+    /**
+     * Starts reading of file region into new heap buffer. Handler is notified
+     * with flipped buffer when reading is finished. If end of file is reached
+     * before the end of region, buffer contains less bytes than requested.
+     *
+     * @param filePath is path of file to read.
+     * @param position is offset of region in file.
+     * @param length   is length of region.
+     * @param handler  is handler to be notified on completion or failure.
+     * @return false if reading is not started, because limit of bytes in
+     * flight would be exceeded. Handler is not notified in this case.
+     */
+    public static boolean read(String filePath, long position, int length,
+                               final CompletionHandler<ByteBuffer, Void> handler) {
+        final ChannelEntry entry;
+        try {
+            entry = acquire(filePath, length);
+        } catch (IOException e) {
+            handler.failed(e, null);
+            return true;
+        }
+        if (entry == null) {
+            return false;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        RegionReader reader = new RegionReader(entry, buffer, position, handler);
+        reader.readNext();
+        return true;
+    }
+
+    /**
+     * @return channel entry of file, or null if limit of bytes in flight
+     * would be exceeded.
+     */
+    private static ChannelEntry acquire(String filePath, int length) throws IOException {
+        synchronized (CHANNELS) {
+            if (bytesInFlight + length > maxBytesInFlight) {
+                return null;
+            }
+            ChannelEntry entry = CHANNELS.get(filePath);
+            if (entry == null) {
+                entry = new ChannelEntry(filePath,
+                        AsynchronousFileChannel.open(Paths.get(filePath), StandardOpenOption.READ));
+                CHANNELS.put(filePath, entry);
+            }
+            entry.users++;
+            bytesInFlight += length;
+            return entry;
+        }
+    }
+
+    private static void release(ChannelEntry entry, int length) {
+        synchronized (CHANNELS) {
+            bytesInFlight -= length;
+            entry.users--;
+            if (entry.users == 0) {
+                CHANNELS.remove(entry.path);
+                try {
+                    entry.channel.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Can't close asynchronous channel of file " + entry.path, e);
+                }
+            }
+        }
+    }
+
+    private static class ChannelEntry {
+        private final String path;
+        private final AsynchronousFileChannel channel;
+        private int users = 0;
+
+        private ChannelEntry(String path, AsynchronousFileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Issues reads until buffer is full or end of file is reached, as one
+     * asynchronous read can transfer less bytes than requested.
+     */
+    private static class RegionReader implements CompletionHandler<Integer, Void> {
+        private final ChannelEntry entry;
+        private final ByteBuffer buffer;
+        private final long position;
+        private final CompletionHandler<ByteBuffer, Void> handler;
+
+        private RegionReader(ChannelEntry entry, ByteBuffer buffer, long position,
+                             CompletionHandler<ByteBuffer, Void> handler) {
+            this.entry = entry;
+            this.buffer = buffer;
+            this.position = position;
+            this.handler = handler;
+        }
+
+        private void readNext() {
+            try {
+                this.entry.channel.read(this.buffer, this.position + this.buffer.position(), null, this);
+            } catch (RuntimeException e) {
+                failed(e, null);
+            }
+        }
+
+        @Override
+        public void completed(Integer read, Void attachment) {
+            if (read.intValue() > 0 && this.buffer.hasRemaining()) {
+                readNext();
+                return;
+            }
+            release(this.entry, this.buffer.capacity());
+            this.buffer.flip();
+            this.handler.completed(this.buffer, null);
+        }
+
+        @Override
+        public void failed(Throwable exc, Void attachment) {
+            release(this.entry, this.buffer.capacity());
+            this.handler.failed(exc, null);
+        }
+    }
+}
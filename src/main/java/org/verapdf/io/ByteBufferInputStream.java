@@ -0,0 +1,343 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.as.io.ASInputStream;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seekable stream that reads data from the sequence of byte buffers. Buffers
+ * are treated as consecutive windows of equal size (except for the last one),
+ * so streams longer than 2 GB can be represented. The main use case is
+ * memory-mapped file, in which case every byte is read without system calls.
+ * Substreams share underlying buffers with this stream, so no data is copied.
+ */
+public class ByteBufferInputStream extends SeekableInputStream {
+
+    /**
+     * Size of one mapped window is 2^MAPPED_WINDOW_SHIFT = 1 GB.
+     */
+    public static final int MAPPED_WINDOW_SHIFT = 30;
+    private static final int SINGLE_WINDOW_SHIFT = 31;
+
+    private ByteBuffer[] windows;
+    private final int windowShift;
+    private final long windowMask;
+    private final long startOffset;
+    private final long size;
+    private long currentPosition;
+    private final AtomicInteger numOfBufferUsers;
+    private Closeable bufferReleaser;
+    private boolean isMapped = false;
+    private boolean isClosed = false;
+
+    /**
+     * Constructor from single byte buffer. Data between buffer position and
+     * buffer limit is used, buffer is not copied.
+     *
+     * @param buffer is buffer with data.
+     */
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this(new ByteBuffer[]{buffer.slice()}, SINGLE_WINDOW_SHIFT);
+    }
+
+    /**
+     * Constructor from windows. All windows except the last one should have
+     * capacity 2^windowShift.
+     *
+     * @param windows     are consecutive buffers with data.
+     * @param windowShift is binary logarithm of window size.
+     */
+    public ByteBufferInputStream(ByteBuffer[] windows, int windowShift) {
+        this(windows, windowShift, null);
+    }
+
+    /**
+     * Constructor from windows. All windows except the last one should have
+     * capacity 2^windowShift. Given releaser is closed when this stream and
+     * all its substreams are closed, so buffers can be reused.
+     *
+     * @param windows        are consecutive buffers with data.
+     * @param windowShift    is binary logarithm of window size.
+     * @param bufferReleaser is called when buffers are no longer used.
+     */
+    public ByteBufferInputStream(ByteBuffer[] windows, int windowShift, Closeable bufferReleaser) {
+        this.windowShift = windowShift;
+        this.windowMask = (1L << windowShift) - 1;
+        this.windows = new ByteBuffer[windows.length];
+        long length = 0;
+        for (int i = 0; i < windows.length; ++i) {
+            this.windows[i] = windows[i].duplicate();
+            length += windows[i].limit();
+        }
+        this.startOffset = 0;
+        this.size = length;
+        this.currentPosition = 0;
+        this.numOfBufferUsers = new AtomicInteger(1);
+        this.bufferReleaser = bufferReleaser;
+    }
+
+    /**
+     * Constructor that creates substream of other ByteBufferInputStream. Note
+     * that no buffer copy is performed.
+     *
+     * @param stream is stream, from which substream will be taken.
+     * @param offset is beginning of substream in given stream.
+     * @param length is length of substream.
+     */
+    public ByteBufferInputStream(ByteBufferInputStream stream, long offset, long length) {
+        this.windowShift = stream.windowShift;
+        this.windowMask = stream.windowMask;
+        this.windows = new ByteBuffer[stream.windows.length];
+        for (int i = 0; i < windows.length; ++i) {
+            this.windows[i] = stream.windows[i].duplicate();
+        }
+        this.startOffset = stream.startOffset + offset;
+        this.size = Math.max(0, Math.min(length, stream.size - offset));
+        this.currentPosition = 0;
+        this.numOfBufferUsers = stream.numOfBufferUsers;
+        this.numOfBufferUsers.incrementAndGet();
+        this.bufferReleaser = stream.bufferReleaser;
+        this.isMapped = stream.isMapped;
+    }
+
+    /**
+     * Maps given file into memory. File channel is closed right after mapping,
+     * mapped data stays valid until it is garbage collected.
+     *
+     * @param file is file to map.
+     * @return stream with mapped contents of file.
+     */
+    public static ByteBufferInputStream map(File file) throws IOException {
+        return map(file.toPath());
+    }
+
+    /**
+     * Maps file with given path into memory. File channel is closed right
+     * after mapping, mapped data stays valid until it is garbage collected.
+     *
+     * @param path is path of file to map.
+     * @return stream with mapped contents of file.
+     */
+    public static ByteBufferInputStream map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long windowSize = 1L << MAPPED_WINDOW_SHIFT;
+            int windowsCount = (int) ((length + windowSize - 1) / windowSize);
+            ByteBuffer[] windows = new ByteBuffer[windowsCount];
+            for (int i = 0; i < windowsCount; ++i) {
+                long position = i * windowSize;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(windowSize, length - position));
+            }
+            ByteBufferInputStream res = new ByteBufferInputStream(windows, MAPPED_WINDOW_SHIFT);
+            res.isMapped = true;
+            return res;
+        }
+    }
+
+    /**
+     * Maps file with given name into memory.
+     *
+     * @param fileName is name of file to map.
+     * @return stream with mapped contents of file.
+     */
+    public static ByteBufferInputStream map(String fileName) throws IOException {
+        return map(new File(fileName));
+    }
+
+    /**
+     * @return true if data of this stream is memory-mapped file, so it is
+     * kept in page cache rather than in heap or direct memory.
+     */
+    public boolean isMapped() {
+        return this.isMapped;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed("Reading");
+        if (this.currentPosition >= this.size) {
+            return -1;
+        }
+        return getByte(this.currentPosition++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int size) throws IOException {
+        return read(buffer, 0, size);
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len) throws IOException {
+        checkClosed("Reading");
+        if (len == 0) {
+            return 0;
+        }
+        if (this.currentPosition >= this.size) {
+            return -1;
+        }
+        int toRead = (int) Math.min(len, this.size - this.currentPosition);
+        int read = 0;
+        while (read < toRead) {
+            long absolute = this.startOffset + this.currentPosition;
+            ByteBuffer window = this.windows[(int) (absolute >>> this.windowShift)];
+            int inWindow = (int) (absolute & this.windowMask);
+            int chunk = Math.min(toRead - read, window.limit() - inWindow);
+            window.position(inWindow);
+            window.get(buffer, off + read, chunk);
+            read += chunk;
+            this.currentPosition += chunk;
+        }
+        return read;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+        checkClosed("Reading");
+        if (!buffer.hasRemaining()) {
+            return 0;
+        }
+        if (this.currentPosition >= this.size) {
+            return -1;
+        }
+        int toRead = (int) Math.min(buffer.remaining(), this.size - this.currentPosition);
+        int read = 0;
+        while (read < toRead) {
+            long absolute = this.startOffset + this.currentPosition;
+            ByteBuffer window = this.windows[(int) (absolute >>> this.windowShift)];
+            int inWindow = (int) (absolute & this.windowMask);
+            int chunk = Math.min(toRead - read, window.limit() - inWindow);
+            ByteBuffer source = window.duplicate();
+            source.limit(inWindow + chunk);
+            source.position(inWindow);
+            buffer.put(source);
+            read += chunk;
+            this.currentPosition += chunk;
+        }
+        return read;
+    }
+
+    @Override
+    public int skip(int size) throws IOException {
+        checkClosed("Skipping");
+        int available = (int) Math.max(0, Math.min(size, this.size - this.currentPosition));
+        this.currentPosition += available;
+        return available;
+    }
+
+    @Override
+    public void closeResource() throws IOException {
+        if (!this.isClosed) {
+            this.isClosed = true;
+            this.windows = null;
+            // substreams of one buffer can be closed from different threads
+            if (this.numOfBufferUsers.decrementAndGet() == 0 && this.bufferReleaser != null) {
+                this.bufferReleaser.close();
+            }
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        this.currentPosition = 0;
+    }
+
+    @Override
+    public void seek(long offset) throws IOException {
+        checkClosed("Seeking");
+        if (offset < 0 || offset > this.size) {
+            throw new IOException("Can't seek for offset " + offset + " in ByteBufferInputStream");
+        }
+        this.currentPosition = offset;
+    }
+
+    @Override
+    public long getOffset() throws IOException {
+        checkClosed("Offset obtaining");
+        return this.currentPosition;
+    }
+
+    @Override
+    public long getStreamLength() throws IOException {
+        return this.size;
+    }
+
+    @Override
+    public int peek() throws IOException {
+        checkClosed("Peeking");
+        if (this.currentPosition >= this.size) {
+            return -1;
+        }
+        return getByte(this.currentPosition) & 0xFF;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        return this.currentPosition >= this.size;
+    }
+
+    @Override
+    public void unread() throws IOException {
+        this.seek(this.currentPosition - 1);
+    }
+
+    @Override
+    public void unread(int count) throws IOException {
+        this.seek(this.currentPosition - count);
+    }
+
+    @Override
+    public ASInputStream getStream(long startOffset, long length) throws IOException {
+        checkClosed("Substream obtaining");
+        if (startOffset < 0 || startOffset > this.size) {
+            throw new IOException("Can't get substream at offset " + startOffset +
+                    " in ByteBufferInputStream");
+        }
+        return new ByteBufferInputStream(this, startOffset, length);
+    }
+
+    @Override
+    public SeekableInputStream getIndependentStream() throws IOException {
+        checkClosed("Substream obtaining");
+        return new ByteBufferInputStream(this, 0, this.size);
+    }
+
+    private byte getByte(long position) {
+        long absolute = this.startOffset + position;
+        return this.windows[(int) (absolute >>> this.windowShift)].get(
+                (int) (absolute & this.windowMask));
+    }
+
+    private void checkClosed(String streamUsage) throws IOException {
+        if (this.isClosed) {
+            throw new IOException(streamUsage + " can't be performed; stream is closed");
+        }
+    }
+}
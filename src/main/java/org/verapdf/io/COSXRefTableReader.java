@@ -22,7 +22,9 @@ package org.verapdf.io;
 
 import org.verapdf.cos.COSKey;
 import org.verapdf.cos.COSTrailer;
+import org.verapdf.cos.xref.COSXRefEntries;
 import org.verapdf.cos.xref.COSXRefInfo;
+import org.verapdf.cos.xref.COSXRefSection;
 
 import java.util.*;
 
@@ -32,7 +34,7 @@ import java.util.*;
 public class COSXRefTableReader {
 
 	private long startXRef;
-	private Map<COSKey, Long> offsets;
+	private COSXRefEntries offsets;
 	private COSTrailer trailer;
 
 	private COSTrailer firstTrailer;
@@ -40,7 +42,7 @@ public class COSXRefTableReader {
 
 	public COSXRefTableReader() {
 		this.startXRef = 0;
-		this.offsets = new HashMap<>();
+		this.offsets = COSXRefEntries.EMPTY;
 		this.trailer = new COSTrailer();
 	}
 
@@ -56,8 +58,8 @@ public class COSXRefTableReader {
 
 	public void set(final List<COSXRefInfo> infos) {
 		this.startXRef = 0;
-		this.offsets.clear();
-		this.trailer.clear();
+		this.offsets = COSXRefEntries.EMPTY;
+		this.trailer = new COSTrailer();
 
 		if (infos == null || infos.isEmpty()) {
 			return;
@@ -68,10 +70,12 @@ public class COSXRefTableReader {
 		this.trailer = lastInfo.getTrailer();
 
 		Map<Long, COSTrailer> trailers = new HashMap<>();
+		List<COSXRefSection> sections = new ArrayList<>(infos.size());
 		for (COSXRefInfo info : infos) {
 			trailers.put(info.getStartXRef(), info.getTrailer());
-			info.getXRefSection().addTo(this.offsets);
+			sections.add(info.getXRefSection());
 		}
+		this.offsets = new COSXRefEntries(sections);
 
 		setFirstLastTrailers(trailers);
 
@@ -92,31 +96,42 @@ public class COSXRefTableReader {
 	public void set(final COSXRefInfo info) {
 		this.startXRef = info.getStartXRef();
 
-		this.offsets.clear();
-		info.getXRefSection().addTo(this.offsets);
+		this.offsets = new COSXRefEntries(Collections.singletonList(info.getXRefSection()));
 
 		this.trailer = info.getTrailer();
 	}
 
+	/**
+	 * Replaces offsets of objects with given entries. Entries are immutable,
+	 * so they can be shared with other readers.
+	 *
+	 * @param offsets is merged xref entries of document.
+	 */
+	public void setOffsets(final COSXRefEntries offsets) {
+		this.offsets = offsets;
+	}
+
+	/**
+	 * @return merged xref entries of document.
+	 */
+	public COSXRefEntries getOffsets() {
+		return this.offsets;
+	}
+
 	public long getStartXRef() {
 		return this.startXRef;
 	}
 
 	public List<COSKey> getKeys() {
-		List<COSKey> result = new ArrayList<COSKey>();
-		for (Map.Entry<COSKey, Long> entry : this.offsets.entrySet()) {
-			result.add(entry.getKey());
-		}
-		return result;
+		return this.offsets.getKeys();
 	}
 
 	public long getOffset(final COSKey key) {
-		Long value = this.offsets.get(key);
-		return value != null ? value : 0;
+		return this.offsets.getOffset(key);
 	}
 
 	public boolean containsKey(final COSKey key) {
-		return this.offsets.containsKey(key);
+		return this.offsets.contains(key);
 	}
 
 	public COSTrailer getTrailer() {
@@ -0,0 +1,53 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.io.IOException;
+
+/**
+ * Signals that data requested from {@link GrowingInputStream} has not arrived
+ * yet. Reading can be repeated after more data is appended to stream.
+ */
+public class DataNotAvailableException extends IOException {
+
+    private static final long serialVersionUID = 6712840129733151201L;
+
+    private final long requiredLength;
+
+    /**
+     * @param requiredLength is amount of bytes from the beginning of source
+     *                       that should be available to complete operation,
+     *                       or -1 if whole source is required.
+     */
+    public DataNotAvailableException(long requiredLength) {
+        super(requiredLength < 0 ? "Data is not available yet, whole source is required" :
+                "Data is not available yet, " + requiredLength + " bytes are required");
+        this.requiredLength = requiredLength;
+    }
+
+    /**
+     * @return amount of bytes from the beginning of source that should be
+     * available to complete operation, or -1 if whole source is required.
+     */
+    public long getRequiredLength() {
+        return requiredLength;
+    }
+}
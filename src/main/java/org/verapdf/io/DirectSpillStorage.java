@@ -0,0 +1,143 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Spill storage that keeps data in direct byte buffers outside of java heap.
+ * Buffers are taken from arena of limited capacity and returned to it when
+ * spill is released, so direct memory is allocated only once. If arena is
+ * exhausted, heap buffers are used for the rest of data.
+ */
+public class DirectSpillStorage implements SpillStorage {
+
+    private final long capacity;
+    private final Deque<ByteBuffer> freeChunks = new ArrayDeque<>();
+    private long allocated = 0;
+
+    /**
+     * @param capacity is maximal amount of direct memory used by this
+     *                 storage, in bytes.
+     */
+    public DirectSpillStorage(long capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public SpillOutputStream createOutput(long expectedSize) {
+        return new DirectSpillOutputStream();
+    }
+
+    /**
+     * @return maximal amount of direct memory used by this storage.
+     */
+    public long getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return amount of direct memory that was allocated by this storage.
+     */
+    public synchronized long getAllocated() {
+        return this.allocated;
+    }
+
+    private synchronized ByteBuffer acquireChunk() {
+        ByteBuffer res = this.freeChunks.pollFirst();
+        if (res == null) {
+            if (this.allocated + HeapSpillStorage.CHUNK_SIZE > this.capacity) {
+                return ByteBuffer.allocate(HeapSpillStorage.CHUNK_SIZE);
+            }
+            res = ByteBuffer.allocateDirect(HeapSpillStorage.CHUNK_SIZE);
+            this.allocated += HeapSpillStorage.CHUNK_SIZE;
+        }
+        res.clear();
+        return res;
+    }
+
+    private synchronized void releaseChunks(List<ByteBuffer> chunks) {
+        for (ByteBuffer chunk : chunks) {
+            if (chunk.isDirect()) {
+                this.freeChunks.addFirst(chunk);
+            }
+        }
+        chunks.clear();
+    }
+
+    private class DirectSpillOutputStream extends SpillOutputStream {
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer current;
+        private long size;
+
+        @Override
+        public long write(byte[] buffer, int offset, int size) {
+            int written = 0;
+            while (written < size) {
+                if (this.current == null || !this.current.hasRemaining()) {
+                    this.current = acquireChunk();
+                    this.chunks.add(this.current);
+                }
+                int toCopy = Math.min(size - written, this.current.remaining());
+                this.current.put(buffer, offset + written, toCopy);
+                written += toCopy;
+            }
+            this.size += size;
+            return size;
+        }
+
+        @Override
+        public long getSize() {
+            return this.size;
+        }
+
+        @Override
+        protected SeekableInputStream createInputStream() {
+            ByteBuffer[] windows = new ByteBuffer[this.chunks.size()];
+            for (int i = 0; i < windows.length; ++i) {
+                ByteBuffer window = this.chunks.get(i).duplicate();
+                window.flip();
+                windows[i] = window;
+            }
+            final List<ByteBuffer> usedChunks = new ArrayList<>(this.chunks);
+            this.chunks.clear();
+            this.current = null;
+            return new ByteBufferInputStream(windows, HeapSpillStorage.CHUNK_SHIFT, new Closeable() {
+                @Override
+                public void close() {
+                    releaseChunks(usedChunks);
+                }
+            });
+        }
+
+        @Override
+        protected void releaseStorage() {
+            releaseChunks(this.chunks);
+            this.current = null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.as.filters.io.ASBufferingInFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Spill storage that writes data into temporary files. Files are deleted as
+ * soon as spill is released, so they do not pile up until JVM exit.
+ */
+public class DiskSpillStorage implements SpillStorage {
+
+    private static final String SPILL_FILE_PREFIX = "veraPDF_spill";
+    private static final String SPILL_FILE_SUFFIX = ".tmp";
+
+    private final File directory;
+
+    /**
+     * Creates storage that uses default temporary-file directory.
+     */
+    public DiskSpillStorage() {
+        this(null);
+    }
+
+    /**
+     * @param directory is directory for spill files, or null for default
+     *                  temporary-file directory.
+     */
+    public DiskSpillStorage(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Writes given data into new file of this storage. Unlike spills, file is
+     * owned by caller, who deletes it after use.
+     *
+     * @param head is data written at the beginning of file.
+     * @param data is stream with the rest of data.
+     * @return file with written data.
+     */
+    File writeFile(byte[] head, InputStream data) throws IOException {
+        File file = createFile();
+        try (InternalOutputStream output = new InternalOutputStream(file)) {
+            output.write(head);
+            byte[] buffer = new byte[ASBufferingInFilter.BF_BUFFER_SIZE];
+            int read = data.read(buffer, 0, buffer.length);
+            while (read != -1) {
+                output.write(buffer, 0, read);
+                read = data.read(buffer, 0, buffer.length);
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Creates new empty file in directory of this storage. File is owned by
+     * caller, who deletes it after use.
+     *
+     * @return created file.
+     */
+    File createFile() throws IOException {
+        return File.createTempFile(SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX, this.directory);
+    }
+
+    @Override
+    public SpillOutputStream createOutput(long expectedSize) throws IOException {
+        File file = createFile();
+        try {
+            return new DiskSpillOutputStream(file);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    private static class DiskSpillOutputStream extends SpillOutputStream {
+
+        private final File file;
+        private final InternalOutputStream output;
+        private long size;
+
+        DiskSpillOutputStream(File file) throws IOException {
+            this.file = file;
+            this.output = new InternalOutputStream(file);
+        }
+
+        @Override
+        public long write(byte[] buffer, int offset, int size) throws IOException {
+            this.output.write(buffer, offset, size);
+            this.size += size;
+            return size;
+        }
+
+        @Override
+        public long getSize() {
+            return this.size;
+        }
+
+        @Override
+        protected SeekableInputStream createInputStream() throws IOException {
+            this.output.close();
+            return new InternalInputStream(this.file, 1, true);
+        }
+
+        @Override
+        protected void releaseStorage() throws IOException {
+            this.output.close();
+            this.file.delete();
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.tools.IntReference;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seekable stream over data that is still being received, e.g. document that
+ * is downloaded over slow link. Producer appends data with
+ * {@link #append(byte[], int, int)} and calls {@link #finish()} at the end of
+ * data. Reads of bytes that have not arrived yet either wait for them or fail
+ * immediately with {@link DataNotAvailableException}, depending on wait
+ * timeout given on creation. Substreams share data with this stream.
+ */
+public class GrowingInputStream extends SeekableInputStream {
+
+    /**
+     * Wait timeout value for streams that wait for data as long as required.
+     */
+    public static final long WAIT_FOREVER = -1;
+    /**
+     * Wait timeout value for streams that fail on reading of data that is not
+     * available.
+     */
+    public static final long FAIL_FAST = 0;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private final Data data;
+    private final long startOffset;
+    private final long size;
+    private long currentPosition;
+    private boolean isClosed = false;
+
+    /**
+     * Creates empty stream that waits for data as long as required.
+     */
+    public GrowingInputStream() {
+        this(WAIT_FOREVER);
+    }
+
+    /**
+     * Creates empty stream.
+     *
+     * @param waitTimeout is time in milliseconds to wait for data that has
+     *                    not arrived yet, {@link #FAIL_FAST} to fail
+     *                    immediately or {@link #WAIT_FOREVER} to wait without
+     *                    limit.
+     */
+    public GrowingInputStream(long waitTimeout) {
+        this.data = new Data(waitTimeout);
+        this.startOffset = 0;
+        this.size = nPos;
+        this.currentPosition = 0;
+    }
+
+    private GrowingInputStream(GrowingInputStream stream, long offset, long length) {
+        this.data = stream.data;
+        this.data.numOfUsers.increment();
+        this.startOffset = stream.startOffset + offset;
+        this.size = stream.size == nPos ? length : Math.max(0, Math.min(length, stream.size - offset));
+        this.currentPosition = 0;
+    }
+
+    /**
+     * Appends data to the end of stream and wakes up waiting readers.
+     *
+     * @param buffer is array with data.
+     * @param offset is offset of data in array.
+     * @param length is length of data.
+     */
+    public void append(byte[] buffer, int offset, int length) throws IOException {
+        this.data.append(buffer, offset, length);
+    }
+
+    /**
+     * Marks that all data is appended to stream.
+     */
+    public void finish() {
+        this.data.finish(null);
+    }
+
+    /**
+     * Marks that no more data will be appended because receiving failed.
+     * Pending and subsequent reads of missing data fail with given exception.
+     *
+     * @param cause is reason of failure.
+     */
+    public void abort(IOException cause) {
+        this.data.finish(cause);
+    }
+
+    /**
+     * Sets expected length of data, e.g. taken from linearization dictionary
+     * or from transport headers. It is reported as stream length until all
+     * data is appended, so stream length can be obtained without waiting.
+     *
+     * @param length is expected length in bytes.
+     */
+    public void setExpectedLength(long length) {
+        synchronized (this.data) {
+            this.data.expectedLength = length;
+        }
+    }
+
+    /**
+     * Waits until all data is appended to stream. Stream that fails fast
+     * throws {@link DataNotAvailableException} if data is not finished yet.
+     */
+    public void waitForEnd() throws IOException {
+        this.data.waitForEnd();
+    }
+
+    /**
+     * @return amount of bytes that are appended to stream.
+     */
+    public long getAvailableLength() {
+        synchronized (this.data) {
+            return this.data.length;
+        }
+    }
+
+    /**
+     * @return true if all data is appended to stream.
+     */
+    public boolean isFinished() {
+        synchronized (this.data) {
+            return this.data.finished;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed("Reading");
+        if (this.size != nPos && this.currentPosition >= this.size) {
+            return -1;
+        }
+        long absolute = this.startOffset + this.currentPosition;
+        if (this.data.waitFor(absolute, absolute + 1) <= absolute) {
+            return -1;
+        }
+        this.currentPosition++;
+        return this.data.getByte(absolute) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int size) throws IOException {
+        return read(buffer, 0, size);
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len) throws IOException {
+        checkClosed("Reading");
+        if (len == 0) {
+            return 0;
+        }
+        long toRead = len;
+        if (this.size != nPos) {
+            toRead = Math.min(toRead, this.size - this.currentPosition);
+        }
+        long absolute = this.startOffset + this.currentPosition;
+        long end = this.data.waitFor(absolute, absolute + toRead);
+        if (end <= absolute) {
+            return -1;
+        }
+        int read = (int) (end - absolute);
+        this.data.get(absolute, buffer, off, read);
+        this.currentPosition += read;
+        return read;
+    }
+
+    @Override
+    public int readAvailable(byte[] buffer, int size) throws IOException {
+        long available = getAvailableLength() - this.startOffset - this.currentPosition;
+        return read(buffer, 0, (int) Math.max(1, Math.min(size, available)));
+    }
+
+    @Override
+    public int skip(int size) throws IOException {
+        checkClosed("Skipping");
+        long absolute = this.startOffset + this.currentPosition;
+        long toSkip = size;
+        if (this.size != nPos) {
+            toSkip = Math.max(0, Math.min(toSkip, this.size - this.currentPosition));
+        }
+        int skipped = (int) Math.max(0, this.data.waitFor(absolute, absolute + toSkip) - absolute);
+        this.currentPosition += skipped;
+        return skipped;
+    }
+
+    @Override
+    public void closeResource() throws IOException {
+        if (!this.isClosed) {
+            this.isClosed = true;
+            this.data.numOfUsers.decrement();
+            if (this.data.numOfUsers.equals(0)) {
+                this.data.clear();
+            }
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        this.currentPosition = 0;
+    }
+
+    @Override
+    public void seek(long offset) throws IOException {
+        checkClosed("Seeking");
+        if (offset < 0 || this.size != nPos && offset > this.size) {
+            throw new IOException("Can't seek for offset " + offset + " in GrowingInputStream");
+        }
+        this.currentPosition = offset;
+    }
+
+    @Override
+    public long getOffset() throws IOException {
+        checkClosed("Offset obtaining");
+        return this.currentPosition;
+    }
+
+    /**
+     * Gets total length of stream. If not all data is appended, expected
+     * length is returned when it is known, otherwise this method waits for the
+     * end of data.
+     *
+     * @return length of stream in bytes.
+     */
+    @Override
+    public long getStreamLength() throws IOException {
+        if (this.size != nPos) {
+            return this.size;
+        }
+        return this.data.getTotalLength() - this.startOffset;
+    }
+
+    @Override
+    public int peek() throws IOException {
+        checkClosed("Peeking");
+        if (this.size != nPos && this.currentPosition >= this.size) {
+            return -1;
+        }
+        long absolute = this.startOffset + this.currentPosition;
+        if (this.data.waitFor(absolute, absolute + 1) <= absolute) {
+            return -1;
+        }
+        return this.data.getByte(absolute) & 0xFF;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        if (this.size != nPos) {
+            return this.currentPosition >= this.size;
+        }
+        long absolute = this.startOffset + this.currentPosition;
+        return this.data.waitFor(absolute, absolute + 1) <= absolute;
+    }
+
+    @Override
+    public ASInputStream getStream(long startOffset, long length) throws IOException {
+        checkClosed("Substream obtaining");
+        if (startOffset < 0 || this.size != nPos && startOffset > this.size) {
+            throw new IOException("Can't get substream at offset " + startOffset +
+                    " in GrowingInputStream");
+        }
+        return new GrowingInputStream(this, startOffset, length);
+    }
+
+    @Override
+    public SeekableInputStream getIndependentStream() throws IOException {
+        checkClosed("Substream obtaining");
+        return new GrowingInputStream(this, 0, this.size);
+    }
+
+    private void checkClosed(String streamUsage) throws IOException {
+        if (this.isClosed) {
+            throw new IOException(streamUsage + " can't be performed; stream is closed");
+        }
+    }
+
+    /**
+     * Data shared by stream and its substreams. All access is synchronized
+     * on this object, readers wait on it for new data.
+     */
+    private static class Data {
+        private final long waitTimeout;
+        private final IntReference numOfUsers = new IntReference(1);
+        private List<byte[]> chunks = new ArrayList<>();
+        private long length = 0;
+        private long expectedLength = -1;
+        private boolean finished = false;
+        private IOException failure;
+
+        private Data(long waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+
+        private synchronized void append(byte[] buffer, int offset, int count) throws IOException {
+            if (this.finished) {
+                throw new IOException("Can't append data to finished GrowingInputStream");
+            }
+            while (count > 0) {
+                int inChunk = (int) (this.length & (CHUNK_SIZE - 1));
+                if (inChunk == 0) {
+                    this.chunks.add(new byte[CHUNK_SIZE]);
+                }
+                int toCopy = Math.min(count, CHUNK_SIZE - inChunk);
+                System.arraycopy(buffer, offset, this.chunks.get(this.chunks.size() - 1), inChunk, toCopy);
+                this.length += toCopy;
+                offset += toCopy;
+                count -= toCopy;
+            }
+            notifyAll();
+        }
+
+        private synchronized void finish(IOException failure) {
+            this.finished = true;
+            this.failure = failure;
+            notifyAll();
+        }
+
+        private synchronized void clear() {
+            this.chunks = null;
+        }
+
+        /**
+         * Waits until data between given start and end is available or all
+         * data is appended. Streams that fail fast wait only for the first
+         * byte, so available part of data can be read.
+         *
+         * @return end of data that can be read, not greater than given end.
+         */
+        private synchronized long waitFor(long start, long end) throws IOException {
+            if (!this.finished && this.expectedLength >= 0) {
+                end = Math.min(end, Math.max(start, this.expectedLength));
+            }
+            long required = this.waitTimeout == FAIL_FAST ? Math.min(end, start + 1) : end;
+            long deadline = this.waitTimeout > 0 ? System.currentTimeMillis() + this.waitTimeout : 0;
+            while (this.length < required && !this.finished) {
+                waitForData(required, deadline);
+            }
+            if (this.length < required && this.failure != null) {
+                throw new IOException("Receiving of data failed", this.failure);
+            }
+            return Math.min(end, this.length);
+        }
+
+        private synchronized void waitForEnd() throws IOException {
+            long deadline = this.waitTimeout > 0 ? System.currentTimeMillis() + this.waitTimeout : 0;
+            while (!this.finished) {
+                waitForData(-1, deadline);
+            }
+            if (this.failure != null) {
+                throw new IOException("Receiving of data failed", this.failure);
+            }
+        }
+
+        private synchronized long getTotalLength() throws IOException {
+            long deadline = this.waitTimeout > 0 ? System.currentTimeMillis() + this.waitTimeout : 0;
+            while (!this.finished) {
+                if (this.expectedLength >= 0) {
+                    return this.expectedLength;
+                }
+                waitForData(-1, deadline);
+            }
+            return this.length;
+        }
+
+        private void waitForData(long end, long deadline) throws IOException {
+            if (this.waitTimeout == FAIL_FAST) {
+                throw new DataNotAvailableException(end);
+            }
+            long toWait = 0;
+            if (deadline != 0) {
+                toWait = deadline - System.currentTimeMillis();
+                if (toWait <= 0) {
+                    throw new DataNotAvailableException(end);
+                }
+            }
+            try {
+                wait(toWait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataNotAvailableException(end);
+            }
+        }
+
+        private synchronized byte getByte(long position) {
+            return this.chunks.get((int) (position >>> CHUNK_SHIFT))[(int) (position & (CHUNK_SIZE - 1))];
+        }
+
+        private synchronized void get(long position, byte[] buffer, int offset, int count) {
+            while (count > 0) {
+                int inChunk = (int) (position & (CHUNK_SIZE - 1));
+                int toCopy = Math.min(count, CHUNK_SIZE - inChunk);
+                System.arraycopy(this.chunks.get((int) (position >>> CHUNK_SHIFT)), inChunk,
+                        buffer, offset, toCopy);
+                position += toCopy;
+                offset += toCopy;
+                count -= toCopy;
+            }
+        }
+    }
+}
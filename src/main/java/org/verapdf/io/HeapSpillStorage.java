@@ -0,0 +1,109 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spill storage that keeps data in heap in chunks of 64 KB. First chunk grows
+ * gradually, so small spills do not occupy whole chunk.
+ */
+public class HeapSpillStorage implements SpillStorage {
+
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int INITIAL_SIZE = 1024;
+
+    @Override
+    public SpillOutputStream createOutput(long expectedSize) {
+        return new HeapSpillOutputStream(expectedSize);
+    }
+
+    private static class HeapSpillOutputStream extends SpillOutputStream {
+
+        private final List<byte[]> chunks = new ArrayList<>();
+        private byte[] current;
+        private int currentSize;
+        private long size;
+
+        HeapSpillOutputStream(long expectedSize) {
+            int initialSize = expectedSize > 0 && expectedSize < CHUNK_SIZE ?
+                    (int) expectedSize : INITIAL_SIZE;
+            this.current = new byte[expectedSize >= CHUNK_SIZE ? CHUNK_SIZE : initialSize];
+            this.chunks.add(this.current);
+        }
+
+        @Override
+        public long write(byte[] buffer, int offset, int size) {
+            int written = 0;
+            while (written < size) {
+                if (this.currentSize == this.current.length) {
+                    nextChunk();
+                }
+                int toCopy = Math.min(size - written, this.current.length - this.currentSize);
+                System.arraycopy(buffer, offset + written, this.current, this.currentSize, toCopy);
+                this.currentSize += toCopy;
+                written += toCopy;
+            }
+            this.size += size;
+            return size;
+        }
+
+        @Override
+        public long getSize() {
+            return this.size;
+        }
+
+        @Override
+        protected SeekableInputStream createInputStream() {
+            ByteBuffer[] windows = new ByteBuffer[this.chunks.size()];
+            for (int i = 0; i < windows.length - 1; ++i) {
+                windows[i] = ByteBuffer.wrap(this.chunks.get(i));
+            }
+            windows[windows.length - 1] = ByteBuffer.wrap(this.current, 0, this.currentSize);
+            this.chunks.clear();
+            this.current = null;
+            return new ByteBufferInputStream(windows, CHUNK_SHIFT);
+        }
+
+        @Override
+        protected void releaseStorage() {
+            this.chunks.clear();
+            this.current = null;
+        }
+
+        private void nextChunk() {
+            if (this.current.length < CHUNK_SIZE) {
+                // first chunk is grown until it reaches full chunk size
+                byte[] grown = new byte[Math.min(this.current.length << 1, CHUNK_SIZE)];
+                System.arraycopy(this.current, 0, grown, 0, this.currentSize);
+                this.current = grown;
+                this.chunks.set(0, grown);
+            } else {
+                this.current = new byte[CHUNK_SIZE];
+                this.currentSize = 0;
+                this.chunks.add(this.current);
+            }
+        }
+    }
+}
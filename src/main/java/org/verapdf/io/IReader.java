@@ -59,4 +59,22 @@ public interface IReader extends Closeable {
 	long getLastTrailerOffset();
 
 	int getGreatestKeyNumberFromXref();
+
+	/**
+	 * @return false if reader was opened progressively and only xref section
+	 * of the first page has been read so far.
+	 */
+	boolean isXRefComplete();
+
+	/**
+	 * Reads xref sections that were skipped on progressive open. Does nothing
+	 * if all sections are already read.
+	 */
+	void completeXRef() throws IOException;
+
+	/**
+	 * @return linearization dictionary if reader was opened progressively and
+	 * document is linearized, null otherwise.
+	 */
+	COSObject getLinearizationDictionary();
 }
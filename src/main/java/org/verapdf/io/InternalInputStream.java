@@ -20,9 +20,9 @@
  */
 package org.verapdf.io;
 
-import org.verapdf.as.filters.io.ASBufferingInFilter;
 import org.verapdf.as.io.ASFileInStream;
 import org.verapdf.as.io.ASInputStream;
+import org.verapdf.as.io.PositionalFileReader;
 import org.verapdf.tools.IntReference;
 
 import java.io.*;
@@ -39,15 +39,30 @@ public class InternalInputStream extends SeekableInputStream {
 	private IntReference numOfFileUsers;
 	private String fileName;
 	private RandomAccessFile source;
+	private PositionalFileReader substreamsReader;
 
 	public InternalInputStream(final File file) throws FileNotFoundException {
 		this(file, 1);
 	}
 
 	public InternalInputStream(final File file, int numOfFileUsers) throws FileNotFoundException {
-		this.isTempFile = false;
+		this(file, numOfFileUsers, false);
+	}
+
+	/**
+	 * Constructor from file. If file is temporary, it is deleted after all its
+	 * users are closed.
+	 *
+	 * @param file is file with data.
+	 * @param numOfFileUsers is initial number of file users.
+	 * @param isTempFile is true if file should be deleted on close.
+	 */
+	public InternalInputStream(final File file, int numOfFileUsers, boolean isTempFile)
+			throws FileNotFoundException {
+		this.isTempFile = isTempFile;
 		this.fileName = file.getAbsolutePath();
 		this.source = new RandomAccessFile(file, READ_ONLY_MODE);
+		this.substreamsReader = new PositionalFileReader(this.fileName);
 		this.numOfFileUsers = new IntReference(numOfFileUsers);
 	}
 
@@ -59,19 +74,24 @@ public class InternalInputStream extends SeekableInputStream {
 		this.isTempFile = false;
 		this.fileName = fileName;
 		this.source = new RandomAccessFile(fileName, READ_ONLY_MODE);
+		this.substreamsReader = new PositionalFileReader(fileName);
 		this.numOfFileUsers = new IntReference(numOfFileUsers);
 	}
 
+	/**
+	 * Constructor copies passed stream into temporary file of
+	 * {@link DiskSpillStorage}. File is deleted when stream is closed.
+	 *
+	 * @param fileStream is stream with data.
+	 */
 	public InternalInputStream(final InputStream fileStream) throws IOException {
-		this.isTempFile = true;
-		File tempFile = createTempFile(fileStream);
-		this.fileName = tempFile.getAbsolutePath();
-		this.source = new RandomAccessFile(tempFile, READ_ONLY_MODE);
+		this(new byte[0], fileStream);
 	}
 
 	/**
-	 * Constructor writes into temp file passed buffer, then passed stream.
-	 * After that, InternalInputStream from file is created.
+	 * Constructor writes into temporary file of {@link DiskSpillStorage}
+	 * passed buffer, then passed stream. After that, InternalInputStream from
+	 * file is created. File is deleted when stream is closed.
 	 *
 	 * @param alreadyRead is byte array of data that was already read from the
 	 *                       beginning of stream.
@@ -79,11 +99,7 @@ public class InternalInputStream extends SeekableInputStream {
      */
 	public InternalInputStream(byte[] alreadyRead, final InputStream stream)
 			throws IOException {
-		this.isTempFile = true;
-		File temp = createTempFile(alreadyRead, stream);
-		this.fileName = temp.getAbsolutePath();
-		this.source = new RandomAccessFile(temp, READ_ONLY_MODE);
-		this.numOfFileUsers = new IntReference(1);
+		this(new DiskSpillStorage().writeFile(alreadyRead, stream), 1, true);
 	}
 
 	@Override
@@ -98,6 +114,12 @@ public class InternalInputStream extends SeekableInputStream {
 		return this.source.read(buffer, 0, size);
 	}
 
+	@Override
+	public int read(byte[] buffer, int off, int len) throws IOException {
+		checkClosed("Reading");
+		return this.source.read(buffer, off, len);
+	}
+
     @Override
     public int skip(int size) throws IOException {
 		checkClosed("Skipping");
@@ -111,6 +133,7 @@ public class InternalInputStream extends SeekableInputStream {
 			this.numOfFileUsers.decrement();
 			if (this.numOfFileUsers.equals(0)) {
 				this.source.close();
+				this.substreamsReader.close();
 				if (isTempFile) {
 					File tmp = new File(fileName);
 					tmp.delete();
@@ -124,6 +147,13 @@ public class InternalInputStream extends SeekableInputStream {
 		this.source.seek(0);
 	}
 
+	/**
+	 * @return true if underlying file is temporary and is deleted on close.
+	 */
+	public boolean isTempFile() {
+		return this.isTempFile;
+	}
+
 	public boolean isCloneable() {
 		return false;
 	}
@@ -165,62 +195,18 @@ public class InternalInputStream extends SeekableInputStream {
 		return this.source;
 	}
 
-	private File createTempFile(InputStream input) throws IOException {
-		FileOutputStream output = null;
-		try {
-			File tmpFile = File.createTempFile("tmp_pdf_file", ".pdf");
-			tmpFile.deleteOnExit();
-			output = new FileOutputStream(tmpFile);
-
-			//copy stream content
-			byte[] buffer = new byte[4096];
-			int n;
-			while ((n = input.read(buffer, 0, ASBufferingInFilter.BF_BUFFER_SIZE)) != -1) {
-				output.write(buffer, 0, n);
-			}
-
-			return tmpFile;
-		}
-		finally {
-			if (output != null) {
-				output.close();
-			}
-		}
-	}
-
-	private File createTempFile(byte[] alreadyRead, InputStream input) throws IOException {
-		FileOutputStream output = null;
-		File tmpFile = File.createTempFile("tmp_pdf_file", ".pdf");
-		tmpFile.deleteOnExit();
-		try {
-			output = new FileOutputStream(tmpFile);
-			output.write(alreadyRead);
-
-			//copy stream content
-			byte[] buffer = new byte[ASBufferingInFilter.BF_BUFFER_SIZE];
-			int n;
-			while ((n = input.read(buffer, 0, ASBufferingInFilter.BF_BUFFER_SIZE)) != -1) {
-				output.write(buffer, 0, n);
-			}
-
-			return tmpFile;
-		} catch (IOException e) {
-			tmpFile.delete();
-			throw e;
-		}
-		finally {
-			if (output != null) {
-				output.close();
-			}
-		}
-	}
-
 	@Override
 	public ASInputStream getStream(long startOffset, long length) {
-		return new ASFileInStream(this.source,
+		return new ASFileInStream(this.source, this.substreamsReader,
 				startOffset, length, numOfFileUsers, this.fileName, this.isTempFile);
 	}
 
+	@Override
+	public SeekableInputStream getIndependentStream() throws IOException {
+		checkClosed("Substream obtaining");
+		return new InternalInputStream(this.fileName);
+	}
+
 	private void checkClosed(String streamUsage) throws IOException {
 		if (isClosed) {
 			throw new IOException(streamUsage + " can't be performed; stream is closed");
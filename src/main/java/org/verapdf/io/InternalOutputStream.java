@@ -25,25 +25,42 @@ import org.verapdf.as.io.ASInputStream;
 import org.verapdf.as.io.ASOutputStream;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
+ * Output stream that writes data into file or into other output stream. All
+ * data is gathered in write buffer, so small writes are coalesced into large
+ * writes to underlying channel. Buffer is flushed on seek and close.
+ *
  * @author Timur Kamalov
  */
 public class InternalOutputStream implements ASOutputStream, Closeable {
 
 	private final static String READ_WRITE_MODE = "rw";
+	public static final int WRITE_BUFFER_SIZE = 65536;
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private OutputStream sink;
+	private File fileObject;
+	private final ByteBuffer buffer;
+	private long bufferStart;
+	private boolean isClosed = false;
 
-	private RandomAccessFile os;
-	private File file;
 	/**
 	 * Creates temp file and opens output stream into it. File path can be
 	 * obtained after.
 	 *
 	 * @return new InternalOutputStream.
 	 * @throws IOException
+	 * @deprecated temporary data should be written into {@link SpillStorage}.
+	 * File is created by {@link DiskSpillStorage} and is deleted only on JVM
+	 * exit, unless caller deletes it.
 	 */
+	@Deprecated
 	public static InternalOutputStream getInternalOutputStream() throws IOException {
-		File tempFile = File.createTempFile("tmp_pdf_file", ".pdf");
+		File tempFile = new DiskSpillStorage().createFile();
 		tempFile.deleteOnExit();
 		return new InternalOutputStream(tempFile);
 	}
@@ -53,26 +70,45 @@ public class InternalOutputStream implements ASOutputStream, Closeable {
 	}
 
 	public InternalOutputStream(final File file) throws FileNotFoundException {
-		this.os = new RandomAccessFile(file, READ_WRITE_MODE);
-		this.file = file;
+		this.file = new RandomAccessFile(file, READ_WRITE_MODE);
+		this.channel = this.file.getChannel();
+		this.fileObject = file;
+		this.buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+		this.bufferStart = 0;
+	}
+
+	/**
+	 * Constructor from output stream. Data is written sequentially, so seek is
+	 * possible only to current offset, which is counted from the moment of
+	 * construction. Closing of this stream flushes data, but does not close
+	 * passed stream.
+	 *
+	 * @param sink is stream into which data is written.
+	 */
+	public InternalOutputStream(final OutputStream sink) {
+		this.sink = sink;
+		this.buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+		this.bufferStart = 0;
 	}
 
 	public long write(final byte[] buffer) throws IOException {
-		long oldPos = this.os.getFilePointer();
-		this.os.write(buffer);
-		return getOffset() - oldPos;
+		return write(buffer, 0, buffer.length);
 	}
 
 	public long write(final byte[] buffer, final int size) throws IOException {
-		long oldPos = this.os.getFilePointer();
-		this.os.write(buffer, 0, size);
-		return getOffset() - oldPos;
+		return write(buffer, 0, size);
 	}
 
 	public long write(final byte[] buffer, final int offset, final int size) throws IOException {
-		long oldPos = this.os.getFilePointer();
-		this.os.write(buffer, offset, size);
-		return getOffset() - oldPos;
+		if (size > this.buffer.remaining()) {
+			writeBuffer();
+			if (size > this.buffer.capacity()) {
+				writeDirectly(ByteBuffer.wrap(buffer, offset, size));
+				return size;
+			}
+		}
+		this.buffer.put(buffer, offset, size);
+		return size;
 	}
 
 	public long write(ASInputStream stream) throws IOException {
@@ -87,60 +123,139 @@ public class InternalOutputStream implements ASOutputStream, Closeable {
 		return res;
 	}
 
+	/**
+	 * Writes all buffered data into underlying file or stream and flushes
+	 * underlying stream.
+	 */
+	public void flush() throws IOException {
+		writeBuffer();
+		if (this.sink != null) {
+			this.sink.flush();
+		}
+	}
+
 	public void close() throws IOException {
-		this.os.close();
+		if (!this.isClosed) {
+			this.isClosed = true;
+			flush();
+			if (this.file != null) {
+				this.file.close();
+			}
+		}
 	}
 
 	public void seekEnd() throws IOException {
-		this.os.seek(this.os.length());
+		if (this.channel == null) {
+			return;
+		}
+		writeBuffer();
+		this.bufferStart = this.channel.size();
 	}
 
 	public long getOffset() throws IOException {
-		return this.os.getFilePointer();
+		return this.bufferStart + this.buffer.position();
 	}
 
 	public InternalOutputStream seek(long offset) throws IOException {
-		this.os.seek(offset);
+		if (offset == getOffset()) {
+			return this;
+		}
+		if (this.channel == null) {
+			throw new IOException("Can't seek for offset " + offset +
+					" in output stream that is not backed by file");
+		}
+		writeBuffer();
+		this.bufferStart = offset;
 		return this;
 	}
 
 	public InternalOutputStream write(final char value) throws IOException {
-		this.os.writeChar(value);
+		ensureRemaining(2);
+		this.buffer.putChar(value);
 		return this;
 	}
 
 	public InternalOutputStream write(final byte value) throws IOException {
-		this.os.writeByte(value);
+		ensureRemaining(1);
+		this.buffer.put(value);
 		return this;
 	}
 
 	public InternalOutputStream write(final boolean value) throws IOException {
-		this.os.writeBoolean(value);
+		ensureRemaining(1);
+		this.buffer.put((byte) (value ? 1 : 0));
 		return this;
 	}
 
 	public InternalOutputStream write(final int value) throws IOException {
-		this.os.writeInt(value);
+		ensureRemaining(4);
+		this.buffer.putInt(value);
 		return this;
 	}
 
 	public InternalOutputStream write(final long value) throws IOException {
-		this.os.writeLong(value);
+		ensureRemaining(8);
+		this.buffer.putLong(value);
 		return this;
 	}
 
 	public InternalOutputStream write(final double value) throws IOException {
-		this.os.writeDouble(value);
+		ensureRemaining(8);
+		this.buffer.putDouble(value);
 		return this;
 	}
 
+	/**
+	 * Writes low-order byte of every character of given string.
+	 *
+	 * @param value is string to write.
+	 */
 	public InternalOutputStream write(final String value) throws IOException {
-		this.os.writeBytes(value);
+		int length = value.length();
+		int written = 0;
+		while (written < length) {
+			if (!this.buffer.hasRemaining()) {
+				writeBuffer();
+			}
+			int chunk = Math.min(length - written, this.buffer.remaining());
+			for (int i = 0; i < chunk; ++i) {
+				this.buffer.put((byte) value.charAt(written + i));
+			}
+			written += chunk;
+		}
 		return this;
 	}
 
 	public File getFile() {
-		return this.file;
+		return this.fileObject;
+	}
+
+	private void writeBuffer() throws IOException {
+		if (this.buffer.position() > 0) {
+			this.buffer.flip();
+			writeDirectly(this.buffer);
+			this.buffer.clear();
+		}
+	}
+
+	private void ensureRemaining(int size) throws IOException {
+		if (this.buffer.remaining() < size) {
+			writeBuffer();
+		}
+	}
+
+	private void writeDirectly(ByteBuffer data) throws IOException {
+		int size = data.remaining();
+		if (this.sink != null) {
+			this.sink.write(data.array(), data.arrayOffset() + data.position(), size);
+			data.position(data.limit());
+		} else {
+			long position = this.bufferStart;
+			while (data.hasRemaining()) {
+				position += this.channel.write(data, position);
+			}
+		}
+		this.bufferStart += size;
 	}
 
 	private static File getFileFromString(String fileName) throws FileNotFoundException {
@@ -0,0 +1,236 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.parser.DecodedObjectStreamParser;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LRU cache of decoded object streams of one document. Size of cache is
+ * limited by total length of decoded data of cached streams. When limit is
+ * exceeded, least recently used streams are closed and removed from cache,
+ * they are decoded again on next access. The most recently used stream is
+ * never evicted, so stream that is longer than the limit can still be used.
+ * Streams which objects are already parsed in one pass are charged by the
+ * same length, as it estimates memory used by their parsed objects.
+ */
+public class ObjectStreamsCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ObjectStreamsCache.class.getCanonicalName());
+
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    private static long defaultMaxSize = DEFAULT_MAX_SIZE;
+
+    private final Map<Long, DecodedObjectStreamParser> streams;
+    private long maxSize;
+    private long size;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    // streams decoded again by parsers that are no longer cached
+    private long removedRedecodes;
+
+    /**
+     * Creates cache with default size limit.
+     */
+    public ObjectStreamsCache() {
+        this(getDefaultMaxSize());
+    }
+
+    /**
+     * Creates cache with given size limit.
+     *
+     * @param maxSize is maximal total length of decoded data of cached streams
+     *                in bytes.
+     */
+    public ObjectStreamsCache(long maxSize) {
+        this.streams = new LinkedHashMap<>(16, 0.75f, true);
+        this.maxSize = Math.max(0, maxSize);
+    }
+
+    /**
+     * Sets size limit of caches created after this call.
+     *
+     * @param maxSize is maximal total length of decoded data of cached streams
+     *                in bytes.
+     */
+    public static synchronized void setDefaultMaxSize(long maxSize) {
+        if (maxSize >= 0) {
+            defaultMaxSize = maxSize;
+        }
+    }
+
+    /**
+     * @return size limit of newly created caches.
+     */
+    public static synchronized long getDefaultMaxSize() {
+        return defaultMaxSize;
+    }
+
+    /**
+     * Gets decoded object stream from cache.
+     *
+     * @param streamNumber is number of object stream.
+     * @return parser of decoded stream or null if stream is not cached.
+     */
+    public DecodedObjectStreamParser get(long streamNumber) {
+        DecodedObjectStreamParser parser = this.streams.get(Long.valueOf(streamNumber));
+        if (parser != null) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        return parser;
+    }
+
+    /**
+     * Puts decoded object stream into cache and evicts least recently used
+     * streams if size limit is exceeded.
+     *
+     * @param streamNumber is number of object stream.
+     * @param parser       is parser of decoded stream.
+     */
+    public void put(long streamNumber, DecodedObjectStreamParser parser) {
+        DecodedObjectStreamParser previous = this.streams.put(Long.valueOf(streamNumber), parser);
+        if (previous != null && previous != parser) {
+            this.size -= previous.getDecodedLength();
+            this.removedRedecodes += previous.getRedecodes();
+            closeQuietly(previous);
+        }
+        this.size += parser.getDecodedLength();
+        evict();
+    }
+
+    /**
+     * Sets size limit of this cache and evicts streams if needed.
+     *
+     * @param maxSize is maximal total length of decoded data of cached streams
+     *                in bytes.
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        evict();
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return total length of decoded data of cached streams.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of cached streams.
+     */
+    public int getStreamsNumber() {
+        return this.streams.size();
+    }
+
+    /**
+     * @return number of requests that were served from cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of requests for streams that were not cached. Streams
+     * that were decoded again by cached parsers are not counted, see
+     * {@link #getRedecodes()}.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return number of times cached streams were decoded again, because
+     * object was requested after decoded data of stream was released. Total
+     * number of decodings is sum of misses and redecodes.
+     */
+    public long getRedecodes() {
+        long result = this.removedRedecodes;
+        for (DecodedObjectStreamParser parser : this.streams.values()) {
+            result += parser.getRedecodes();
+        }
+        return result;
+    }
+
+    /**
+     * @return number of streams removed from cache because of size limit.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Closes all cached streams and removes them from cache.
+     */
+    public void clear() throws IOException {
+        IOException exception = null;
+        for (DecodedObjectStreamParser parser : this.streams.values()) {
+            this.removedRedecodes += parser.getRedecodes();
+            try {
+                parser.closeInputStream();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        this.streams.clear();
+        this.size = 0;
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private void evict() {
+        Iterator<DecodedObjectStreamParser> iterator = this.streams.values().iterator();
+        int left = this.streams.size();
+        while (this.size > this.maxSize && left > 1) {
+            DecodedObjectStreamParser parser = iterator.next();
+            iterator.remove();
+            left--;
+            this.size -= parser.getDecodedLength();
+            this.removedRedecodes += parser.getRedecodes();
+            this.evictions++;
+            closeQuietly(parser);
+        }
+    }
+
+    private static void closeQuietly(DecodedObjectStreamParser parser) {
+        try {
+            parser.closeInputStream();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can't close decoded object stream", e);
+        }
+    }
+}
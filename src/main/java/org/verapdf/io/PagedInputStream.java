@@ -0,0 +1,310 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.as.io.ASInputStream;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Seekable stream that caches data of underlying seekable stream in fixed-size
+ * pages. Recently used pages are kept in LRU cache, so peek, unread and short
+ * seeks are performed without access to underlying stream. Underlying stream
+ * is read only on page miss.
+ */
+public class PagedInputStream extends SeekableInputStream {
+
+    public static final int DEFAULT_PAGE_SIZE = 65536;
+    public static final int DEFAULT_PAGES_NUMBER = 16;
+
+    private static int defaultPagesNumber = DEFAULT_PAGES_NUMBER;
+
+    private final SeekableInputStream source;
+    private final int pageSize;
+    private final long length;
+    private final PageCache pages;
+
+    private byte[] currentPage;
+    private long currentPageIndex = -1;
+    private int currentPageLength;
+    private long currentPosition;
+
+    private long cacheHits;
+    private long cacheMisses;
+    private boolean isClosed = false;
+
+    /**
+     * Constructor from seekable stream with default page size and number of
+     * pages.
+     *
+     * @param source is stream which data will be cached.
+     */
+    public PagedInputStream(SeekableInputStream source) throws IOException {
+        this(source, DEFAULT_PAGE_SIZE, getDefaultPagesNumber());
+    }
+
+    /**
+     * Constructor from seekable stream.
+     *
+     * @param source      is stream which data will be cached.
+     * @param pageSize    is size of one cached page in bytes.
+     * @param pagesNumber is maximal number of pages kept in cache.
+     */
+    public PagedInputStream(SeekableInputStream source, int pageSize,
+                            int pagesNumber) throws IOException {
+        if (pageSize <= 0 || pagesNumber <= 0) {
+            throw new IOException("Page size and number of pages should be positive");
+        }
+        this.source = source;
+        this.pageSize = pageSize;
+        this.length = source.getStreamLength();
+        this.pages = new PageCache(pagesNumber);
+        this.currentPosition = 0;
+    }
+
+    /**
+     * Sets number of pages used by streams created with default settings,
+     * e. g. for documents opened in {@link FileAccessMode#CACHED} mode.
+     *
+     * @param pagesNumber is maximal number of pages kept in cache.
+     */
+    public static synchronized void setDefaultPagesNumber(int pagesNumber) {
+        if (pagesNumber > 0) {
+            defaultPagesNumber = pagesNumber;
+        }
+    }
+
+    /**
+     * @return number of pages used by streams created with default settings.
+     */
+    public static synchronized int getDefaultPagesNumber() {
+        return defaultPagesNumber;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed("Reading");
+        if (this.currentPosition >= this.length) {
+            return -1;
+        }
+        int res = getPage(this.currentPosition)[(int) (this.currentPosition % this.pageSize)] & 0xFF;
+        this.currentPosition++;
+        return res;
+    }
+
+    @Override
+    public int read(byte[] buffer, int size) throws IOException {
+        return read(buffer, 0, size);
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len) throws IOException {
+        checkClosed("Reading");
+        if (len == 0) {
+            return 0;
+        }
+        if (this.currentPosition >= this.length) {
+            return -1;
+        }
+        int toRead = (int) Math.min(len, this.length - this.currentPosition);
+        int read = 0;
+        while (read < toRead) {
+            byte[] page = getPage(this.currentPosition);
+            int inPage = (int) (this.currentPosition % this.pageSize);
+            int chunk = Math.min(toRead - read, this.currentPageLength - inPage);
+            System.arraycopy(page, inPage, buffer, off + read, chunk);
+            read += chunk;
+            this.currentPosition += chunk;
+        }
+        return read;
+    }
+
+    @Override
+    public int skip(int size) throws IOException {
+        checkClosed("Skipping");
+        int available = (int) Math.max(0, Math.min(size, this.length - this.currentPosition));
+        this.currentPosition += available;
+        return available;
+    }
+
+    @Override
+    public int peek() throws IOException {
+        checkClosed("Peeking");
+        if (this.currentPosition >= this.length) {
+            return -1;
+        }
+        return getPage(this.currentPosition)[(int) (this.currentPosition % this.pageSize)] & 0xFF;
+    }
+
+    @Override
+    public void seek(long offset) throws IOException {
+        checkClosed("Seeking");
+        if (offset < 0) {
+            throw new IOException("Can't seek for offset " + offset + " in PagedInputStream");
+        }
+        this.currentPosition = offset;
+    }
+
+    @Override
+    public long getOffset() throws IOException {
+        checkClosed("Offset obtaining");
+        return this.currentPosition;
+    }
+
+    @Override
+    public long getStreamLength() throws IOException {
+        return this.length;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        return this.currentPosition >= this.length;
+    }
+
+    @Override
+    public void unread() throws IOException {
+        this.seek(this.currentPosition - 1);
+    }
+
+    @Override
+    public void unread(int count) throws IOException {
+        this.seek(this.currentPosition - count);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        this.currentPosition = 0;
+    }
+
+    @Override
+    public ASInputStream getStream(long startOffset, long length) throws IOException {
+        checkClosed("Substream obtaining");
+        return this.source.getStream(startOffset, length);
+    }
+
+    @Override
+    public SeekableInputStream getIndependentStream() throws IOException {
+        checkClosed("Substream obtaining");
+        return this.source.getIndependentStream();
+    }
+
+    @Override
+    public void closeResource() throws IOException {
+        if (this.isClosed) {
+            return;
+        }
+        this.isClosed = true;
+        this.pages.clear();
+        this.currentPage = null;
+        this.currentPageIndex = -1;
+        this.source.close();
+    }
+
+    /**
+     * @return number of page lookups that were served from cached pages
+     * without reading underlying stream. Accesses to the page that is already
+     * current are not counted.
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return number of page lookups that required reading the page from
+     * underlying stream.
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * @return size of one cached page in bytes.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    private void checkClosed(String streamUsage) throws IOException {
+        if (this.isClosed) {
+            throw new IOException(streamUsage + " can't be performed; stream is closed");
+        }
+    }
+
+    private byte[] getPage(long position) throws IOException {
+        long pageIndex = position / this.pageSize;
+        if (pageIndex == this.currentPageIndex) {
+            return this.currentPage;
+        }
+        byte[] page = this.pages.get(Long.valueOf(pageIndex));
+        if (page != null) {
+            this.cacheHits++;
+        } else {
+            this.cacheMisses++;
+            page = this.pages.evicted != null ? this.pages.evicted : new byte[this.pageSize];
+            this.pages.evicted = null;
+            readPage(page, pageIndex);
+            this.pages.put(Long.valueOf(pageIndex), page);
+        }
+        this.currentPage = page;
+        this.currentPageIndex = pageIndex;
+        this.currentPageLength = (int) Math.min(this.pageSize, this.length - pageIndex * this.pageSize);
+        return page;
+    }
+
+    private void readPage(byte[] page, long pageIndex) throws IOException {
+        long pageOffset = pageIndex * this.pageSize;
+        int pageLength = (int) Math.min(this.pageSize, this.length - pageOffset);
+        this.source.seek(pageOffset);
+        int read = 0;
+        while (read < pageLength) {
+            int n = this.source.read(page, read, pageLength - read);
+            if (n <= 0) {
+                throw new IOException("Can't read page at offset " + pageOffset +
+                        ": unexpected end of stream");
+            }
+            read += n;
+        }
+    }
+
+    private static class PageCache extends LinkedHashMap<Long, byte[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxPages;
+        private byte[] evicted;
+
+        PageCache(int maxPages) {
+            super(16, 0.75f, true);
+            this.maxPages = maxPages;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            if (size() > this.maxPages) {
+                this.evicted = eldest.getValue();
+                return true;
+            }
+            return false;
+        }
+    }
+}
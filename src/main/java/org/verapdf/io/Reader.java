@@ -35,9 +35,7 @@ import org.verapdf.tools.resource.FileResourceHandler;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -50,22 +48,83 @@ public class Reader extends XRefReader {
 
 	private PDFParser parser;
 	private COSHeader header;
-	private Map<Long, DecodedObjectStreamParser> objectStreams;
+	private ObjectStreamsCache objectStreams;
+	private long[] startXRefs;
+	private long[] trailerOffsets;
+	private COSXRefInfo firstPageSection;
+	private COSObject linearizationDictionary;
+	private boolean xrefComplete = true;
+	private boolean xrefReconstructed = false;
 
 	public Reader(final COSDocument document, final String fileName) throws IOException {
 		super();
 		this.parser = new PDFParser(document, fileName);
-		this.objectStreams = new HashMap<>();
+		this.objectStreams = new ObjectStreamsCache();
 		init();
 	}
 
 	public Reader(final COSDocument document, final InputStream fileStream) throws IOException {
 		super();
 		this.parser = new PDFParser(document, fileStream);
-		this.objectStreams = new HashMap<>();
+		this.objectStreams = new ObjectStreamsCache();
 		init();
 	}
 
+	public Reader(final COSDocument document, final SeekableInputStream source) throws IOException {
+		super();
+		this.parser = new PDFParser(document, source);
+		this.objectStreams = new ObjectStreamsCache();
+		init();
+	}
+
+	/**
+	 * Constructor from seekable stream. In progressive mode only xref section
+	 * of the first page of linearized document is read on creation, so
+	 * catalog and the first page can be obtained as soon as the first page
+	 * part of source is available, e.g. from {@link GrowingInputStream}. The
+	 * rest of xref is read when object that is not present in the first page
+	 * section is requested, or on {@link #completeXRef()}. Documents that are
+	 * not linearized are read completely on creation.
+	 *
+	 * @param document    is document to read.
+	 * @param source      is source of document.
+	 * @param progressive is true if progressive mode should be used.
+	 */
+	public Reader(final COSDocument document, final SeekableInputStream source,
+				  final boolean progressive) throws IOException {
+		super();
+		this.parser = new PDFParser(document, source);
+		this.objectStreams = new ObjectStreamsCache();
+		if (progressive) {
+			initProgressive();
+		} else {
+			init();
+		}
+	}
+
+	/**
+	 * Constructor from shared file source. If xref index of this file was
+	 * already obtained by other reader, xref is not parsed again.
+	 *
+	 * @param document is document to read.
+	 * @param source   is shared source of file.
+	 */
+	public Reader(final COSDocument document, final SharedFileSource source) throws IOException {
+		super();
+		this.parser = new PDFParser(document, source.getStream());
+		this.objectStreams = new ObjectStreamsCache();
+		XRefIndex index = source.getXRefIndex();
+		if (index != null) {
+			init(index);
+		} else {
+			init();
+			// reconstructed xref can't be restored from index
+			if (!this.xrefReconstructed) {
+				source.setXRefIndex(createXRefIndex());
+			}
+		}
+	}
+
 	//PUBLIC METHODS
 	@Override
 	public COSHeader getHeader() {
@@ -74,6 +133,9 @@ public class Reader extends XRefReader {
 
 	@Override
 	public COSObject getObject(final COSKey key) throws IOException {
+		if (!super.containsKey(key) && !this.xrefComplete) {
+			completeXRef();
+		}
 		if (!super.containsKey(key)) {
 			LOGGER.log(Level.FINE, "Trying to get object " + key.getNumber() + " " +
 					key.getGeneration() + " that is not present in the document");
@@ -90,10 +152,11 @@ public class Reader extends XRefReader {
 			result.setObjectKey(key);
 			return result;
 		}
-		//TODO : set object key
-		DecodedObjectStreamParser parser = objectStreams.get(Long.valueOf(-offset));
+		DecodedObjectStreamParser parser = objectStreams.get(-offset);
 		if(parser != null) {
-			return parser.getObject(key.getNumber());
+			COSObject result = parser.getObject(key.getNumber(), getOffsets().getObjectStreamIndex(key));
+			result.setObjectKey(key);
+			return result;
 		}
 		COSKey newKey = new COSKey(- (int)offset, 0);
 		COSObject object = getObject(newKey);
@@ -107,8 +170,10 @@ public class Reader extends XRefReader {
 				objectStream.getData(COSStream.FilterFlags.DECODE),
 				objectStream, new COSKey((int) -offset, 0),
 				this.parser.getDocument());
-		objectStreams.put(Long.valueOf(-offset), parser);
-		return parser.getObject(key.getNumber());
+		objectStreams.put(-offset, parser);
+		COSObject result = parser.getObject(key.getNumber(), getOffsets().getObjectStreamIndex(key));
+		result.setObjectKey(key);
+		return result;
 	}
 
 	@Override
@@ -135,14 +200,151 @@ public class Reader extends XRefReader {
 		return res;
 	}
 
+	@Override
+	public boolean isXRefComplete() {
+		return this.xrefComplete;
+	}
+
+	@Override
+	public void completeXRef() throws IOException {
+		if (this.xrefComplete) {
+			return;
+		}
+		SeekableInputStream source = getPDFSource();
+		if (source instanceof GrowingInputStream) {
+			// document could be updated after linearization, so xref is read
+			// from the end of the whole source
+			((GrowingInputStream) source).waitForEnd();
+		}
+		List<COSXRefInfo> infos = new ArrayList<>();
+		try {
+			this.parser.getXRefInfo(infos);
+		} catch (DataNotAvailableException e) {
+			throw e;
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Can't read xref from the end of document, using xref of the first page", e);
+			infos.clear();
+			Long prev = this.firstPageSection.getTrailer().getPrev();
+			if (prev != null && prev.longValue() != 0) {
+				this.parser.getPreviousXRefInfo(infos, prev.longValue());
+			}
+			infos.add(this.firstPageSection);
+		}
+		setXRefSections(infos);
+		this.xrefComplete = true;
+	}
+
+	/**
+	 * @return true if xref of document could not be read and was reconstructed
+	 * by scanning of the whole document.
+	 */
+	public boolean isXRefReconstructed() {
+		return this.xrefReconstructed;
+	}
+
+	/**
+	 * @return cache of decoded object streams of this document, which can be
+	 * used to change its size limit and to obtain its statistics.
+	 */
+	public ObjectStreamsCache getObjectStreamsCache() {
+		return this.objectStreams;
+	}
+
+	@Override
+	public COSObject getLinearizationDictionary() {
+		return this.linearizationDictionary;
+	}
+
 	// PRIVATE METHODS
 	private void init() throws IOException {
 		this.header = this.parser.getHeader();
 
 		List<COSXRefInfo> infos = new ArrayList<>();
-		this.parser.getXRefInfo(infos);
+		try {
+			this.parser.getXRefInfo(infos);
+		} catch (DataNotAvailableException e) {
+			throw e;
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Can't read xref of document, trying to reconstruct it", e);
+			infos.clear();
+			try {
+				this.parser.reconstructXRefInfo(infos);
+			} catch (IOException reconstructionException) {
+				// source doesn't look like PDF document, original problem is reported
+				e.addSuppressed(reconstructionException);
+				throw e;
+			}
+			this.xrefReconstructed = true;
+		}
+		setXRefSections(infos);
+
+		checkEncryption();
+	}
+
+	private void initProgressive() throws IOException {
+		this.header = this.parser.getHeader();
+
+		List<COSXRefInfo> infos = new ArrayList<>();
+		COSObject linDict = this.parser.getFirstPageXRefInfo(infos);
+		Long length = linDict == null ? null : linDict.getIntegerKey(ASAtom.L);
+		if (length == null) {
+			init();
+			return;
+		}
+		SeekableInputStream source = getPDFSource();
+		boolean isGrowing = source instanceof GrowingInputStream &&
+				!((GrowingInputStream) source).isFinished();
+		if (isGrowing) {
+			((GrowingInputStream) source).setExpectedLength(length.longValue());
+		} else if (length.longValue() != source.getStreamLength()) {
+			// document was updated after linearization, so xref of the first
+			// page can be outdated
+			init();
+			return;
+		}
+		this.linearizationDictionary = linDict;
+		this.firstPageSection = infos.get(0);
+		Long prev = this.firstPageSection.getTrailer().getPrev();
+		// updates of growing document are not known until it is received
+		this.xrefComplete = !isGrowing && (prev == null || prev.longValue() == 0);
+		setXRefSections(infos);
+
+		COSObject encryption = this.parser.getEncryption();
+		if (this.parser.isEncrypted() && encryption.isIndirect().booleanValue() &&
+				!containsKey(encryption.getObjectKey())) {
+			completeXRef();
+		}
+		checkEncryption();
+	}
+
+	private void setXRefSections(final List<COSXRefInfo> infos) {
+		this.startXRefs = new long[infos.size()];
+		this.trailerOffsets = new long[infos.size()];
+		for (int i = 0; i < infos.size(); ++i) {
+			this.startXRefs[i] = infos.get(i).getStartXRef();
+			this.trailerOffsets[i] = infos.get(i).getTrailerOffset();
+		}
 		setXRefInfo(infos);
+	}
+
+	private void init(final XRefIndex index) throws IOException {
+		this.header = this.parser.getHeader();
+
+		List<COSXRefInfo> infos = new ArrayList<>();
+		this.parser.getXRefInfo(infos, index);
+		setXRefInfo(infos, index.getOffsets());
 
+		checkEncryption();
+	}
+
+	private XRefIndex createXRefIndex() {
+		COSDocument document = this.parser.getDocument();
+		return new XRefIndex(getOffsets(), this.startXRefs, this.trailerOffsets,
+				this.parser.getLastTrailerOffset().longValue(), document.getPostEOFDataSize(),
+				document.isXrefEOLMarkersComplyPDFA(), document.isSubsectionHeaderSpaceSeparated());
+	}
+
+	private void checkEncryption() throws IOException {
 		if(this.parser.isEncrypted()) {
 			if(!docCanBeDecrypted()) {
 				this.getPDFSource().close();
@@ -183,21 +385,13 @@ public class Reader extends XRefReader {
 
 	@Override
 	public int getGreatestKeyNumberFromXref() {
-		int res = 1;
-		for (COSKey key : this.getKeys()) {
-			if (key.getNumber() > res) {
-				res = key.getNumber();
-			}
-		}
-		return res;
+		return Math.max(1, getOffsets().getGreatestNumber());
 	}
 
 	@Override
 	public void close() throws IOException {
 		if (objectStreams != null) {
-			for (Map.Entry<Long, DecodedObjectStreamParser> entry : this.objectStreams.entrySet()) {
-				entry.getValue().closeInputStream();
-			}
+			this.objectStreams.clear();
 		}
 	}
 }
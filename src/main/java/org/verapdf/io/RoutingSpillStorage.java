@@ -0,0 +1,163 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.io.IOException;
+
+/**
+ * Spill storage that chooses underlying storage by size of data. Small spills
+ * are kept in heap, medium spills are kept in off-heap arena and large spills
+ * are written to disk. If size of data is not known in advance, spill starts
+ * in heap and is moved to the next storage when it outgrows current one.
+ */
+public class RoutingSpillStorage implements SpillStorage {
+
+    public static final long DEFAULT_HEAP_THRESHOLD = 1L << 20;
+    public static final long DEFAULT_OFF_HEAP_THRESHOLD = 16L << 20;
+    public static final long DEFAULT_OFF_HEAP_CAPACITY = 64L << 20;
+
+    private static SpillStorage defaultStorage;
+
+    private final SpillStorage heap;
+    private final SpillStorage offHeap;
+    private final SpillStorage disk;
+    private final long heapThreshold;
+    private final long offHeapThreshold;
+
+    /**
+     * Creates storage with default thresholds.
+     */
+    public RoutingSpillStorage() {
+        this(new HeapSpillStorage(), new DirectSpillStorage(DEFAULT_OFF_HEAP_CAPACITY),
+                new DiskSpillStorage(), DEFAULT_HEAP_THRESHOLD, DEFAULT_OFF_HEAP_THRESHOLD);
+    }
+
+    /**
+     * @param heap             is storage for small spills.
+     * @param offHeap          is storage for medium spills, or null if medium
+     *                         spills should be kept in disk storage.
+     * @param disk             is storage for large spills.
+     * @param heapThreshold    is maximal size of spill kept in heap storage.
+     * @param offHeapThreshold is maximal size of spill kept in off-heap
+     *                         storage.
+     */
+    public RoutingSpillStorage(SpillStorage heap, SpillStorage offHeap, SpillStorage disk,
+                               long heapThreshold, long offHeapThreshold) {
+        this.heap = heap;
+        this.offHeap = offHeap;
+        this.disk = disk;
+        this.heapThreshold = heapThreshold;
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    /**
+     * @return spill storage used by parser when no other storage is specified.
+     */
+    public static synchronized SpillStorage getDefault() {
+        if (defaultStorage == null) {
+            defaultStorage = new RoutingSpillStorage();
+        }
+        return defaultStorage;
+    }
+
+    /**
+     * Sets spill storage used by parser when no other storage is specified.
+     *
+     * @param storage is new default storage, null resets it to routing
+     *                storage with default thresholds.
+     */
+    public static synchronized void setDefault(SpillStorage storage) {
+        defaultStorage = storage;
+    }
+
+    @Override
+    public SpillOutputStream createOutput(long expectedSize) throws IOException {
+        SpillStorage storage = expectedSize < 0 ? this.heap : getStorage(expectedSize);
+        return new RoutingSpillOutputStream(storage, storage.createOutput(expectedSize));
+    }
+
+    private SpillStorage getStorage(long size) {
+        if (size <= this.heapThreshold) {
+            return this.heap;
+        }
+        if (this.offHeap != null && size <= this.offHeapThreshold) {
+            return this.offHeap;
+        }
+        return this.disk;
+    }
+
+    private long getLimit(SpillStorage storage) {
+        if (storage == this.heap) {
+            return this.heapThreshold;
+        }
+        if (storage == this.offHeap) {
+            return this.offHeapThreshold;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private class RoutingSpillOutputStream extends SpillOutputStream {
+
+        private SpillOutputStream output;
+        private long limit;
+
+        RoutingSpillOutputStream(SpillStorage storage, SpillOutputStream output) {
+            this.output = output;
+            this.limit = getLimit(storage);
+        }
+
+        @Override
+        public long write(byte[] buffer, int offset, int size) throws IOException {
+            long newSize = this.output.getSize() + size;
+            if (newSize > this.limit) {
+                moveTo(getStorage(newSize));
+            }
+            return this.output.write(buffer, offset, size);
+        }
+
+        @Override
+        public long getSize() {
+            return this.output.getSize();
+        }
+
+        @Override
+        protected SeekableInputStream createInputStream() throws IOException {
+            return this.output.getInputStream();
+        }
+
+        @Override
+        protected void releaseStorage() throws IOException {
+            this.output.close();
+        }
+
+        private void moveTo(SpillStorage newStorage) throws IOException {
+            SpillOutputStream newOutput = newStorage.createOutput(-1);
+            try (SeekableInputStream data = this.output.getInputStream()) {
+                newOutput.write(data);
+            } catch (IOException e) {
+                newOutput.close();
+                throw e;
+            }
+            this.output = newOutput;
+            this.limit = getLimit(newStorage);
+        }
+    }
+}
@@ -26,6 +26,9 @@ import org.verapdf.as.io.ASMemoryInStream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents stream in which seek for a particular byte offset can be performed.
@@ -37,6 +40,32 @@ import java.io.InputStream;
 public abstract class SeekableInputStream extends ASInputStream {
 
     public static final int MAX_BUFFER_SIZE = 10240;
+    public static final long DEFAULT_MAX_IN_MEMORY_SIZE = 256L * 1024 * 1024;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final SpillStorage SPILL_STORAGE = new DiskSpillStorage();
+
+    private static long maxInMemorySize = DEFAULT_MAX_IN_MEMORY_SIZE;
+
+    /**
+     * Defines the way in which data of file is accessed.
+     */
+    public enum FileAccessMode {
+        /**
+         * File is read through RandomAccessFile.
+         */
+        RANDOM_ACCESS_FILE,
+        /**
+         * File is mapped into memory.
+         */
+        MEMORY_MAPPED,
+        /**
+         * File is read through RandomAccessFile, recently used parts of file
+         * are cached in memory.
+         */
+        CACHED
+    }
 
     /**
      * Goes to a particular byte in stream.
@@ -66,6 +95,19 @@ public abstract class SeekableInputStream extends ASInputStream {
      */
     public abstract int peek() throws IOException;
 
+    /**
+     * Reads up to given amount of bytes without waiting for data that is not
+     * available yet. Stream returns at least one byte if it is not at end.
+     * By default it is the same as {@link #read(byte[], int)}.
+     *
+     * @param buffer is buffer to read data into, starting from offset 0.
+     * @param size   is maximal amount of bytes to read.
+     * @return amount of bytes read or -1 if end of stream is reached.
+     */
+    public int readAvailable(byte[] buffer, int size) throws IOException {
+        return this.read(buffer, size);
+    }
+
     /**
      * Gets substream of this stream that starts at given offset and has given
      * length.
@@ -75,6 +117,17 @@ public abstract class SeekableInputStream extends ASInputStream {
      */
     public abstract ASInputStream getStream(long startOffset, long length) throws IOException;
 
+    /**
+     * Gets new stream over the same data that has its own position, so it can
+     * be read from another thread while this stream is used. Obtained stream
+     * should be closed by caller.
+     *
+     * @return independent stream or null if this stream doesn't support it.
+     */
+    public SeekableInputStream getIndependentStream() throws IOException {
+        return null;
+    }
+
     @Override
     public void incrementResourceUsers() {
         this.resourceUsers.increment();
@@ -114,24 +167,137 @@ public abstract class SeekableInputStream extends ASInputStream {
     }
 
     /**
-     * Returns InternalInputStream or ASMemoryInStream constructed from given
-     * stream depending on stream length.
+     * Returns ASMemoryInStream, in-memory stream or InternalInputStream
+     * constructed from given stream depending on stream length. Data is kept
+     * in memory if it is shorter than maximal in-memory size, otherwise it is
+     * written into spill file.
      *
      * @param stream is stream to turn into seekable stream.
      * @return SeekableStream that contains data of passed stream.
      */
     public static SeekableInputStream getSeekableStream(InputStream stream) throws IOException {
-        int totalRead = 0;
-        byte[] buffer = new byte[0];
+        return getSeekableStream(stream, maxInMemorySize);
+    }
+
+    /**
+     * Returns ASMemoryInStream, in-memory stream or InternalInputStream
+     * constructed from given stream depending on stream length.
+     *
+     * @param stream          is stream to turn into seekable stream.
+     * @param maxInMemorySize is maximal amount of bytes that are kept in
+     *                        memory, longer streams are written into spill file.
+     * @return SeekableStream that contains data of passed stream.
+     */
+    public static SeekableInputStream getSeekableStream(InputStream stream,
+                                                        long maxInMemorySize) throws IOException {
+        byte[] buffer = new byte[MAX_BUFFER_SIZE];
         byte[] temp = new byte[ASBufferingInFilter.BF_BUFFER_SIZE];
-        while (totalRead < MAX_BUFFER_SIZE) {
-            int read = stream.read(temp);
+        int totalRead = readFully(stream, buffer, 0, MAX_BUFFER_SIZE, temp);
+        if (totalRead < MAX_BUFFER_SIZE) {
+            return new ASMemoryInStream(buffer, totalRead, false);
+        }
+
+        List<byte[]> chunks = new ArrayList<>();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        System.arraycopy(buffer, 0, chunk, 0, totalRead);
+        chunks.add(chunk);
+        long total = totalRead;
+        int inChunk = totalRead;
+        while (true) {
+            if (inChunk == CHUNK_SIZE) {
+                if (total >= maxInMemorySize) {
+                    return spill(chunks, stream);
+                }
+                chunk = new byte[CHUNK_SIZE];
+                chunks.add(chunk);
+                inChunk = 0;
+            }
+            int read = readFully(stream, chunk, inChunk, CHUNK_SIZE - inChunk, temp);
+            inChunk += read;
+            total += read;
+            if (inChunk < CHUNK_SIZE) {
+                break;
+            }
+        }
+
+        ByteBuffer[] windows = new ByteBuffer[chunks.size()];
+        for (int i = 0; i < windows.length - 1; ++i) {
+            windows[i] = ByteBuffer.wrap(chunks.get(i));
+        }
+        windows[windows.length - 1] = ByteBuffer.wrap(chunk, 0, inChunk);
+        return new ByteBufferInputStream(windows, CHUNK_SHIFT);
+    }
+
+    /**
+     * Sets maximal amount of bytes that are kept in memory by
+     * {@link #getSeekableStream(InputStream)}. Longer streams are written into
+     * temp files.
+     *
+     * @param size is maximal in-memory size in bytes.
+     */
+    public static void setMaxInMemorySize(long size) {
+        maxInMemorySize = size;
+    }
+
+    /**
+     * @return maximal amount of bytes that are kept in memory by
+     * {@link #getSeekableStream(InputStream)}.
+     */
+    public static long getMaxInMemorySize() {
+        return maxInMemorySize;
+    }
+
+    private static SeekableInputStream spill(List<byte[]> chunks, InputStream rest) throws IOException {
+        try (SpillOutputStream output = SPILL_STORAGE.createOutput(-1)) {
+            for (byte[] chunk : chunks) {
+                output.write(chunk);
+            }
+            output.write(rest);
+            return output.getInputStream();
+        }
+    }
+
+    private static int readFully(InputStream stream, byte[] buffer, int offset,
+                                 int length, byte[] temp) throws IOException {
+        int totalRead = 0;
+        while (totalRead < length) {
+            int read;
+            if (!(stream instanceof ASInputStream)) {
+                read = stream.read(buffer, offset + totalRead, length - totalRead);
+            } else if (offset + totalRead == 0) {
+                read = ((ASInputStream) stream).read(buffer, length);
+            } else {
+                // ASInputStream can read only into the beginning of array
+                read = ((ASInputStream) stream).read(temp, Math.min(temp.length, length - totalRead));
+                if (read > 0) {
+                    System.arraycopy(temp, 0, buffer, offset + totalRead, read);
+                }
+            }
             if (read == -1) {
-                return new ASMemoryInStream(buffer, buffer.length, false);
+                break;
             }
-            buffer = ASBufferingInFilter.concatenate(buffer, buffer.length, temp, read);
             totalRead += read;
         }
-        return new InternalInputStream(buffer, stream);
+        return totalRead;
+    }
+
+    /**
+     * Returns seekable stream that reads data of given file in a given way.
+     *
+     * @param fileName is name of file to read.
+     * @param mode     is way in which file data is accessed.
+     * @return SeekableStream that contains data of given file.
+     */
+    public static SeekableInputStream getSeekableStream(String fileName,
+                                                        FileAccessMode mode) throws IOException {
+        switch (mode) {
+            case MEMORY_MAPPED:
+                return ByteBufferInputStream.map(fileName);
+            case CACHED:
+                return new PagedInputStream(new InternalInputStream(fileName));
+            case RANDOM_ACCESS_FILE:
+            default:
+                return new InternalInputStream(fileName);
+        }
     }
 }
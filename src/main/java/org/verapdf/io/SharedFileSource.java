@@ -0,0 +1,136 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only file source that is shared between all documents opened from the
+ * same file. File is mapped into memory once, every document reads it through
+ * its own view. Parsed xref index of the file is kept together with mapping,
+ * so only the first document parses cross-reference data. Source is released
+ * when all documents that acquired it are closed. If file was modified since
+ * mapping, new source is created for the next acquisition.
+ */
+public final class SharedFileSource implements Closeable {
+
+    private static final Map<String, SharedFileSource> SOURCES = new HashMap<>();
+
+    private final String path;
+    private final long length;
+    private final long lastModified;
+    private final ByteBufferInputStream mapping;
+    private int users = 0;
+    private volatile XRefIndex xrefIndex;
+
+    private SharedFileSource(File file) throws IOException {
+        this.path = file.getPath();
+        this.length = file.length();
+        this.lastModified = file.lastModified();
+        this.mapping = ByteBufferInputStream.map(file);
+    }
+
+    /**
+     * Gets shared source for file with given name. Each call should be paired
+     * with {@link #close()} of obtained source.
+     *
+     * @param fileName is name of file.
+     * @return shared source of this file.
+     */
+    public static SharedFileSource acquire(String fileName) throws IOException {
+        File file = new File(fileName).getCanonicalFile();
+        synchronized (SOURCES) {
+            SharedFileSource source = SOURCES.get(file.getPath());
+            if (source == null || source.length != file.length() ||
+                    source.lastModified != file.lastModified()) {
+                source = new SharedFileSource(file);
+                SOURCES.put(source.path, source);
+            }
+            source.users++;
+            return source;
+        }
+    }
+
+    /**
+     * @return new stream that reads the whole file. Streams have independent
+     * positions, so they can be used from different threads.
+     */
+    public SeekableInputStream getStream() throws IOException {
+        synchronized (SOURCES) {
+            if (this.users == 0) {
+                throw new IOException("Shared source of file " + this.path + " is already closed");
+            }
+            return new ByteBufferInputStream(this.mapping, 0, this.length);
+        }
+    }
+
+    /**
+     * @return parsed xref index of file, or null if it was not parsed yet.
+     */
+    public XRefIndex getXRefIndex() {
+        return this.xrefIndex;
+    }
+
+    /**
+     * Sets parsed xref index of file. Only the first index is kept.
+     *
+     * @param xrefIndex is xref index of file.
+     */
+    public void setXRefIndex(XRefIndex xrefIndex) {
+        synchronized (SOURCES) {
+            if (this.xrefIndex == null) {
+                this.xrefIndex = xrefIndex;
+            }
+        }
+    }
+
+    /**
+     * @return number of documents that use this source.
+     */
+    public int getUsers() {
+        synchronized (SOURCES) {
+            return this.users;
+        }
+    }
+
+    /**
+     * Releases this source. Mapping is released after last user releases it.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (SOURCES) {
+            if (this.users == 0) {
+                return;
+            }
+            this.users--;
+            if (this.users == 0) {
+                if (SOURCES.get(this.path) == this) {
+                    SOURCES.remove(this.path);
+                }
+                this.mapping.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.as.filters.io.ASBufferingInFilter;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.as.io.ASOutputStream;
+import org.verapdf.tools.resource.ASFileStreamCloser;
+import org.verapdf.tools.resource.FileResourceHandler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Output stream of {@link SpillStorage}. Data is written into it and then read
+ * back with {@link #getInputStream()}, after that obtained input stream owns
+ * the storage and releases it on close. If output is closed before input
+ * stream was requested, storage is released immediately.
+ */
+public abstract class SpillOutputStream implements ASOutputStream, Closeable {
+
+    private FileResourceHandler resourceHandler;
+    private boolean isFinished = false;
+
+    @Override
+    public long write(byte[] buffer) throws IOException {
+        return write(buffer, 0, buffer.length);
+    }
+
+    @Override
+    public long write(ASInputStream stream) throws IOException {
+        byte[] buf = new byte[ASBufferingInFilter.BF_BUFFER_SIZE];
+        int read = stream.read(buf, buf.length);
+        long res = 0;
+        while (read != -1) {
+            this.write(buf, 0, read);
+            res += read;
+            read = stream.read(buf, buf.length);
+        }
+        return res;
+    }
+
+    /**
+     * Writes all data from given input stream into spill.
+     *
+     * @param stream is stream to copy.
+     * @return number of bytes written.
+     */
+    public long write(InputStream stream) throws IOException {
+        if (stream instanceof ASInputStream) {
+            return write((ASInputStream) stream);
+        }
+        byte[] buf = new byte[ASBufferingInFilter.BF_BUFFER_SIZE];
+        int read = stream.read(buf, 0, buf.length);
+        long res = 0;
+        while (read != -1) {
+            this.write(buf, 0, read);
+            res += read;
+            read = stream.read(buf, 0, buf.length);
+        }
+        return res;
+    }
+
+    /**
+     * @return number of bytes written into spill.
+     */
+    public abstract long getSize();
+
+    /**
+     * Finishes writing and returns stream with spilled data. Closing of
+     * returned stream releases the storage. If resource handler was set for
+     * this spill, stream is also registered in it, so it will be released
+     * together with other document resources.
+     *
+     * @return stream with spilled data.
+     */
+    public SeekableInputStream getInputStream() throws IOException {
+        if (this.isFinished) {
+            throw new IOException("Spilled data was already obtained or released");
+        }
+        this.isFinished = true;
+        SeekableInputStream res = createInputStream();
+        if (this.resourceHandler != null) {
+            this.resourceHandler.addResource(new ASFileStreamCloser(res));
+        }
+        return res;
+    }
+
+    /**
+     * Releases the storage if data was not obtained with
+     * {@link #getInputStream()}, does nothing otherwise.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.isFinished) {
+            this.isFinished = true;
+            releaseStorage();
+        }
+    }
+
+    /**
+     * Sets resource handler that will close stream with spilled data.
+     *
+     * @param resourceHandler is resource handler of document, or null.
+     */
+    public void setResourceHandler(FileResourceHandler resourceHandler) {
+        this.resourceHandler = resourceHandler;
+    }
+
+    protected boolean isFinished() {
+        return this.isFinished;
+    }
+
+    /**
+     * Creates stream with spilled data that releases the storage on close.
+     */
+    protected abstract SeekableInputStream createInputStream() throws IOException;
+
+    /**
+     * Releases storage of spill that was never read.
+     */
+    protected abstract void releaseStorage() throws IOException;
+}
@@ -0,0 +1,41 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import java.io.IOException;
+
+/**
+ * Storage for temporary data that does not fit into a single byte array, e.g.
+ * re-encoded stream data or resources loaded from jar. Implementations decide
+ * where data is kept (heap, off-heap memory or disk). Data is released when
+ * stream obtained from {@link SpillOutputStream#getInputStream()} is closed,
+ * or when spill output is closed before its data was requested.
+ */
+public interface SpillStorage {
+
+    /**
+     * Creates output for new spill.
+     *
+     * @param expectedSize is expected size of data in bytes, or -1 if unknown.
+     * @return output stream to write spilled data into.
+     */
+    SpillOutputStream createOutput(long expectedSize) throws IOException;
+}
@@ -0,0 +1,123 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.verapdf.cos.xref.COSXRefEntries;
+
+/**
+ * Immutable result of cross-reference parsing of one file. It contains
+ * offsets of all objects, positions of trailers of all xref sections and
+ * file properties found during xref parsing. Index does not refer to any
+ * document, so it can be shared between several documents opened from the
+ * same file.
+ */
+public final class XRefIndex {
+
+    /**
+     * Value of trailer offset for xref section that is xref stream. Trailer
+     * of such section is xref stream dictionary located at start of section.
+     */
+    public static final long XREF_STREAM_TRAILER = -1;
+
+    private final COSXRefEntries offsets;
+    private final long[] startXRefs;
+    private final long[] trailerOffsets;
+    private final long lastTrailerOffset;
+    private final byte postEOFDataSize;
+    private final boolean xrefEOLMarkersComplyPDFA;
+    private final boolean subsectionHeaderSpaceSeparated;
+
+    /**
+     * @param offsets                        is merged xref entries, they are
+     *                                       immutable and are not copied.
+     * @param startXRefs                     are offsets of xref sections,
+     *                                       from the first one to the last one.
+     * @param trailerOffsets                 are offsets of trailers of
+     *                                       corresponding sections.
+     * @param lastTrailerOffset              is offset of last trailer.
+     * @param postEOFDataSize                is size of data after last %%EOF.
+     * @param xrefEOLMarkersComplyPDFA       is true if EOL markers in xref
+     *                                       comply PDF/A.
+     * @param subsectionHeaderSpaceSeparated is true if subsection headers are
+     *                                       separated by single space.
+     */
+    public XRefIndex(COSXRefEntries offsets, long[] startXRefs, long[] trailerOffsets,
+                     long lastTrailerOffset, byte postEOFDataSize,
+                     boolean xrefEOLMarkersComplyPDFA, boolean subsectionHeaderSpaceSeparated) {
+        if (startXRefs.length != trailerOffsets.length) {
+            throw new IllegalArgumentException("Number of xref sections and trailers differ");
+        }
+        this.offsets = offsets;
+        this.startXRefs = startXRefs.clone();
+        this.trailerOffsets = trailerOffsets.clone();
+        this.lastTrailerOffset = lastTrailerOffset;
+        this.postEOFDataSize = postEOFDataSize;
+        this.xrefEOLMarkersComplyPDFA = xrefEOLMarkersComplyPDFA;
+        this.subsectionHeaderSpaceSeparated = subsectionHeaderSpaceSeparated;
+    }
+
+    /**
+     * @return merged xref entries of file.
+     */
+    public COSXRefEntries getOffsets() {
+        return this.offsets;
+    }
+
+    /**
+     * @return number of xref sections.
+     */
+    public int getSectionsNumber() {
+        return this.startXRefs.length;
+    }
+
+    /**
+     * @param section is index of xref section, starting from the first one.
+     * @return offset of given xref section.
+     */
+    public long getStartXRef(int section) {
+        return this.startXRefs[section];
+    }
+
+    /**
+     * @param section is index of xref section, starting from the first one.
+     * @return offset of trailer of given section or
+     * {@link #XREF_STREAM_TRAILER} if section is xref stream.
+     */
+    public long getTrailerOffset(int section) {
+        return this.trailerOffsets[section];
+    }
+
+    public long getLastTrailerOffset() {
+        return this.lastTrailerOffset;
+    }
+
+    public byte getPostEOFDataSize() {
+        return this.postEOFDataSize;
+    }
+
+    public boolean isXrefEOLMarkersComplyPDFA() {
+        return this.xrefEOLMarkersComplyPDFA;
+    }
+
+    public boolean isSubsectionHeaderSpaceSeparated() {
+        return this.subsectionHeaderSpaceSeparated;
+    }
+}
@@ -20,6 +20,7 @@
  */
 package org.verapdf.operator;
 
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,8 +29,44 @@ import java.util.Map;
  */
 public class Operator {
 
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+	private static final String[] STANDARD_OPERATORS = {
+			"b", "B", "b*", "B*", "BDC", "BMC", "BT", "BX", "c", "cm", "CS", "cs",
+			"d", "d0", "d1", "Do", "DP", "EI", "EMC", "ET", "EX", "f", "F", "f*",
+			"G", "g", "gs", "h", "i", "j", "J", "K", "k", "l", "m", "M", "MP", "n",
+			"q", "Q", "re", "RG", "rg", "ri", "s", "S", "SC", "sc", "SCN", "scn",
+			"sh", "T*", "Tc", "Td", "TD", "Tf", "Tj", "TJ", "TL", "Tm", "Tr", "Ts",
+			"Tw", "Tz", "v", "w", "W", "W*", "y", "'", "\""
+	};
+
+	// open addressing table of standard operators keyed by operator bytes
+	// packed into int, so lookup needs neither String nor hashing of String
+	private static final int TABLE_BITS = 8;
+	private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+	private static final int[] operatorKeys = new int[1 << TABLE_BITS];
+	private static final Operator[] operatorValues = new Operator[1 << TABLE_BITS];
+
+	private static final int BI_KEY = packKey(new byte[]{'B', 'I'}, 2);
+	private static final int ID_KEY = packKey(new byte[]{'I', 'D'}, 2);
+
 	private static final Map<String, Operator> cachedOperators = new HashMap<>();
 
+	static {
+		for (String name : STANDARD_OPERATORS) {
+			byte[] bytes = name.getBytes(LATIN1);
+			int key = packKey(bytes, bytes.length);
+			int index = hash(key);
+			while (operatorKeys[index] != 0) {
+				index = (index + 1) & TABLE_MASK;
+			}
+			Operator operator = new Operator(name);
+			operatorKeys[index] = key;
+			operatorValues[index] = operator;
+			cachedOperators.put(name, operator);
+		}
+	}
+
 	private String operator;
 
 	protected Operator(final String operator) {
@@ -41,16 +78,62 @@ public class Operator {
 		if (operator.equals("BI") || operator.equals("ID")) {
 			return new InlineImageOperator(operator);
 		} else {
-			if (cachedOperators.containsKey(operator)) {
-				return cachedOperators.get(operator);
-			} else {
-				Operator result = new Operator(operator);
-				cachedOperators.put(operator, result);
-				return result;
+			synchronized (cachedOperators) {
+				if (cachedOperators.containsKey(operator)) {
+					return cachedOperators.get(operator);
+				} else {
+					Operator result = new Operator(operator);
+					cachedOperators.put(operator, result);
+					return result;
+				}
 			}
 		}
 	}
 
+	/**
+	 * Gets operator from its raw bytes. Standard operators are found without
+	 * creation of String.
+	 *
+	 * @param value  is buffer that contains operator bytes from offset 0.
+	 * @param length is length of operator.
+	 * @return operator with given name.
+	 */
+	public static Operator getOperator(final byte[] value, final int length) {
+		int key = packKey(value, length);
+		if (key != 0) {
+			if (key == BI_KEY || key == ID_KEY) {
+				return new InlineImageOperator(key == BI_KEY ? "BI" : "ID");
+			}
+			int index = hash(key);
+			while (operatorKeys[index] != 0) {
+				if (operatorKeys[index] == key) {
+					return operatorValues[index];
+				}
+				index = (index + 1) & TABLE_MASK;
+			}
+		}
+		return getOperator(new String(value, 0, length, LATIN1));
+	}
+
+	/**
+	 * @return length and up to 3 bytes of operator packed into int, or 0 if
+	 * operator is empty or longer than 3 bytes.
+	 */
+	private static int packKey(byte[] value, int length) {
+		if (length < 1 || length > 3) {
+			return 0;
+		}
+		int key = length;
+		for (int i = 0; i < length; ++i) {
+			key = (key << 8) | (value[i] & 0xFF);
+		}
+		return key;
+	}
+
+	private static int hash(int key) {
+		return ((key * 0x9E3779B1) >>> (32 - TABLE_BITS)) & TABLE_MASK;
+	}
+
 	public String getOperator() {
 		return operator;
 	}
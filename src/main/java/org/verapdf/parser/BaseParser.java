@@ -44,9 +44,31 @@ public class BaseParser {
 	private static final byte ASCII_ZERO = 48;
 	private static final byte ASCII_NINE = 57;
 
+	private static final int WINDOW_SIZE = 4096;
+
+	// integers up to 2^53 and powers of ten up to 10^22 are exact doubles
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
 	protected SeekableInputStream source;
 	private Token token;
 
+	// Tokenizer scans window of source data that is read with bulk reads.
+	// Scanning methods move cursor inside window, source position is set from
+	// cursor on exit, so subclasses can work with source directly between calls
+	private byte[] window;
+	private SeekableInputStream windowSource;
+	private long windowStart;
+	private int windowLength;
+	private long cursor;
+
 	public BaseParser(SeekableInputStream stream) throws IOException {
 		if(stream == null) {
 			throw new IOException("Can't create SeekableStream, passed seekableeStream is null");
@@ -74,6 +96,8 @@ public class BaseParser {
 
 	public void closeInputStream() throws IOException {
 		this.source.close();
+		this.window = null;
+		this.windowSource = null;
 	}
 
 	// PROTECTED METHODS
@@ -83,17 +107,12 @@ public class BaseParser {
 	}
 
 	protected String getLine() throws IOException {
-		initializeToken();
-		this.token.clearValue();
-		byte ch = this.source.readByte();
-		while (!this.source.isEOF()) {
-			if (ch == ASCII_LF || ch == ASCII_CR) {
-				break;
-			}
-			appendToToken(ch);
-			ch = this.source.readByte();
+		enterWindow();
+		try {
+			return readLine();
+		} finally {
+			leaveWindow();
 		}
-		return this.token.getValue();
 	}
 
 	protected byte[] getLineBytes() throws IOException {
@@ -101,140 +120,82 @@ public class BaseParser {
 		return this.token.getByteValue();
 	}
 
-	protected String getLine(final int offset) throws IOException {
-		initializeToken();
-		this.token.clearValue();
+	protected String getLine(final long offset) throws IOException {
 		this.source.seek(offset);
-		byte ch = this.source.readByte();
-		while (!this.source.isEOF()) {
-			if (ch == ASCII_LF || ch == ASCII_CR) {
-				break;
-			}
-			appendToToken(ch);
-			ch = this.source.readByte();
-		}
-		return this.token.getValue();
+		return getLine();
 	}
 
 	protected String readUntilDelimiter() throws IOException {
-		initializeToken();
-		this.token.clearValue();
-		byte ch = this.source.readByte();
-		while (!isSpace(ch) && !isTokenDelimiter(ch)) {
-			appendToToken(ch);
-			if (!this.source.isEOF()) {
-				ch = this.source.readByte();
-			} else {
-				break;
+		readRawUntilDelimiter();
+		return this.token.getValue();
+	}
+
+	/**
+	 * Reads bytes till space or delimiter into token value without creation
+	 * of String. Value can be obtained with {@link Token#getRawValue()}.
+	 */
+	protected void readRawUntilDelimiter() throws IOException {
+		enterWindow();
+		try {
+			initializeToken();
+			this.token.clearValue();
+			byte ch = readWindowByte();
+			while (!isSpace(ch) && !isTokenDelimiter(ch)) {
+				appendToToken(ch);
+				if (!isWindowEOF()) {
+					ch = readWindowByte();
+				} else {
+					break;
+				}
 			}
+			if (isSpace(ch) || isTokenDelimiter(ch)) {
+				this.cursor--;
+			}
+		} finally {
+			leaveWindow();
 		}
-		if (isSpace(ch) || isTokenDelimiter(ch)) {
-			this.source.unread();
-		}
-		return this.token.getValue();
 	}
 
 	protected boolean findKeyword(final Token.Keyword keyword) throws IOException {
-		nextToken();
-		while (this.token.type != Token.Type.TT_EOF && (this.token.type != Token.Type.TT_KEYWORD || this.token.keyword != keyword)) {
-			nextToken();
+		enterWindow();
+		try {
+			readNextToken();
+			while (this.token.type != Token.Type.TT_EOF && (this.token.type != Token.Type.TT_KEYWORD || this.token.keyword != keyword)) {
+				readNextToken();
+			}
+		} finally {
+			leaveWindow();
 		}
 		return this.token.type == Token.Type.TT_KEYWORD && this.token.keyword == keyword;
 	}
 
 	// lookUpSize starts from current offset
 	protected boolean findKeyword(final Token.Keyword keyword, final int lookUpSize) throws IOException {
-		long endOffset = this.source.getOffset() + lookUpSize < this.source.getStreamLength()
-				? this.source.getOffset() + lookUpSize : this.source.getStreamLength();
+		enterWindow();
+		try {
+			// end of stream is detected by EOF token, so stream length is not
+			// required here and lookup can be done before whole source is available
+			long endOffset = this.cursor + lookUpSize;
 
-		nextToken();
-		while (this.token.type != Token.Type.TT_EOF && (this.token.type != Token.Type.TT_KEYWORD || this.token.keyword != keyword)) {
-			if (this.source.getOffset() >= endOffset) {
-				break;
+			readNextToken();
+			while (this.token.type != Token.Type.TT_EOF && (this.token.type != Token.Type.TT_KEYWORD || this.token.keyword != keyword)) {
+				if (this.cursor >= endOffset) {
+					break;
+				}
+				readNextToken();
 			}
-			nextToken();
+		} finally {
+			leaveWindow();
 		}
 		return this.token.type == Token.Type.TT_KEYWORD && this.token.keyword == keyword;
 	}
 
 	protected void nextToken() throws IOException {
-		skipSpaces(true);
-		if (this.source.isEOF()) {
-			this.token.type = Token.Type.TT_EOF;
-			return;
-		}
-
-		this.token.type = Token.Type.TT_NONE;
-
-		byte ch = this.source.readByte();
-
-		switch (ch) {
-			case '(':
-				this.token.type = Token.Type.TT_LITSTRING;
-				readLitString();
-				break;
-			case ')':
-				//error
-				break;
-			case '<':
-				ch = source.readByte();
-				if (ch == '<') {
-					this.token.type = Token.Type.TT_OPENDICT;
-				} else {
-					this.source.unread();
-					this.token.type = Token.Type.TT_HEXSTRING;
-					readHexString();
-				}
-				break;
-			case '>':
-				ch = this.source.readByte();
-				if (ch == '>') {
-					this.token.type = Token.Type.TT_CLOSEDICT;
-				} else {
-					// error
-				}
-				break;
-			case '[':
-				this.token.type = Token.Type.TT_OPENARRAY;
-				break;
-			case ']':
-				this.token.type = Token.Type.TT_CLOSEARRAY;
-				break;
-			case '{': // as delimiter in PostScript calculator functions 181
-				break;
-			case '}':
-				break;
-			case '/':
-				this.token.type = Token.Type.TT_NAME;
-				readName();
-				break;
-			case '0':
-			case '1':
-			case '2':
-			case '3':
-			case '4':
-			case '5':
-			case '6':
-			case '7':
-			case '8':
-			case '9':
-			case '.':
-				this.source.unread();
-				readNumber();
-				break;
-			case '-':
-				readNumber();
-				this.token.integer = -this.token.integer;
-				this.token.real = -this.token.real;
-				break;
-			default:
-				this.source.unread();
-				readToken();
-				this.token.toKeyword();
-				if (this.token.keyword == Token.Keyword.KW_NONE) {
-					this.token.type = Token.Type.TT_NONE;
-				}
-				break;
+		enterWindow();
+		try {
+			readNextToken();
+		} finally {
+			leaveWindow();
 		}
 	}
 
@@ -268,19 +229,11 @@ public class BaseParser {
 	}
 
 	protected void skipSpaces(boolean skipComment) throws IOException {
-		byte ch;
-		while (!this.source.isEOF()) {
-			ch = this.source.readByte();
-			if (CharTable.isSpace(ch)) {
-				continue;
-			}
-			if (ch == '%' && skipComment) {
-				skipComment();
-				continue;
-			}
-
-			this.source.unread();
-			break;
+		enterWindow();
+		try {
+			skipWindowSpaces(skipComment);
+		} finally {
+			leaveWindow();
 		}
 	}
 
@@ -344,19 +297,177 @@ public class BaseParser {
 		this.source.unread();
 	}
 
+	private void readNextToken() throws IOException {
+		initializeToken();
+		skipWindowSpaces(true);
+		if (isWindowEOF()) {
+			this.token.type = Token.Type.TT_EOF;
+			return;
+		}
+
+		this.token.type = Token.Type.TT_NONE;
+
+		byte ch = readWindowByte();
+
+		switch (ch) {
+			case '(':
+				this.token.type = Token.Type.TT_LITSTRING;
+				readLitString();
+				break;
+			case ')':
+				//error
+				break;
+			case '<':
+				ch = readWindowByte();
+				if (ch == '<') {
+					this.token.type = Token.Type.TT_OPENDICT;
+				} else {
+					this.cursor--;
+					this.token.type = Token.Type.TT_HEXSTRING;
+					readHexString();
+				}
+				break;
+			case '>':
+				ch = readWindowByte();
+				if (ch == '>') {
+					this.token.type = Token.Type.TT_CLOSEDICT;
+				} else {
+					// error
+				}
+				break;
+			case '[':
+				this.token.type = Token.Type.TT_OPENARRAY;
+				break;
+			case ']':
+				this.token.type = Token.Type.TT_CLOSEARRAY;
+				break;
+			case '{': // as delimiter in PostScript calculator functions 181
+				break;
+			case '}':
+				break;
+			case '/':
+				this.token.type = Token.Type.TT_NAME;
+				readName();
+				break;
+			case '0':
+			case '1':
+			case '2':
+			case '3':
+			case '4':
+			case '5':
+			case '6':
+			case '7':
+			case '8':
+			case '9':
+			case '.':
+				this.cursor--;
+				readWindowNumber();
+				break;
+			case '-':
+				readWindowNumber();
+				this.token.integer = -this.token.integer;
+				this.token.real = -this.token.real;
+				break;
+			default:
+				this.cursor--;
+				readToken();
+				this.token.toKeyword();
+				if (this.token.keyword == Token.Keyword.KW_NONE) {
+					this.token.type = Token.Type.TT_NONE;
+				}
+				break;
+		}
+	}
+
+	private void skipWindowSpaces(boolean skipComment) throws IOException {
+		int ch;
+		while ((ch = peekWindowByte()) != -1) {
+			if (CharTable.isSpace(ch)) {
+				this.cursor++;
+				continue;
+			}
+			if (ch == '%' && skipComment) {
+				this.cursor++;
+				skipComment();
+				continue;
+			}
+			break;
+		}
+	}
+
+	private String readLine() throws IOException {
+		initializeToken();
+		this.token.clearValue();
+		byte ch = readWindowByte();
+		while (!isWindowEOF()) {
+			if (ch == ASCII_LF || ch == ASCII_CR) {
+				break;
+			}
+			appendToToken(ch);
+			ch = readWindowByte();
+		}
+		return this.token.getValue();
+	}
+
+	private void enterWindow() throws IOException {
+		if (this.windowSource != this.source) {
+			if (this.window == null) {
+				this.window = new byte[WINDOW_SIZE];
+			}
+			this.windowSource = this.source;
+			this.windowLength = 0;
+		}
+		this.cursor = this.source.getOffset();
+	}
+
+	private void leaveWindow() throws IOException {
+		this.source.seek(this.cursor);
+	}
+
+	/**
+	 * @return byte on cursor position or -1 if end of source is reached.
+	 */
+	private int peekWindowByte() throws IOException {
+		long position = this.cursor - this.windowStart;
+		if (position < 0 || position >= this.windowLength) {
+			this.source.seek(this.cursor);
+			int read = this.source.readAvailable(this.window, WINDOW_SIZE);
+			this.windowStart = this.cursor;
+			this.windowLength = Math.max(read, 0);
+			if (this.windowLength == 0) {
+				return -1;
+			}
+			position = 0;
+		}
+		return this.window[(int) position] & 0xFF;
+	}
+
+	private byte readWindowByte() throws IOException {
+		int next = peekWindowByte();
+		if (next < 0) {
+			throw new IOException("End of file is reached");
+		}
+		this.cursor++;
+		return (byte) next;
+	}
+
+	private boolean isWindowEOF() throws IOException {
+		return peekWindowByte() == -1;
+	}
+
 	private void skipComment() throws IOException {
 		// skips all characters till EOL == { CR, LF, CRLF }
 		byte ch;
-		while (!this.source.isEOF()) {
-			ch = this.source.readByte();
+		while (!isWindowEOF()) {
+			ch = readWindowByte();
 			if (isLF(ch)) {
 				return; // EOL == LF
 			}
 
 			if (isCR(ch)) {
-				ch = this.source.readByte();
+				ch = readWindowByte();
 				if (isLF(ch)) { // EOL == CR
-					this.source.unread();
+					this.cursor--;
 				} // else EOL == CRLF
 				return;
 			}
@@ -369,8 +480,8 @@ public class BaseParser {
 
 		int parenthesesDepth = 0;
 
-		byte ch = this.source.readByte();
-		while (!this.source.isEOF()) {
+		byte ch = readWindowByte();
+		while (!isWindowEOF()) {
 			switch (ch) {
 				default:
 					appendToToken(ch);
@@ -388,7 +499,7 @@ public class BaseParser {
 					appendToToken(ch);
 					break;
 				case '\\': {
-					ch = this.source.readByte();
+					ch = readWindowByte();
 					switch (ch) {
 						case '(':
 							appendToToken(CharTable.ASCII_LEFT_PAR);
@@ -422,9 +533,9 @@ public class BaseParser {
 							// look for 1, 2, or 3 octal characters
 							char ch1 = (char) (ch - '0');
 							for (int i = 1; i < 3; i++) {
-								ch = this.source.readByte();
+								ch = readWindowByte();
 								if (ch < '0' || ch > '7') {
-									this.source.unread();
+									this.cursor--;
 									break;
 								}
 								ch1 = (char) ((ch1 << 3) + (ch - '0'));
@@ -435,9 +546,9 @@ public class BaseParser {
 						case ASCII_LF:
 							break;
 						case ASCII_CR:
-							ch = this.source.readByte();
+							ch = readWindowByte();
 							if (ch != ASCII_LF) {
-								this.source.unread();
+								this.cursor--;
 							}
 							break;
 						default:
@@ -448,7 +559,7 @@ public class BaseParser {
 				}
 			}
 
-			ch = source.readByte();
+			ch = readWindowByte();
 		}
 	}
 
@@ -463,8 +574,8 @@ public class BaseParser {
 		long hexCount = 0;
 
 		boolean odd = false;
-		while (!this.source.isEOF()) {
-			ch = this.source.readByte();
+		while (!isWindowEOF()) {
+			ch = readWindowByte();
 			if (CharTable.isSpace(ch)) {
 				continue;
 			} else if (ch == '>') {
@@ -500,31 +611,31 @@ public class BaseParser {
 	private void readName() throws IOException {
 		this.token.clearValue();
 		byte ch;
-		while (!this.source.isEOF()) {
-			ch = this.source.readByte();
+		while (!isWindowEOF()) {
+			ch = readWindowByte();
 			if (CharTable.isTokenDelimiter(ch)) {
-				this.source.unread();
+				this.cursor--;
 				break;
 			}
 
 			if (ch == '#') {
 				byte ch1, ch2;
 				byte dc;
-				ch1 = this.source.readByte();
-				if (!source.isEOF() && COSFilterASCIIHexDecode.decodeLoHex(ch1) != COSFilterASCIIHexDecode.er) {
+				ch1 = readWindowByte();
+				if (!isWindowEOF() && COSFilterASCIIHexDecode.decodeLoHex(ch1) != COSFilterASCIIHexDecode.er) {
 					dc = COSFilterASCIIHexDecode.decodeLoHex(ch1);
-					ch2 = this.source.readByte();
-					if (!this.source.isEOF() && COSFilterASCIIHexDecode.decodeLoHex(ch2) != COSFilterASCIIHexDecode.er) {
+					ch2 = readWindowByte();
+					if (!isWindowEOF() && COSFilterASCIIHexDecode.decodeLoHex(ch2) != COSFilterASCIIHexDecode.er) {
 						dc = (byte) ((dc << 4) + COSFilterASCIIHexDecode.decodeLoHex(ch2));
 						appendToToken(dc);
 					} else {
 						appendToToken(ch);
 						appendToToken(ch1);
-						this.source.unread();
+						this.cursor--;
 					}
 				} else {
 					appendToToken(ch);
-					this.source.unread();
+					this.cursor--;
 				}
 			} else {
 				appendToToken(ch);
@@ -535,10 +646,10 @@ public class BaseParser {
 	private void readToken() throws IOException {
 		this.token.clearValue();
 		byte ch;
-		while (!this.source.isEOF()) {
-			ch = this.source.readByte();
+		while (!isWindowEOF()) {
+			ch = readWindowByte();
 			if (CharTable.isTokenDelimiter(ch)) {
-				this.source.unread();
+				this.cursor--;
 				break;
 			}
 
@@ -547,38 +658,77 @@ public class BaseParser {
 	}
 
 	protected void readNumber() throws IOException {
+		enterWindow();
 		try {
-			initializeToken();
-			this.token.clearValue();
-			this.token.type = Token.Type.TT_INTEGER;
-			byte ch;
-			while (!this.source.isEOF()) {
-				ch = this.source.readByte();
-				if (CharTable.isTokenDelimiter(ch)) {
-					this.source.unread();
-					break;
-				}
-				if (ch >= '0' && ch <= '9') {
-					appendToToken(ch);
-				} else if (ch == '.') {
-					this.token.type = Token.Type.TT_REAL;
-					appendToToken(ch);
+			readWindowNumber();
+		} finally {
+			leaveWindow();
+		}
+	}
+
+	private void readWindowNumber() throws IOException {
+		initializeToken();
+		this.token.clearValue();
+		this.token.type = Token.Type.TT_INTEGER;
+		// value is accumulated while bytes are scanned, so no String is
+		// created for integers and for most of reals
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		int points = 0;
+		boolean overflow = false;
+		int ch;
+		while ((ch = peekWindowByte()) != -1) {
+			if (ch >= '0' && ch <= '9') {
+				int digit = ch - '0';
+				if (mantissa > (Long.MAX_VALUE - digit) / 10) {
+					overflow = true;
 				} else {
-					this.source.unread();
-					break;
+					mantissa = mantissa * 10 + digit;
 				}
+				digits++;
+				if (points != 0) {
+					fractionDigits++;
+				}
+			} else if (ch == '.') {
+				this.token.type = Token.Type.TT_REAL;
+				points++;
+			} else {
+				// delimiter or unexpected character starts next token
+				break;
 			}
-			if (this.token.type == Token.Type.TT_INTEGER) {
-				long value = Long.valueOf(this.token.getValue()).longValue();
-				this.token.integer = value;
-				this.token.real = value;
+			appendToToken((byte) ch);
+			this.cursor++;
+		}
+		if (this.token.type == Token.Type.TT_INTEGER) {
+			if (digits == 0 || overflow) {
+				logInvalidNumber();
+				return;
+			}
+			this.token.integer = mantissa;
+			this.token.real = mantissa;
+		} else {
+			if (digits == 0 || points != 1) {
+				logInvalidNumber();
+				return;
+			}
+			double value;
+			if (!overflow && mantissa <= MAX_EXACT_MANTISSA && fractionDigits < POWERS_OF_TEN.length) {
+				// both operands are exact, so division gives the same
+				// correctly rounded result as Double.valueOf
+				value = mantissa / POWERS_OF_TEN[fractionDigits];
 			} else {
-				double value = Double.valueOf(this.token.getValue()).doubleValue();
-				this.token.integer = Math.round(value);
-				this.token.real = value;
+				value = Double.valueOf(this.token.getValue()).doubleValue();
 			}
-		} catch (NumberFormatException e) {
-			LOGGER.log(Level.FINE, "", e);
+			this.token.integer = Math.round(value);
+			this.token.real = value;
+		}
+	}
+
+	private void logInvalidNumber() {
+		// values of previous numeric token are kept in this case
+		if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.log(Level.FINE, "Invalid number " + this.token.getValue());
 		}
 	}
 
@@ -589,11 +739,11 @@ public class BaseParser {
 	}
 
 	private void appendToToken(final byte ch) {
-		this.token.append((char) (ch & 0xff));
+		this.token.append(ch);
 	}
 
 	private void appendToToken(final int ch) {
-		this.token.append((char) ch);
+		this.token.append(ch);
 	}
 
 	public static byte[] getRawBytes(String string) {
@@ -78,6 +78,11 @@ public class COSParser extends BaseParser {
 		this.document = document;
 	}
 
+	public COSParser(final COSDocument document, final SeekableInputStream seekableInputStream) throws IOException {
+		this(seekableInputStream);
+		this.document = document;
+	}
+
 	public COSObject nextObject() throws IOException {
 		if (!this.objects.isEmpty()) {
 			COSObject result = this.objects.peek();
@@ -293,10 +298,7 @@ public class COSParser extends BaseParser {
 		if (streamLengthValid) {
 			dict.setRealStreamSize(size);
 			ASInputStream stm = super.getRandomAccess(size);
-			dict.setData(stm);
-			if (stm instanceof ASFileInStream) {
-				this.document.addFileResource(new ASFileStreamCloser(stm));
-			}
+			setStreamData(dict, stm);
 		} else {
 			//trying to find endstream keyword
 			long realStreamSize = -1;
@@ -315,11 +317,8 @@ public class COSParser extends BaseParser {
 							realStreamSize = possibleEndstreamOffset - streamStartOffset;
 							dict.setRealStreamSize(realStreamSize);
 							ASInputStream stm = super.getRandomAccess(realStreamSize);
-							dict.setData(stm);
+							setStreamData(dict, stm);
 							source.seek(possibleEndstreamOffset);
-							if (stm instanceof ASFileInStream) {
-								this.document.addFileResource(new ASFileStreamCloser(stm));
-							}
 							break;
 						}
 						source.seek(reset);
@@ -340,6 +339,20 @@ public class COSParser extends BaseParser {
 	}
 
 
+	private void setStreamData(COSObject dict, ASInputStream stm) {
+		dict.setData(stm);
+		if (this.document == null) {
+			return;
+		}
+		COSBase stream = dict.getDirectBase();
+		if (stream instanceof COSStream) {
+			((COSStream) stream).setResourceHandler(this.document.getResourceHandler());
+		}
+		if (stm instanceof ASFileInStream) {
+			this.document.addFileResource(new ASFileStreamCloser(stm));
+		}
+	}
+
 	private void checkStreamSpacings(COSObject stream) throws IOException {
 		byte whiteSpace = source.readByte();
 		if (whiteSpace == 13) {
@@ -23,22 +23,47 @@ package org.verapdf.parser;
 import org.verapdf.as.ASAtom;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.cos.*;
+import org.verapdf.io.SeekableInputStream;
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This class reads objects from decoded object stream.
+ * <p>
+ * Index of object stream is kept in primitive arrays. Objects are parsed
+ * lazily on request, so random access to a few objects doesn't parse the
+ * whole stream. When objects are requested in the order of the stream (e.g.
+ * when all objects of document are walked), the rest of the stream is parsed
+ * in one pass, and decoded data is released.
+ * <p>
+ * One parsed copy of each object is kept softly, so object that is
+ * requested again is not parsed again while its copy is reachable. If data
+ * is already released and object has to be parsed, the stream is decoded
+ * again.
  *
  * @author Sergey Shemyakov
  */
 public class DecodedObjectStreamParser extends COSParser {
 
+    private static final Logger LOGGER = Logger.getLogger(DecodedObjectStreamParser.class.getCanonicalName());
+
     private COSStream objectStream;
-    private Map<Integer, Long> internalOffsets;
+    private int[] numbers;
+    private long[] offsets;
+    // (object number << 32) | index, sorted, used for lookup by object number
+    private long[] lookup;
+    private SoftReference<COSObject>[] parsedObjects;
+    private int lastParsedIndex = -1;
+    private final long decodedLength;
+    private boolean released = false;
+    private boolean closed = false;
+    private long redecodes;
 
     /**
      * Constructor from decoded object stream data and COSStream.
@@ -53,7 +78,7 @@ public class DecodedObjectStreamParser extends COSParser {
                                      COSKey streamKey, COSDocument doc) throws IOException {
         super(doc, inputStream);
         this.objectStream = objectStream;
-        this.internalOffsets = new HashMap<>();
+        this.decodedLength = this.source.getStreamLength();
         try {
             calculateInternalOffsets();
         } catch (IOException e) {
@@ -65,44 +90,212 @@ public class DecodedObjectStreamParser extends COSParser {
     private void calculateInternalOffsets() throws IOException {
         int n = (int) ((COSInteger) this.objectStream.getKey(ASAtom.N).getDirectBase()).get();
         long first = ((COSInteger) this.objectStream.getKey(ASAtom.FIRST).getDirectBase()).get();
+        if (n < 0) {
+            throw new IOException("Negative number of objects " + n);
+        }
+        this.numbers = new int[n];
+        this.offsets = new long[n];
+        this.lookup = new long[n];
         for (int i = 0; i < n; ++i) {
-            Long objNum, objOffset;
             skipSpaces(false);
             readNumber();
-            objNum = getToken().integer;
+            this.numbers[i] = (int) getToken().integer;
             skipSpaces(false);
             readNumber();
-            objOffset = getToken().integer;
-            internalOffsets.put(objNum.intValue(), objOffset + first);
+            this.offsets[i] = getToken().integer + first;
+            this.lookup[i] = ((long) this.numbers[i] << 32) | i;
         }
+        Arrays.sort(this.lookup);
+        this.parsedObjects = createReferences(n);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SoftReference<COSObject>[] createReferences(int size) {
+        return new SoftReference[size];
     }
 
     /**
      * @return true if object stream contains object with number <code>objNum</code>.
      */
     public boolean containsObject(int objNum) {
-        return this.internalOffsets.containsKey(objNum);
+        return getIndex(objNum) >= 0;
     }
 
     /**
      * @return list of keys of all objects, contained inside this object stream.
      */
     public List<COSKey> getInternalObjectsKeys() {
-        List<COSKey> res = new ArrayList<>();
-        for (Map.Entry<Integer, Long> entry : internalOffsets.entrySet()) {
-            res.add(new COSKey(entry.getKey(), 0));  // Object inside streams shall have generation 0
+        List<COSKey> res = new ArrayList<>(this.lookup.length);
+        for (int i = 0; i < this.lookup.length; ++i) {
+            int number = (int) (this.lookup[i] >> 32);
+            if (i == 0 || number != (int) (this.lookup[i - 1] >> 32)) {
+                res.add(new COSKey(number, 0));  // Object inside streams shall have generation 0
+            }
         }
         return res;
     }
 
+    /**
+     * Parses object from this object stream, each call returns newly parsed
+     * object.
+     *
+     * @param objNum is number of object.
+     * @return parsed object or empty object if stream doesn't contain object
+     * with given number.
+     */
     public COSObject getObject(int objNum) throws IOException {
-        if (!this.internalOffsets.containsKey(objNum)) {
+        int index = getIndex(objNum);
+        if (index < 0) {
             return new COSObject();
         }
-        this.source.seek(internalOffsets.get(objNum));
+        return parseObject(index);
+    }
+
+    /**
+     * Gets object from this object stream. Parsed copy of object is kept, so
+     * the same object is returned on repeated requests while it is
+     * reachable.
+     *
+     * @param objNum is number of object.
+     * @param index  is index of object in this stream that is stored in xref,
+     *               or -1 if it is unknown. Index that doesn't match object
+     *               number is ignored.
+     * @return parsed object or empty object if stream doesn't contain object
+     * with given number.
+     */
+    public COSObject getObject(int objNum, int index) throws IOException {
+        if (index < 0 || index >= this.numbers.length || this.numbers[index] != objNum) {
+            index = getIndex(objNum);
+        }
+        if (index < 0) {
+            return new COSObject();
+        }
+        COSObject object = getParsedObject(index);
+        if (object == null) {
+            if (index == this.lastParsedIndex + 1 && this.lastParsedIndex >= 0 && !this.released) {
+                // sequential access, the rest of stream is likely to be needed
+                loadAll();
+                object = getParsedObject(index);
+            }
+            if (object == null) {
+                // throws if object failed to parse in loadAll()
+                object = parseObject(index);
+                this.parsedObjects[index] = new SoftReference<>(object);
+                this.lastParsedIndex = index;
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Parses all objects of this stream that have no parsed copy in one pass
+     * and releases decoded data. Objects that can't be parsed are skipped.
+     */
+    public void loadAll() throws IOException {
+        if (this.released) {
+            return;
+        }
+        try {
+            for (int i = 0; i < this.parsedObjects.length; ++i) {
+                if (getParsedObject(i) == null) {
+                    try {
+                        this.parsedObjects[i] = new SoftReference<>(parseObject(i));
+                    } catch (IOException e) {
+                        LOGGER.log(Level.FINE, "Can't parse object " + this.numbers[i] +
+                                " of object stream", e);
+                    }
+                }
+            }
+        } finally {
+            releaseData();
+        }
+    }
+
+    /**
+     * @return true if decoded data is released, either after parsing all
+     * objects or after closing.
+     */
+    public boolean isReleased() {
+        return this.released;
+    }
+
+    /**
+     * @return number of times object stream was decoded again, because
+     * object was requested after decoded data was released.
+     */
+    public long getRedecodes() {
+        return this.redecodes;
+    }
+
+    /**
+     * @return length of decoded data of object stream.
+     */
+    public long getDecodedLength() {
+        return decodedLength;
+    }
+
+    /**
+     * Releases decoded data, objects can't be obtained from parser after
+     * this call.
+     */
+    @Override
+    public void closeInputStream() throws IOException {
+        this.closed = true;
+        releaseData();
+    }
+
+    private void releaseData() throws IOException {
+        if (!this.released) {
+            this.released = true;
+            super.closeInputStream();
+        }
+    }
+
+    private COSObject getParsedObject(int index) {
+        SoftReference<COSObject> reference = this.parsedObjects[index];
+        return reference == null ? null : reference.get();
+    }
+
+    private COSObject parseObject(int index) throws IOException {
+        if (this.closed) {
+            throw new IOException("Object stream is already closed");
+        }
+        if (this.released) {
+            ASInputStream data = this.objectStream.getData(COSStream.FilterFlags.DECODE);
+            if (data == null) {
+                throw new IOException("Can't decode object stream again");
+            }
+            this.source = SeekableInputStream.getSeekableStream(data);
+            this.released = false;
+            this.redecodes++;
+        }
+        this.source.seek(this.offsets[index]);
         this.flag = true;
         this.objects.clear();   // In case if some COSInteger was read before.
         this.integers.clear();
         return nextObject();
     }
+
+    /**
+     * @return index of object with given number, the last one if there are
+     * several, or -1 if stream doesn't contain it.
+     */
+    private int getIndex(int objNum) {
+        int low = 0;
+        int high = this.lookup.length - 1;
+        int res = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int number = (int) (this.lookup[mid] >> 32);
+            if (number < objNum) {
+                low = mid + 1;
+            } else if (number > objNum) {
+                high = mid - 1;
+            } else {
+                res = mid;
+                low = mid + 1;
+            }
+        }
+        return res < 0 ? -1 : (int) this.lookup[res];
+    }
 }
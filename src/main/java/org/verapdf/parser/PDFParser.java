@@ -28,12 +28,17 @@ import org.verapdf.cos.xref.COSXRefEntry;
 import org.verapdf.cos.xref.COSXRefInfo;
 import org.verapdf.cos.xref.COSXRefSection;
 import org.verapdf.io.SeekableInputStream;
+import org.verapdf.io.XRefIndex;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -51,12 +56,42 @@ public class PDFParser extends COSParser {
     //%%EOF marker byte representation
     private static final byte[] EOF_MARKER = new byte[]{37, 37, 69, 79, 70};
 
+    private static final int XREF_ROW_LENGTH = 20;
+    private static final int XREF_ROWS_IN_BLOCK = 512;
+    private static final int XREF_ROW_MALFORMED = -1;
+    private static final int XREF_ROW_INCOMPLETE = -2;
+
+    private static ExecutorService xrefExecutor;
+
     private long offsetShift = 0;
     private boolean isEncrypted;
     private COSObject encryption;
     private COSObject id;
     private Long lastTrailerOffset = 0L;
 
+    // buffers for fixed width decoding of xref table rows
+    private byte[] xrefBlock;
+    private long[] xrefOffsets;
+    private int[] xrefGenerations;
+    private char[] xrefTypes;
+
+    /**
+     * Sets executor for parsing of xref sections of documents with several
+     * revisions. Sections are located one after another following Prev
+     * entries of trailers and then entries of sections are parsed on given
+     * executor, each worker reads independent stream of the same source.
+     *
+     * @param executor is executor for parsing of xref sections, or null if
+     *                 sections should be parsed in the calling thread.
+     */
+    public static synchronized void setXRefExecutor(ExecutorService executor) {
+        xrefExecutor = executor;
+    }
+
+    private static synchronized ExecutorService getXRefExecutor() {
+        return xrefExecutor;
+    }
+
     public PDFParser(final String filename) throws IOException {
         super(filename);
     }
@@ -73,6 +108,10 @@ public class PDFParser extends COSParser {
         super(document, fileStream);
     }
 
+    public PDFParser(final COSDocument document, final SeekableInputStream seekableInputStream) throws IOException {
+        super(document, seekableInputStream);
+    }
+
     public COSHeader getHeader() throws IOException {
         return parseHeader();
     }
@@ -81,6 +120,14 @@ public class PDFParser extends COSParser {
         return this.source;
     }
 
+    /**
+     * @return offset of header in source, objects offsets in xref are counted
+     * from it. Valid after header is parsed.
+     */
+    long getHeaderOffset() {
+        return this.offsetShift;
+    }
+
     private COSHeader parseHeader() throws IOException {
         COSHeader result = new COSHeader();
 
@@ -158,9 +205,9 @@ public class PDFParser extends COSParser {
 
             if (linDict != null && !linDict.empty() && linDict.getType() == COSObjType.COS_DICT) {
                 if (linDict.knownKey(ASAtom.LINEARIZED).booleanValue()) {
-                    long length = linDict.getIntegerKey(ASAtom.L).longValue();
-                    if (length != 0) {
-                        return length == this.source.getStreamLength() && this.source.getOffset() < LINEARIZATION_DICTIONARY_LOOKUP_SIZE;
+                    Long length = linDict.getIntegerKey(ASAtom.L);
+                    if (length != null && length.longValue() != 0) {
+                        return length.longValue() == this.source.getStreamLength() && this.source.getOffset() < LINEARIZATION_DICTIONARY_LOOKUP_SIZE;
                     }
                 }
             }
@@ -220,6 +267,49 @@ public class PDFParser extends COSParser {
         this.getXRefInfo(infos, Long.valueOf(0L));
     }
 
+    /**
+     * Reads xref section of the first page of linearized document, which
+     * follows linearization dictionary. Only the beginning of source up to the
+     * end of this section is read, so it can be used before the rest of
+     * document is available.
+     *
+     * @param infos is list to put xref section into.
+     * @return linearization dictionary or null if document is not linearized,
+     * in this case no section is added.
+     */
+    public COSObject getFirstPageXRefInfo(List<COSXRefInfo> infos) throws IOException {
+        COSObject linDict = findFirstDictionary();
+        if (linDict == null || linDict.empty() || linDict.getType() != COSObjType.COS_DICT ||
+                !linDict.knownKey(ASAtom.LINEARIZED).booleanValue()) {
+            return null;
+        }
+        skipSpaces();
+        long offset = source.getOffset();
+        clear();
+        COSXRefInfo section = new COSXRefInfo();
+        section.setStartXRef(offset);
+        Long lastTrailer = this.lastTrailerOffset;
+        getXRefSectionAndTrailer(section);
+        // section of the first page is not the last one in updated document
+        this.lastTrailerOffset = lastTrailer;
+        infos.add(section);
+        return linDict;
+    }
+
+    /**
+     * Reads xref sections starting from given offset and following Prev
+     * entries of their trailers. Used to read the rest of xref after
+     * {@link #getFirstPageXRefInfo(List)}.
+     *
+     * @param infos is list to put xref sections into, older sections first.
+     * @param offset is offset of the first section to read as written in
+     *               trailer.
+     */
+    public void getPreviousXRefInfo(List<COSXRefInfo> infos, long offset) throws IOException {
+        calculatePostEOFDataSize();
+        this.getXRefInfo(infos, Long.valueOf(offset));
+    }
+
     public COSObject getObject(final long offset) throws IOException {
         clear();
 
@@ -417,8 +507,10 @@ public class PDFParser extends COSParser {
         }
         if (this.getToken().type != Token.Type.TT_INTEGER) { // Parsing usual xref table
             parseXrefTable(section.getXRefSection());
+            section.setTrailerOffset(this.source.getOffset());
             getTrailer(section.getTrailer());
         } else {
+            section.setTrailerOffset(XRefIndex.XREF_STREAM_TRAILER);
             parseXrefStream(section);
         }
     }
@@ -450,23 +542,115 @@ public class PDFParser extends COSParser {
             int number = (int) getToken().integer;
             nextToken();
             int count = (int) getToken().integer;
-            COSXRefEntry xref;
-            for (int i = 0; i < count; ++i) {
-                xref = new COSXRefEntry();
+            parseXrefSubsection(xrefs, number, count);
+            nextToken();
+        }
+        this.source.seekFromCurrentPosition(-7);
+    }
+
+    /**
+     * Reads entries of xref subsection in blocks and decodes rows of the form
+     * "nnnnnnnnnn ggggg n" arithmetically. Rows that don't have this form are
+     * parsed by tokenizer, after that block decoding is resumed.
+     */
+    private void parseXrefSubsection(final COSXRefSection xrefs, final int number,
+                                     final int count) throws IOException {
+        if (count <= 0) {
+            return;
+        }
+        if (this.xrefBlock == null) {
+            this.xrefBlock = new byte[XREF_ROWS_IN_BLOCK * XREF_ROW_LENGTH];
+            this.xrefOffsets = new long[XREF_ROWS_IN_BLOCK];
+            this.xrefGenerations = new int[XREF_ROWS_IN_BLOCK];
+            this.xrefTypes = new char[XREF_ROWS_IN_BLOCK];
+        }
+        long position = this.source.getOffset();
+        int parsed = 0;
+        while (parsed < count) {
+            int rows = Math.min(count - parsed, XREF_ROWS_IN_BLOCK);
+            int read = Math.max(this.source.read(this.xrefBlock, rows * XREF_ROW_LENGTH), 0);
+            int end = 0;
+            int decoded = 0;
+            int next = 0;
+            while (decoded < rows) {
+                next = decodeXrefRow(end, read, decoded);
+                if (next < 0) {
+                    break;
+                }
+                end = next;
+                decoded++;
+            }
+            xrefs.addEntries(number + parsed, decoded, this.xrefOffsets,
+                    this.xrefGenerations, this.xrefTypes);
+            parsed += decoded;
+            position += end;
+            this.source.seek(position);
+            if (decoded < rows && (next == XREF_ROW_MALFORMED || decoded == 0)) {
+                // malformed or truncated row is parsed by tokenizer
+                COSXRefEntry xref = new COSXRefEntry();
                 nextToken();
                 xref.offset = getToken().integer;
                 nextToken();
                 xref.generation = (int) getToken().integer;
                 nextToken();
-                xref.free = getToken().getValue().charAt(0);
-                xrefs.addEntry(number + i, xref);
+                xref.free = (char) (getToken().byteAt(0) & 0xFF);
+                xrefs.addEntry(number + parsed, xref);
+                parsed++;
+                position = this.source.getOffset();
             }
-            nextToken();
         }
-        this.source.seekFromCurrentPosition(-7);
+    }
+
+    /**
+     * Decodes xref row that starts after white-spaces at given position of
+     * xref block.
+     *
+     * @return position after decoded row, XREF_ROW_MALFORMED if row can't be
+     * decoded with fixed width or XREF_ROW_INCOMPLETE if it is not read fully.
+     */
+    private int decodeXrefRow(int position, final int end, final int row) {
+        byte[] block = this.xrefBlock;
+        while (position < end && CharTable.isSpace(block[position])) {
+            position++;
+        }
+        // row is followed by at least one white-space character
+        if (position + XREF_ROW_LENGTH - 1 > end) {
+            return XREF_ROW_INCOMPLETE;
+        }
+        long offset = 0;
+        for (int i = position; i < position + 10; ++i) {
+            int digit = block[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return XREF_ROW_MALFORMED;
+            }
+            offset = offset * 10 + digit;
+        }
+        int generation = 0;
+        for (int i = position + 11; i < position + 16; ++i) {
+            int digit = block[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return XREF_ROW_MALFORMED;
+            }
+            generation = generation * 10 + digit;
+        }
+        byte type = block[position + 17];
+        if (block[position + 10] != CharTable.ASCII_SPACE || block[position + 16] != CharTable.ASCII_SPACE ||
+                (type != 'n' && type != 'f') || !CharTable.isSpace(block[position + 18])) {
+            return XREF_ROW_MALFORMED;
+        }
+        this.xrefOffsets[row] = offset;
+        this.xrefGenerations[row] = generation;
+        this.xrefTypes[row] = (char) type;
+        return position + XREF_ROW_LENGTH - 1;
     }
 
     private void parseXrefStream(final COSXRefInfo section) throws IOException {
+        XrefStreamParser xrefStreamParser = new XrefStreamParser(section, getXRefStream());
+        xrefStreamParser.parseStreamAndTrailer();
+        checkEncryption(section.getTrailer());
+    }
+
+    private COSStream getXRefStream() throws IOException {
         nextToken();
         if(this.getToken().type != Token.Type.TT_INTEGER) {
             throw new IOException("PDFParser::GetXRefSection(...)" + StringExceptions.CAN_NOT_LOCATE_XREF_TABLE);
@@ -480,15 +664,24 @@ public class PDFParser extends COSParser {
         if(!(xrefCOSStream.getType() == COSObjType.COS_STREAM)) {
             throw new IOException("PDFParser::GetXRefSection(...)" + StringExceptions.CAN_NOT_LOCATE_XREF_TABLE);
         }
-        XrefStreamParser xrefStreamParser = new XrefStreamParser(section, (COSStream) xrefCOSStream.getDirectBase());
-        xrefStreamParser.parseStreamAndTrailer();
-        if (section.getTrailer().knownKey(ASAtom.ENCRYPT)) {
+        return (COSStream) xrefCOSStream.getDirectBase();
+    }
+
+    private void checkEncryption(final COSTrailer trailer) {
+        if (trailer.knownKey(ASAtom.ENCRYPT)) {
             this.isEncrypted = true;
-            this.encryption = section.getTrailer().getEncrypt();
-            this.id = section.getTrailer().getID();
+            this.encryption = trailer.getEncrypt();
+            this.id = trailer.getID();
         }
     }
 
+	/**
+	 * Reads xref sections starting from given offset and following Prev
+	 * entries of their trailers. At first all sections are located and their
+	 * trailers are read, Prev entry that points to already visited section is
+	 * ignored. Then entries of sections are parsed, in parallel if executor
+	 * for xref parsing is set.
+	 */
 	private void getXRefInfo(final List<COSXRefInfo> info, Long offset) throws IOException {
 		if (offset.longValue() == 0) {
 			offset = findLastXRef();
@@ -497,28 +690,223 @@ public class PDFParser extends COSParser {
 			}
 		}
 
-		clear();
+		List<COSXRefInfo> sections = new ArrayList<>();
+		List<COSStream> xrefStreams = new ArrayList<>();
+		Set<Long> visited = new HashSet<>();
+		while (offset != null && offset.longValue() != 0) {
+			//for files with junk before header
+			if (offsetShift > 0) {
+				offset += offsetShift;
+			}
+			if (!visited.add(offset)) {
+				LOGGER.log(Level.WARNING, "Prev entry of xref trailer points to already parsed xref section at offset " + offset);
+				break;
+			}
 
-        //for files with junk before header
-        if (offsetShift > 0) {
-            offset += offsetShift;
-        }
+			clear();
+			//we will skip eol marker in any case
+			source.seek(offset.longValue() - 1);
 
-        //we will skip eol marker in any case
-        source.seek(offset.intValue() - 1);
+			COSXRefInfo section = new COSXRefInfo();
+			section.setStartXRef(offset.longValue());
+			xrefStreams.add(getTrailerOfSection(section));
+			sections.add(section);
 
-		COSXRefInfo section = new COSXRefInfo();
-		info.add(0, section);
+			offset = section.getTrailer().getPrev();
+		}
 
-		section.setStartXRef(offset.longValue());
-        getXRefSectionAndTrailer(section);
+		parseXRefSections(sections, xrefStreams);
+		for (COSXRefInfo section : sections) {
+			info.add(0, section);
+		}
+	}
+
+	/**
+	 * Reads trailer of xref section that starts at current position without
+	 * parsing of xref entries. Subsections of xref table are skipped using
+	 * their headers, if table doesn't have fixed width rows trailer keyword is
+	 * searched for.
+	 *
+	 * @return xref stream if section is xref stream, null if it is xref table.
+	 */
+	private COSStream getTrailerOfSection(final COSXRefInfo section) throws IOException {
+		if (this.lastTrailerOffset == 0) {
+			this.lastTrailerOffset = this.source.getOffset();
+		}
+		nextToken();
+		if ((getToken().type != Token.Type.TT_KEYWORD ||
+				getToken().keyword != Token.Keyword.KW_XREF) &&
+				(getToken().type != Token.Type.TT_INTEGER)) {
+			throw new IOException("PDFParser::GetXRefSection(...)" + StringExceptions.CAN_NOT_LOCATE_XREF_TABLE);
+		}
+		if (this.getToken().type == Token.Type.TT_INTEGER) {
+			section.setTrailerOffset(XRefIndex.XREF_STREAM_TRAILER);
+			COSStream xrefStream = getXRefStream();
+			XrefStreamParser.setTrailer(section.getTrailer(), xrefStream);
+			checkEncryption(section.getTrailer());
+			return xrefStream;
+		}
+		long tableStart = this.source.getOffset();
+		if (!skipXrefSubsections()) {
+			this.source.seek(tableStart);
+			if (!findKeyword(Token.Keyword.KW_TRAILER)) {
+				section.setTrailerOffset(this.source.getOffset());
+				return null;
+			}
+		}
+		// trailer keyword is read, it is parsed again with trailer dictionary
+		long trailerOffset = this.source.getOffset() - 7;
+		section.setTrailerOffset(trailerOffset);
+		this.source.seek(trailerOffset);
+		getTrailer(section.getTrailer());
+		return null;
+	}
+
+	/**
+	 * Skips rows of xref subsections assuming that each row is 20 bytes long.
+	 *
+	 * @return true if trailer keyword is reached after last subsection.
+	 */
+	private boolean skipXrefSubsections() throws IOException {
+		nextToken();
+		while (getToken().type == Token.Type.TT_INTEGER) {
+			nextToken();
+			long count = getToken().integer;
+			if (getToken().type != Token.Type.TT_INTEGER || count < 0) {
+				return false;
+			}
+			skipSpaces();
+			long end = this.source.getOffset() + count * XREF_ROW_LENGTH;
+			if (count > 0) {
+				if (end > this.source.getStreamLength()) {
+					return false;
+				}
+				this.source.seek(end - 1);
+				if (!isNextByteEOL()) {
+					return false;
+				}
+			}
+			this.source.seek(end);
+			nextToken();
+		}
+		return getToken().type == Token.Type.TT_KEYWORD && getToken().keyword == Token.Keyword.KW_TRAILER;
+	}
+
+	/**
+	 * Parses entries of located xref sections. If executor for xref parsing is
+	 * set and source supports independent streams, sections are distributed
+	 * between workers and this parser, otherwise they are parsed one by one.
+	 */
+	private void parseXRefSections(final List<COSXRefInfo> sections,
+								   final List<COSStream> xrefStreams) throws IOException {
+		new TaskDistributor<PDFParser>(sections.size()) {
+			@Override
+			protected PDFParser createWorker() throws IOException {
+				SeekableInputStream stream = source.getIndependentStream();
+				return stream == null ? null : new PDFParser(document, stream);
+			}
+
+			@Override
+			protected void runTask(PDFParser parser, int task) throws IOException {
+				// data of xref stream is read through source of this parser,
+				// so workers read the stream object again from their sources
+				COSStream xrefStream = parser == PDFParser.this ? xrefStreams.get(task) : null;
+				parser.parseXRefSection(sections.get(task), xrefStream);
+			}
 
-        offset = section.getTrailer().getPrev();
-		if (offset == null || offset.longValue() == 0) {
-			return;
+			@Override
+			protected void closeWorker(PDFParser parser) throws IOException {
+				parser.getPDFSource().close();
+			}
+		}.run(this, sections.size() > 1 ? getXRefExecutor() : null);
+	}
+
+	private void parseXRefSection(final COSXRefInfo section, final COSStream xrefStream) throws IOException {
+		if (xrefStream != null) {
+			new XrefStreamParser(section, xrefStream).parseStream();
+		} else if (section.getTrailerOffset() == XRefIndex.XREF_STREAM_TRAILER) {
+			clear();
+			this.source.seek(section.getStartXRef() - 1);
+			nextToken();
+			new XrefStreamParser(section, getXRefStream()).parseStream();
+		} else {
+			clear();
+			this.source.seek(section.getStartXRef() - 1);
+			nextToken();
+			parseXrefTable(section.getXRefSection());
 		}
+	}
 
-		getXRefInfo(info, offset);
+	/**
+	 * Restores xref sections from shared xref index. Only trailers are parsed,
+	 * offsets of objects are taken from index, and document properties found
+	 * during xref parsing are copied from index.
+	 *
+	 * @param infos is list to put xref sections into.
+	 * @param index is xref index obtained for the same file.
+	 */
+	public void getXRefInfo(final List<COSXRefInfo> infos, final XRefIndex index) throws IOException {
+		document.setPostEOFDataSize(index.getPostEOFDataSize());
+		document.setXrefEOLMarkersComplyPDFA(index.isXrefEOLMarkersComplyPDFA());
+		document.setSubsectionHeaderSpaceSeparated(index.isSubsectionHeaderSpaceSeparated());
+		this.lastTrailerOffset = index.getLastTrailerOffset();
+		for (int i = 0; i < index.getSectionsNumber(); ++i) {
+			clear();
+			COSXRefInfo section = new COSXRefInfo();
+			section.setStartXRef(index.getStartXRef(i));
+			section.setTrailerOffset(index.getTrailerOffset(i));
+			if (section.getTrailerOffset() == XRefIndex.XREF_STREAM_TRAILER) {
+				source.seek(section.getStartXRef() - 1);
+				nextToken();
+				XrefStreamParser.setTrailer(section.getTrailer(), getXRefStream());
+				checkEncryption(section.getTrailer());
+			} else {
+				source.seek(section.getTrailerOffset());
+				getTrailer(section.getTrailer());
+			}
+			infos.add(section);
+		}
+	}
+
+	/**
+	 * Reconstructs xref of damaged document by scanning of the whole source,
+	 * used when xref can't be read from startxref and Prev entries. Objects
+	 * are taken from found object headers and xref streams, trailer is merged
+	 * from all found trailers.
+	 *
+	 * @param infos is list to put reconstructed xref sections into.
+	 */
+	public void reconstructXRefInfo(final List<COSXRefInfo> infos) throws IOException {
+		this.lastTrailerOffset = 0L;
+		this.isEncrypted = false;
+		this.encryption = null;
+		this.id = null;
+		List<COSXRefInfo> sections = new XRefReconstructor(this).reconstruct(getXRefExecutor());
+		checkEncryption(sections.get(sections.size() - 1).getTrailer());
+		infos.addAll(sections);
+	}
+
+	/**
+	 * Parses xref stream object with given offset, including its trailer.
+	 */
+	COSXRefInfo getXRefStreamSection(final long offset) throws IOException {
+		clear();
+		this.source.seek(offset);
+		nextToken();
+		COSXRefInfo section = new COSXRefInfo();
+		section.setStartXRef(offset);
+		section.setTrailerOffset(XRefIndex.XREF_STREAM_TRAILER);
+		new XrefStreamParser(section, getXRefStream()).parseStreamAndTrailer();
+		return section;
+	}
+
+	/**
+	 * Parses trailer dictionary which keyword is located at given offset.
+	 */
+	void getTrailer(final long offset, final COSTrailer trailer) throws IOException {
+		clear();
+		this.source.seek(offset);
+		getTrailer(trailer);
 	}
 
 	private void getTrailer(final COSTrailer trailer) throws IOException {
@@ -527,11 +915,7 @@ public class PDFParser extends COSParser {
 			trailer.setObject(obj);
 		}
 
-		if (trailer.knownKey(ASAtom.ENCRYPT)) {
-		    this.isEncrypted = true;
-            this.encryption = trailer.getEncrypt();
-            this.id = trailer.getID();
-		}
+		checkEncryption(trailer);
 	}
 
     public boolean isEncrypted() {
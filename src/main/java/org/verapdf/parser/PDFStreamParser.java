@@ -29,6 +29,7 @@ import org.verapdf.operator.Operator;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -44,6 +45,8 @@ public class PDFStreamParser extends COSParser {
 
 	private final List<Object> tokens = new ArrayList<>();
 	private List<Closeable> imageDataStreams = new ArrayList<>();
+	//maximum possible length of an operator is 3 and we'll leave some space for invalid cases
+	private byte[] operatorBuffer = new byte[8];
 
 	public PDFStreamParser(ASInputStream stream) throws IOException {
 		super(stream);
@@ -156,24 +159,28 @@ public class PDFStreamParser extends COSParser {
 				break;
 			case 'n': {
 				// null
-				String nullString = readUntilDelimiter();
-				if (nullString.equals("null")) {
+				readRawUntilDelimiter();
+				Token token = getToken();
+				token.toKeyword();
+				if (token.keyword == Token.Keyword.KW_NULL) {
 					result = new COSObject(COSNull.NULL);
 				} else {
-					result = Operator.getOperator(nullString);
+					result = Operator.getOperator(token.getRawValue(), token.getLength());
 				}
 				break;
 			}
 			case 't':
 			case 'f': {
-				String line = readUntilDelimiter();
-				if (line.equals("true")) {
+				readRawUntilDelimiter();
+				Token token = getToken();
+				token.toKeyword();
+				if (token.keyword == Token.Keyword.KW_TRUE) {
 					result = new COSObject(COSBoolean.TRUE);
 					break;
-				} else if (line.equals("false")) {
+				} else if (token.keyword == Token.Keyword.KW_FALSE) {
 					result = new COSObject(COSBoolean.FALSE);
 				} else {
-					result = Operator.getOperator(line);
+					result = Operator.getOperator(token.getRawValue(), token.getLength());
 				}
 				break;
 			}
@@ -202,7 +209,7 @@ public class PDFStreamParser extends COSParser {
 			case 'B': {
 				Token token = getToken();
 				nextToken();
-				result = Operator.getOperator(token.getValue());
+				result = Operator.getOperator(token.getRawValue(), token.getLength());
 				if (result instanceof InlineImageOperator) {
 					InlineImageOperator imageOperator = (InlineImageOperator) result;
 					COSDictionary imageParameters = (COSDictionary) COSDictionary.construct().get();
@@ -255,12 +262,12 @@ public class PDFStreamParser extends COSParser {
 				break;
 			}
 			default: {
-				String operator = nextOperator();
-				if (operator.length() == 0) {
+				int length = readOperator();
+				if (length == 0) {
 					//stream is corrupted
 					result = null;
 				} else {
-					result = Operator.getOperator(operator);
+					result = Operator.getOperator(this.operatorBuffer, length);
 				}
 			}
 		}
@@ -268,30 +275,52 @@ public class PDFStreamParser extends COSParser {
 	}
 
 	protected String nextOperator() throws IOException {
+		int length = readOperator();
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; ++i) {
+			builder.append((char) this.operatorBuffer[i]);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Reads operator bytes into operator buffer.
+	 *
+	 * @return length of operator.
+	 */
+	private int readOperator() throws IOException {
 		skipSpaces();
 
-		//maximum possible length of an operator is 3 and we'll leave some space for invalid cases
-		StringBuffer buffer = new StringBuffer(5);
+		int length = 0;
+		long streamLength = source.getStreamLength();
 		byte nextByte = (byte) source.peek();
-		while (source.getOffset() < source.getStreamLength() && // EOF
+		while (source.getOffset() < streamLength && // EOF
 				!CharTable.isSpace(nextByte) && nextByte != ']' &&
 				nextByte != '[' && nextByte != '<' &&
 				nextByte != '(' && nextByte != '/' &&
 				(nextByte < '0' || nextByte > '9'))	{
 			byte currentByte = source.readByte();
-			buffer.append((char) currentByte);
+			length = appendToOperator(length, currentByte);
 
-			if (source.getOffset() < source.getStreamLength()) {
+			if (source.getOffset() < streamLength) {
 				// d0 and d1 operators
 				nextByte = (byte) source.peek();
 				if (currentByte == 'd' && (nextByte == '0' || nextByte == '1')) {
-					buffer.append((char) source.readByte());
+					length = appendToOperator(length, source.readByte());
 					nextByte = (byte) source.peek();
 				}
 			}
 		}
 
-		return buffer.toString();
+		return length;
+	}
+
+	private int appendToOperator(int length, byte b) {
+		if (length == this.operatorBuffer.length) {
+			this.operatorBuffer = Arrays.copyOf(this.operatorBuffer, length << 1);
+		}
+		this.operatorBuffer[length] = b;
+		return length + 1;
 	}
 
 	public List<Closeable> getImageDataStreams() {
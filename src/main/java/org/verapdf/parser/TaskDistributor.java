@@ -0,0 +1,174 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distributes numbered tasks between calling thread and workers running on
+ * executor. Each worker takes next task that is not taken yet, so long tasks
+ * don't delay the rest. Worker states, e.g. independent streams of source,
+ * are created and closed in calling thread, tasks of one worker are run
+ * sequentially with its state.
+ *
+ * @param <W> is type of worker state.
+ */
+abstract class TaskDistributor<W> {
+
+    private final int tasksNumber;
+    private final AtomicInteger nextTask = new AtomicInteger();
+
+    /**
+     * @param tasksNumber is number of tasks, tasks are numbered from 0.
+     */
+    TaskDistributor(int tasksNumber) {
+        this.tasksNumber = tasksNumber;
+    }
+
+    /**
+     * Creates state of worker that runs on executor.
+     *
+     * @return state of worker or null if no more workers can be created.
+     */
+    protected abstract W createWorker() throws IOException;
+
+    /**
+     * Runs task with given number.
+     *
+     * @param worker is state of worker that runs task.
+     * @param task   is number of task.
+     */
+    protected abstract void runTask(W worker, int task) throws IOException;
+
+    /**
+     * Releases state of worker created with {@link #createWorker()}.
+     */
+    protected abstract void closeWorker(W worker) throws IOException;
+
+    /**
+     * Runs all tasks. If executor is null all tasks are run in calling
+     * thread, otherwise up to one worker less than number of available
+     * processors is started on executor. Method returns after all started
+     * tasks are finished.
+     *
+     * @param callerWorker is state used by calling thread.
+     * @param executor     is executor for workers, or null.
+     * @throws IOException if any task fails, the first exception is thrown.
+     */
+    void run(W callerWorker, ExecutorService executor) throws IOException {
+        List<Worker> workers = new ArrayList<>();
+        IOException exception = null;
+        try {
+            if (executor != null) {
+                int workersNumber = Math.min(this.tasksNumber, Runtime.getRuntime().availableProcessors()) - 1;
+                for (int i = 0; i < workersNumber; ++i) {
+                    W state = createWorker();
+                    if (state == null) {
+                        break;
+                    }
+                    Worker worker = new Worker(state);
+                    workers.add(worker);
+                    worker.future = executor.submit(worker);
+                }
+            }
+            runTasks(callerWorker);
+        } catch (IOException e) {
+            exception = e;
+            // stops workers that are still running
+            this.nextTask.set(this.tasksNumber);
+        } finally {
+            for (Worker worker : workers) {
+                exception = finish(worker, exception);
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private void runTasks(W worker) throws IOException {
+        int task;
+        while ((task = this.nextTask.getAndIncrement()) < this.tasksNumber) {
+            runTask(worker, task);
+        }
+    }
+
+    private IOException finish(Worker worker, IOException exception) {
+        // worker that has not started yet is not required
+        if (worker.started.compareAndSet(false, true)) {
+            if (worker.future != null) {
+                worker.future.cancel(false);
+            }
+        } else {
+            try {
+                worker.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (exception == null) {
+                    exception = new IOException("Waiting for worker is interrupted", e);
+                }
+            } catch (ExecutionException e) {
+                if (exception == null) {
+                    exception = e.getCause() instanceof IOException ? (IOException) e.getCause() :
+                            new IOException("Worker failed", e.getCause());
+                }
+            }
+        }
+        try {
+            closeWorker(worker.state);
+        } catch (IOException e) {
+            if (exception == null) {
+                exception = e;
+            }
+        }
+        return exception;
+    }
+
+    /**
+     * Worker is either started by executor or claimed by calling thread after
+     * all tasks are taken, in the last case it does nothing.
+     */
+    private class Worker implements Callable<Void> {
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final W state;
+        private Future<Void> future;
+
+        private Worker(W state) {
+            this.state = state;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            if (this.started.compareAndSet(false, true)) {
+                runTasks(this.state);
+            }
+            return null;
+        }
+    }
+}
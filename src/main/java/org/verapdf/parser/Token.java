@@ -20,8 +20,7 @@
  */
 package org.verapdf.parser;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * @author Timur Kamalov
@@ -34,7 +33,12 @@ public class Token {
 	public long integer;
 	public double real;
 
-	private StringBuilder token = new StringBuilder();
+	private static final int INITIAL_CAPACITY = 64;
+
+	// raw bytes of token value. Buffer is reused between tokens, String and
+	// byte[] representations are created only on request
+	private byte[] token = new byte[INITIAL_CAPACITY];
+	private int length = 0;
 
 	//fields specific for pdf/a validation of strings
 	private boolean containsOnlyHex = true;
@@ -42,27 +46,65 @@ public class Token {
 
 	public void toKeyword() {
 		this.type = Type.TT_KEYWORD;
-		this.keyword = getKeyword(token.toString());
+		this.keyword = getKeyword(this.token, this.length);
+	}
+
+	public void append(byte b) {
+		if (this.length == this.token.length) {
+			this.token = Arrays.copyOf(this.token, this.length << 1);
+		}
+		this.token[this.length++] = b;
+	}
+
+	public void append(int c) {
+		append((byte) c);
 	}
 
 	public void append(char c) {
-		this.token.append(c);
+		append((byte) c);
 	}
 
 	public String getValue() {
-		return new String(getByteValue());
+		return new String(this.token, 0, this.length);
 	}
 
 	public byte[] getByteValue() {
-		byte[] res = new byte[this.token.length()];
-		for (int i = 0; i < token.length(); i++) {
-			res[i] = (byte) token.charAt(i);
+		return Arrays.copyOf(this.token, this.length);
+	}
+
+	/**
+	 * Gets internal buffer of token value without copying. Buffer is valid
+	 * only until next token is read and only first {@link #getLength()}
+	 * bytes of it belong to token value.
+	 *
+	 * @return buffer with token value starting at offset 0.
+	 */
+	public byte[] getRawValue() {
+		return this.token;
+	}
+
+	/**
+	 * @return number of bytes in token value.
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Gets byte of token value without creation of String or byte array.
+	 *
+	 * @param index is index of byte in token value.
+	 * @return byte with given index.
+	 */
+	public byte byteAt(int index) {
+		if (index < 0 || index >= this.length) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of token value of length " + this.length);
 		}
-		return res;
+		return this.token[index];
 	}
 
 	public void clearValue() {
-		this.token.setLength(0);
+		this.length = 0;
 	}
 
 	public enum Type {
@@ -97,27 +139,98 @@ public class Token {
 		KW_TRAILER
 	}
 
-	private static final Map<String, Keyword> keywords = new HashMap<>();
+	private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+	private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+	private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+	private static final byte[] STREAM = {'s', 't', 'r', 'e', 'a', 'm'};
+	private static final byte[] ENDSTREAM = {'e', 'n', 'd', 's', 't', 'r', 'e', 'a', 'm'};
+	private static final byte[] OBJ = {'o', 'b', 'j'};
+	private static final byte[] ENDOBJ = {'e', 'n', 'd', 'o', 'b', 'j'};
+	private static final byte[] XREF = {'x', 'r', 'e', 'f'};
+	private static final byte[] STARTXREF = {'s', 't', 'a', 'r', 't', 'x', 'r', 'e', 'f'};
+	private static final byte[] TRAILER = {'t', 'r', 'a', 'i', 'l', 'e', 'r'};
+
+	public static Keyword getKeyword(final String keyword) {
+		if (keyword == null) {
+			return Keyword.KW_NONE;
+		}
+		char[] chars = keyword.toCharArray();
+		byte[] value = new byte[chars.length];
+		for (int i = 0; i < chars.length; ++i) {
+			if (chars[i] > 0x7F) {
+				return null;
+			}
+			value[i] = (byte) chars[i];
+		}
+		return getKeyword(value, value.length);
+	}
 
-	static {
-		keywords.put("null", Keyword.KW_NULL);
-		keywords.put("true", Keyword.KW_TRUE);
-		keywords.put("false", Keyword.KW_FALSE);
-		keywords.put("stream", Keyword.KW_STREAM);
-		keywords.put("endstream", Keyword.KW_ENDSTREAM);
-		keywords.put("obj", Keyword.KW_OBJ );
-		keywords.put("endobj", Keyword.KW_ENDOBJ);
-		keywords.put("R", Keyword.KW_R );
-		keywords.put("n", Keyword.KW_N);
-		keywords.put("f", Keyword.KW_F);
-		keywords.put("xref", Keyword.KW_XREF);
-		keywords.put("startxref", Keyword.KW_STARTXREF);
-		keywords.put("trailer", Keyword.KW_TRAILER);
-		keywords.put(null, Keyword.KW_NONE);
+	/**
+	 * Classifies keyword by its length and first byte, so no String is
+	 * created for token.
+	 *
+	 * @return keyword or null if value is not a known keyword.
+	 */
+	private static Keyword getKeyword(final byte[] value, final int length) {
+		switch (length) {
+			case 1:
+				switch (value[0]) {
+					case 'R':
+						return Keyword.KW_R;
+					case 'n':
+						return Keyword.KW_N;
+					case 'f':
+						return Keyword.KW_F;
+					default:
+						return null;
+				}
+			case 3:
+				return matches(value, OBJ) ? Keyword.KW_OBJ : null;
+			case 4:
+				switch (value[0]) {
+					case 'n':
+						return matches(value, NULL) ? Keyword.KW_NULL : null;
+					case 't':
+						return matches(value, TRUE) ? Keyword.KW_TRUE : null;
+					case 'x':
+						return matches(value, XREF) ? Keyword.KW_XREF : null;
+					default:
+						return null;
+				}
+			case 5:
+				return matches(value, FALSE) ? Keyword.KW_FALSE : null;
+			case 6:
+				switch (value[0]) {
+					case 's':
+						return matches(value, STREAM) ? Keyword.KW_STREAM : null;
+					case 'e':
+						return matches(value, ENDOBJ) ? Keyword.KW_ENDOBJ : null;
+					default:
+						return null;
+				}
+			case 7:
+				return matches(value, TRAILER) ? Keyword.KW_TRAILER : null;
+			case 9:
+				switch (value[0]) {
+					case 'e':
+						return matches(value, ENDSTREAM) ? Keyword.KW_ENDSTREAM : null;
+					case 's':
+						return matches(value, STARTXREF) ? Keyword.KW_STARTXREF : null;
+					default:
+						return null;
+				}
+			default:
+				return null;
+		}
 	}
 
-	public static Keyword getKeyword(final String keyword) {
-		return keywords.get(keyword);
+	private static boolean matches(final byte[] value, final byte[] keyword) {
+		for (int i = 1; i < keyword.length; ++i) {
+			if (value[i] != keyword[i]) {
+				return false;
+			}
+		}
+		return value[0] == keyword[0];
 	}
 
 	//GETTERS & SETTERS
@@ -22,6 +22,7 @@ package org.verapdf.parser;
 
 import org.verapdf.cos.COSKey;
 import org.verapdf.cos.COSTrailer;
+import org.verapdf.cos.xref.COSXRefEntries;
 import org.verapdf.cos.xref.COSXRefInfo;
 import org.verapdf.io.COSXRefTableReader;
 import org.verapdf.io.IReader;
@@ -79,6 +80,15 @@ public abstract class XRefReader implements IReader {
 		this.xref.set(info);
 	}
 
+	protected void setXRefInfo(final List<COSXRefInfo> infos, final COSXRefEntries offsets) {
+		this.xref.set(infos);
+		this.xref.setOffsets(offsets);
+	}
+
+	protected COSXRefEntries getOffsets() {
+		return this.xref.getOffsets();
+	}
+
 	@Override
 	public Long getOffset(final COSKey key) {
 		return this.xref.getOffset(key);
@@ -0,0 +1,456 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.verapdf.as.CharTable;
+import org.verapdf.cos.COSIndirect;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSTrailer;
+import org.verapdf.cos.xref.COSXRefInfo;
+import org.verapdf.cos.xref.COSXRefSection;
+import org.verapdf.io.SeekableInputStream;
+import org.verapdf.io.XRefIndex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reconstructs xref of document which xref can't be read. Source is split
+ * into chunks that are scanned in parallel for object headers "N G obj" and
+ * for trailer keywords, xref stream and catalog names. Found objects are put
+ * into new xref section, object with the greatest offset wins for each
+ * number. Xref streams found in document are parsed too, so objects from
+ * object streams can be obtained, and trailer is merged from all found
+ * trailers and xref stream dictionaries.
+ */
+final class XRefReconstructor {
+
+    private static final Logger LOGGER = Logger.getLogger(XRefReconstructor.class.getCanonicalName());
+
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    // bytes before and after chunk that are read to check marker found in chunk
+    private static final int LOOK_BEHIND = 32;
+    private static final int LOOK_AHEAD = 16;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] OBJ = "obj".getBytes();
+    private static final byte[] TRAILER = "trailer".getBytes();
+    private static final byte[] XREF_NAME = "/XRef".getBytes();
+    private static final byte[] CATALOG_NAME = "/Catalog".getBytes();
+
+    private final PDFParser parser;
+    private final long length;
+    private final ChunkResult[] chunks;
+
+    XRefReconstructor(PDFParser parser) throws IOException {
+        this.parser = parser;
+        this.length = parser.getPDFSource().getStreamLength();
+        this.chunks = new ChunkResult[(int) ((this.length + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+    }
+
+    /**
+     * Scans source and builds xref sections.
+     *
+     * @param executor is executor for scanning of chunks, or null if source
+     *                 should be scanned in calling thread.
+     * @return xref sections, the last one contains found objects and merged
+     * trailer.
+     */
+    List<COSXRefInfo> reconstruct(ExecutorService executor) throws IOException {
+        scan(executor);
+
+        ChunkResult found = new ChunkResult();
+        for (ChunkResult chunk : this.chunks) {
+            found.append(chunk);
+        }
+        LOGGER.log(Level.FINE, "Xref reconstruction found " + found.headers.size + " object headers");
+
+        List<COSXRefInfo> infos = new ArrayList<>();
+        List<Long> trailerOffsets = new ArrayList<>();
+        List<COSTrailer> trailers = new ArrayList<>();
+        int trailerIndex = 0;
+        long previousXRefStream = -1;
+        for (int i = 0; i < found.xrefStreams.size; ++i) {
+            long offset = found.headers.getEnclosingOffset(found.xrefStreams.get(i));
+            if (offset < 0 || offset == previousXRefStream) {
+                continue;
+            }
+            previousXRefStream = offset;
+            // trailers are kept in order of offsets
+            while (trailerIndex < found.trailers.size && found.trailers.get(trailerIndex) < offset) {
+                addTrailer(found.trailers.get(trailerIndex++), trailerOffsets, trailers);
+            }
+            try {
+                COSXRefInfo info = this.parser.getXRefStreamSection(offset);
+                infos.add(info);
+                trailerOffsets.add(offset);
+                trailers.add(info.getTrailer());
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Can't parse xref stream at offset " + offset, e);
+            }
+        }
+        while (trailerIndex < found.trailers.size) {
+            addTrailer(found.trailers.get(trailerIndex++), trailerOffsets, trailers);
+        }
+
+        if (found.headers.size == 0) {
+            throw new IOException("Xref reconstruction found no object headers");
+        }
+        COSXRefInfo section = new COSXRefInfo();
+        int greatestNumber = fillSection(section.getXRefSection(), found.headers,
+                Math.max(0, this.parser.getHeaderOffset()));
+        mergeTrailers(section.getTrailer(), trailers);
+        if (section.getTrailer().getRoot().empty()) {
+            setCatalog(section.getTrailer(), found);
+        }
+        if (section.getTrailer().getRoot().empty()) {
+            throw new IOException("Xref reconstruction found no document catalog");
+        }
+        section.getTrailer().setSize(Long.valueOf(greatestNumber + 1));
+        section.setStartXRef(trailerOffsets.isEmpty() ? 0 : trailerOffsets.get(trailerOffsets.size() - 1));
+        section.setTrailerOffset(XRefIndex.XREF_STREAM_TRAILER);
+        infos.add(section);
+        return infos;
+    }
+
+    private void scan(ExecutorService executor) throws IOException {
+        new TaskDistributor<Scanner>(this.chunks.length) {
+            @Override
+            protected Scanner createWorker() throws IOException {
+                SeekableInputStream stream = parser.getPDFSource().getIndependentStream();
+                return stream == null ? null : new Scanner(stream);
+            }
+
+            @Override
+            protected void runTask(Scanner scanner, int task) throws IOException {
+                chunks[task] = scanner.scan((long) task * CHUNK_SIZE);
+            }
+
+            @Override
+            protected void closeWorker(Scanner scanner) throws IOException {
+                scanner.stream.close();
+            }
+        }.run(new Scanner(this.parser.getPDFSource()), this.chunks.length > 1 ? executor : null);
+    }
+
+    private void addTrailer(long offset, List<Long> trailerOffsets, List<COSTrailer> trailers) {
+        try {
+            COSTrailer trailer = new COSTrailer();
+            this.parser.getTrailer(offset, trailer);
+            trailerOffsets.add(offset);
+            trailers.add(trailer);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can't parse trailer at offset " + offset, e);
+        }
+    }
+
+    /**
+     * Puts found objects into section. Headers are sorted by object number
+     * keeping order of offsets, so the last header of each number wins.
+     * Offsets in section are counted from PDF header like offsets in xref
+     * tables of document.
+     *
+     * @param headerOffset is offset of PDF header in source.
+     * @return the greatest object number.
+     */
+    private static int fillSection(COSXRefSection section, Headers headers, long headerOffset) {
+        long[] order = new long[headers.size];
+        for (int i = 0; i < headers.size; ++i) {
+            order[i] = ((long) headers.numbers[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        int greatestNumber = 0;
+        for (int i = 0; i < order.length; ++i) {
+            int number = (int) (order[i] >>> 32);
+            if (i + 1 < order.length && (int) (order[i + 1] >>> 32) == number) {
+                continue;
+            }
+            int index = (int) order[i];
+            long offset = headers.offsets[index] - headerOffset;
+            // objects before header can't be addressed by xref offsets
+            if (offset <= 0) {
+                continue;
+            }
+            section.add(number, offset, headers.generations[index], 'n');
+            greatestNumber = number;
+        }
+        return greatestNumber;
+    }
+
+    /**
+     * Merges trailers in order of their offsets, values of later trailers
+     * replace values of earlier ones.
+     */
+    private static void mergeTrailers(COSTrailer result, List<COSTrailer> trailers) {
+        for (COSTrailer trailer : trailers) {
+            if (!trailer.getRoot().empty()) {
+                result.setRoot(trailer.getRoot());
+            }
+            if (!trailer.getInfo().empty()) {
+                result.setInfo(trailer.getInfo());
+            }
+            if (!trailer.getEncrypt().empty()) {
+                result.setEncrypt(trailer.getEncrypt());
+            }
+            if (!trailer.getID().empty()) {
+                result.setID(trailer.getID());
+            }
+        }
+    }
+
+    private void setCatalog(COSTrailer trailer, ChunkResult found) {
+        for (int i = found.catalogs.size - 1; i >= 0; --i) {
+            int header = found.headers.getEnclosingHeader(found.catalogs.get(i));
+            if (header >= 0) {
+                COSKey key = new COSKey(found.headers.numbers[header], found.headers.generations[header]);
+                trailer.setRoot(COSIndirect.construct(key, this.parser.getDocument()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Scans chunks of source with one stream.
+     */
+    private final class Scanner {
+        private final SeekableInputStream stream;
+        private final byte[] buffer = new byte[(int) Math.min(length, LOOK_BEHIND + CHUNK_SIZE + LOOK_AHEAD)];
+        private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+        private Scanner(SeekableInputStream stream) {
+            this.stream = stream;
+        }
+
+        /**
+         * Scans chunk that starts at given offset. Bytes around chunk are read
+         * too, but only markers that start inside chunk are taken.
+         */
+        private ChunkResult scan(long chunkStart) throws IOException {
+            long start = Math.max(0, chunkStart - LOOK_BEHIND);
+            long chunkEnd = Math.min(length, chunkStart + CHUNK_SIZE);
+            int size = read(start, (int) (Math.min(length, chunkEnd + LOOK_AHEAD) - start));
+            byte[] buffer = this.buffer;
+            int from = (int) (chunkStart - start);
+            int to = (int) Math.min(size, chunkEnd - start);
+            ChunkResult result = new ChunkResult();
+            for (int i = from; i < to; ++i) {
+                switch (buffer[i]) {
+                    case 'o':
+                        if (matches(buffer, i, size, OBJ)) {
+                            addHeader(result.headers, buffer, i, start);
+                        }
+                        break;
+                    case 't':
+                        if (matches(buffer, i, size, TRAILER) && (i == 0 || isTokenDelimiter(buffer[i - 1]))) {
+                            result.trailers.add(start + i);
+                        }
+                        break;
+                    case '/':
+                        if (matches(buffer, i, size, XREF_NAME)) {
+                            result.xrefStreams.add(start + i);
+                        } else if (matches(buffer, i, size, CATALOG_NAME)) {
+                            result.catalogs.add(start + i);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return result;
+        }
+
+        private int read(long offset, int size) throws IOException {
+            this.stream.seek(offset);
+            int read = 0;
+            while (read < size) {
+                int count = this.stream.read(this.readBuffer, Math.min(READ_BUFFER_SIZE, size - read));
+                if (count <= 0) {
+                    break;
+                }
+                System.arraycopy(this.readBuffer, 0, this.buffer, read, count);
+                read += count;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Checks that given keyword starts at given position and is followed by
+     * delimiter or end of data.
+     */
+    private static boolean matches(byte[] buffer, int position, int end, byte[] keyword) {
+        if (position + keyword.length > end) {
+            return false;
+        }
+        for (int i = 1; i < keyword.length; ++i) {
+            if (buffer[position + i] != keyword[i]) {
+                return false;
+            }
+        }
+        int next = position + keyword.length;
+        return next == end || isTokenDelimiter(buffer[next]);
+    }
+
+    /**
+     * Parses "N G" before obj keyword that starts at given position.
+     */
+    private static void addHeader(Headers headers, byte[] buffer, int position, long bufferOffset) {
+        int i = position - 1;
+        if (i < 0 || !isSpace(buffer[i])) {
+            return;
+        }
+        while (i >= 0 && isSpace(buffer[i])) {
+            i--;
+        }
+        int generationEnd = i + 1;
+        while (i >= 0 && isDigit(buffer[i])) {
+            i--;
+        }
+        int generationStart = i + 1;
+        if (generationStart == generationEnd || generationEnd - generationStart > 5 || i < 0 || !isSpace(buffer[i])) {
+            return;
+        }
+        while (i >= 0 && isSpace(buffer[i])) {
+            i--;
+        }
+        int numberEnd = i + 1;
+        while (i >= 0 && isDigit(buffer[i])) {
+            i--;
+        }
+        int numberStart = i + 1;
+        if (numberStart == numberEnd || numberEnd - numberStart > 10) {
+            return;
+        }
+        // beginning of number should be known
+        if (i < 0 ? bufferOffset != 0 : !isTokenDelimiter(buffer[i])) {
+            return;
+        }
+        long number = parseNumber(buffer, numberStart, numberEnd);
+        if (number > Integer.MAX_VALUE) {
+            return;
+        }
+        headers.add(bufferOffset + numberStart, (int) number,
+                (int) parseNumber(buffer, generationStart, generationEnd));
+    }
+
+    private static long parseNumber(byte[] buffer, int start, int end) {
+        long res = 0;
+        for (int i = start; i < end; ++i) {
+            res = res * 10 + buffer[i] - '0';
+        }
+        return res;
+    }
+
+    private static boolean isSpace(byte b) {
+        return CharTable.isSpace(b & 0xFF);
+    }
+
+    private static boolean isTokenDelimiter(byte b) {
+        return CharTable.isTokenDelimiter(b & 0xFF);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Markers found in one chunk, or in the whole source after merging.
+     */
+    private static final class ChunkResult {
+        private final Headers headers = new Headers();
+        private final Offsets trailers = new Offsets();
+        private final Offsets xrefStreams = new Offsets();
+        private final Offsets catalogs = new Offsets();
+
+        private void append(ChunkResult other) {
+            for (int i = 0; i < other.headers.size; ++i) {
+                this.headers.add(other.headers.offsets[i], other.headers.numbers[i],
+                        other.headers.generations[i]);
+            }
+            this.trailers.append(other.trailers);
+            this.xrefStreams.append(other.xrefStreams);
+            this.catalogs.append(other.catalogs);
+        }
+    }
+
+    /**
+     * Object headers in order of offsets.
+     */
+    private static final class Headers {
+        private long[] offsets = new long[16];
+        private int[] numbers = new int[16];
+        private int[] generations = new int[16];
+        private int size;
+
+        private void add(long offset, int number, int generation) {
+            if (this.size == this.offsets.length) {
+                this.offsets = Arrays.copyOf(this.offsets, this.size << 1);
+                this.numbers = Arrays.copyOf(this.numbers, this.size << 1);
+                this.generations = Arrays.copyOf(this.generations, this.size << 1);
+            }
+            this.offsets[this.size] = offset;
+            this.numbers[this.size] = number;
+            this.generations[this.size] = generation;
+            this.size++;
+        }
+
+        /**
+         * @return index of the last header before given offset, or -1.
+         */
+        private int getEnclosingHeader(long offset) {
+            int index = Arrays.binarySearch(this.offsets, 0, this.size, offset);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        private long getEnclosingOffset(long offset) {
+            int index = getEnclosingHeader(offset);
+            return index >= 0 ? this.offsets[index] : -1;
+        }
+    }
+
+    private static final class Offsets {
+        private long[] values = new long[4];
+        private int size;
+
+        private void add(long value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size << 1);
+            }
+            this.values[this.size++] = value;
+        }
+
+        private void append(Offsets other) {
+            for (int i = 0; i < other.size; ++i) {
+                add(other.values[i]);
+            }
+        }
+
+        private long get(int index) {
+            return this.values[index];
+        }
+    }
+}
@@ -24,13 +24,11 @@ import org.verapdf.as.ASAtom;
 import org.verapdf.as.filters.io.ASBufferingInFilter;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.cos.*;
-import org.verapdf.cos.xref.COSXRefEntry;
 import org.verapdf.cos.xref.COSXRefInfo;
+import org.verapdf.cos.xref.COSXRefSection;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * This class parses xref stream to obtain xref entries with object numbers,
@@ -40,10 +38,16 @@ import java.util.List;
  */
 class XrefStreamParser {
 
+    private static final int INITIAL_DATA_SIZE = 64 * 1024;
+
     private COSArray index;
     private ASInputStream xrefInputStream;
-    private COSArray fieldSizes;
-    private List<Long> objIDs;
+    private int[] fieldSizes;
+    private int[] firstIDs;
+    private int[] subsectionLengths;
+    private long entriesNumber;
+    private byte[] data;
+    private int dataLength;
     private COSXRefInfo section;
     private COSStream xrefCOSStream;
 
@@ -65,19 +69,41 @@ class XrefStreamParser {
      * @throws IOException
      */
     void parseStreamAndTrailer() throws IOException {
+        parseStream();
+        setTrailer();
+    }
 
+    /**
+     * Parses xref entries of xref stream without filling trailer.
+     *
+     * @throws IOException
+     */
+    void parseStream() throws IOException {
         try {
             xrefInputStream = xrefCOSStream.getData(COSStream.FilterFlags.DECODE);
-            fieldSizes = (COSArray) xrefCOSStream.getKey(ASAtom.W).getDirectBase();
-            if (fieldSizes.size() != 3) {
-                throw new IOException("W array in xref should have 3 elements.");
-            }
+            initializeFieldSizes();
             initializeIndex();
             initializeObjIDs();
-            parseStream();
-            setTrailer();
+            readData();
+            parseEntries();
         } finally {
-            xrefInputStream.close();
+            if (xrefInputStream != null) {
+                xrefInputStream.close();
+            }
+        }
+    }
+
+    private void initializeFieldSizes() throws IOException {
+        COSArray w = (COSArray) xrefCOSStream.getKey(ASAtom.W).getDirectBase();
+        if (w.size() != 3) {
+            throw new IOException("W array in xref should have 3 elements.");
+        }
+        fieldSizes = new int[3];
+        for (int i = 0; i < 3; ++i) {
+            fieldSizes[i] = w.at(i).getInteger().intValue();
+            if (fieldSizes[i] < 0) {
+                throw new IOException("W array in xref contains negative field size.");
+            }
         }
     }
 
@@ -101,88 +127,122 @@ class XrefStreamParser {
     }
 
     /**
-     * This method calculates object ID for all objects, described in this xref
-     * stream using Index array.
+     * This method obtains first object ID and number of objects for all
+     * subsections, described in this xref stream using Index array.
      */
     private void initializeObjIDs() {
-        objIDs = new ArrayList<>();
-        for (int i = 0; i < index.size() / 2; ++i) {
+        int subsections = index.size() / 2;
+        firstIDs = new int[subsections];
+        subsectionLengths = new int[subsections];
+        entriesNumber = 0;
+        for (int i = 0; i < subsections; ++i) {
             COSInteger firstID = (COSInteger) index.at(2 * i).getDirectBase();
             COSInteger lengthOfSubsection = (COSInteger) index.at(2 * i + 1).getDirectBase();
-            for (int j = 0; j < lengthOfSubsection.get(); ++j) {
-                objIDs.add(firstID.get() + j);
-            }
+            firstIDs[i] = (int) firstID.get();
+            subsectionLengths[i] = (int) Math.max(0, lengthOfSubsection.get());
+            entriesNumber += subsectionLengths[i];
         }
     }
 
     /**
-     * This method does low-level parsing of xref stream.
-     *
-     * @throws IOException
+     * Reads decoded xref stream into one contiguous buffer. Not more than
+     * amount of bytes described by Index and W arrays is read.
      */
-    private void parseStream() throws IOException {
-        byte[] field0 = new byte[fieldSizes.at(0).getInteger().intValue()];
-        byte[] field1 = new byte[fieldSizes.at(1).getInteger().intValue()];
-        byte[] field2 = new byte[fieldSizes.at(2).getInteger().intValue()];
-        byte[] buffer;
-        byte[] remainedBytes = new byte[0];
-        int objIdIndex = 0;
-
-        while (true) {
-            buffer = new byte[ASBufferingInFilter.BF_BUFFER_SIZE];
-            long read = xrefInputStream.read(buffer, ASBufferingInFilter.BF_BUFFER_SIZE);
+    private void readData() throws IOException {
+        long expectedLength = entriesNumber * getEntryLength();
+        int capacity = (int) Math.min(expectedLength, INITIAL_DATA_SIZE);
+        data = new byte[capacity];
+        dataLength = 0;
+        byte[] chunk = new byte[(int) Math.min(expectedLength, ASBufferingInFilter.BF_BUFFER_SIZE)];
+        while (dataLength < expectedLength) {
+            if (dataLength == data.length) {
+                long newCapacity = Math.min(expectedLength, 2L * data.length);
+                if (newCapacity > Integer.MAX_VALUE - 8) {
+                    throw new IOException("Xref stream is too long.");
+                }
+                data = Arrays.copyOf(data, (int) newCapacity);
+            }
+            int read = xrefInputStream.read(chunk, Math.min(chunk.length, data.length - dataLength));
             if (read == -1) {
                 break;
             }
-            buffer = ASBufferingInFilter.concatenate(remainedBytes, remainedBytes.length,
-                    buffer, (int) read);
-
-            int pointer = 0;
-            COSXRefEntry xref;
-            for (; objIdIndex < objIDs.size(); ++objIdIndex) {
-                if(pointer + field0.length + field1.length + field2.length >
-                        buffer.length) {
-                    remainedBytes = Arrays.copyOfRange(buffer, pointer, (int) read);
-                    break;
+            System.arraycopy(chunk, 0, data, dataLength, read);
+            dataLength += read;
+        }
+    }
+
+    private int getEntryLength() {
+        return fieldSizes[0] + fieldSizes[1] + fieldSizes[2];
+    }
+
+    /**
+     * This method does low-level parsing of xref stream. Entries are decoded
+     * from buffer by loops specialized for common field sizes and are put
+     * directly into xref section.
+     *
+     * @throws IOException
+     */
+    private void parseEntries() throws IOException {
+        int entryLength = getEntryLength();
+        long entries = entryLength == 0 ? entriesNumber :
+                Math.min(entriesNumber, dataLength / entryLength);
+        COSXRefSection xrefSection = section.getXRefSection();
+        byte[] buffer = data;
+        int pointer = 0;
+        long parsed = 0;
+        for (int i = 0; i < firstIDs.length && parsed < entries; ++i) {
+            int id = firstIDs[i];
+            int count = (int) Math.min(subsectionLengths[i], entries - parsed);
+            int end = id + count;
+            if (fieldSizes[0] == 1 && fieldSizes[1] == 2 && fieldSizes[2] == 1) {
+                for (; id < end; ++id, pointer += 4) {
+                    addEntry(xrefSection, id, buffer[pointer] & 0xFF,
+                            ((buffer[pointer + 1] & 0xFF) << 8) | (buffer[pointer + 2] & 0xFF),
+                            buffer[pointer + 3] & 0xFF, true);
+                }
+            } else if (fieldSizes[0] == 1 && fieldSizes[1] == 3 && fieldSizes[2] == 1) {
+                for (; id < end; ++id, pointer += 5) {
+                    addEntry(xrefSection, id, buffer[pointer] & 0xFF,
+                            ((buffer[pointer + 1] & 0xFF) << 16) | ((buffer[pointer + 2] & 0xFF) << 8) |
+                                    (buffer[pointer + 3] & 0xFF),
+                            buffer[pointer + 4] & 0xFF, true);
                 }
-                Long id = objIDs.get(objIdIndex);
-                System.arraycopy(buffer, pointer, field0, 0, field0.length);
-                pointer += field0.length;
-                System.arraycopy(buffer, pointer, field1, 0, field1.length);
-                pointer += field1.length;
-                System.arraycopy(buffer, pointer, field2, 0, field2.length);
-                pointer += field2.length;
-                int type = 1;   // Default value for type
-                if (field0.length > 0) {
-                    type = (int) numberFromBytes(field0);
+            } else if (fieldSizes[0] == 1 && fieldSizes[1] == 4 && fieldSizes[2] == 2) {
+                for (; id < end; ++id, pointer += 7) {
+                    addEntry(xrefSection, id, buffer[pointer] & 0xFF,
+                            ((buffer[pointer + 1] & 0xFFL) << 24) | ((buffer[pointer + 2] & 0xFF) << 16) |
+                                    ((buffer[pointer + 3] & 0xFF) << 8) | (buffer[pointer + 4] & 0xFF),
+                            ((buffer[pointer + 5] & 0xFF) << 8) | (buffer[pointer + 6] & 0xFF), true);
                 }
-                switch (type) {
-                    case 0:
-                        break;
-                    case 1:
-                        xref = new COSXRefEntry();
-                        xref.offset = numberFromBytes(field1);
-                        if (field2.length > 0) {
-                            xref.generation = (int) numberFromBytes(field2);
-                        } else {
-                            xref.generation = 0;
-                        }
-                        section.getXRefSection().add(new COSKey(id.intValue(),
-                                xref.generation), xref.offset);
-                        break;
-                    case 2:
-                        xref = new COSXRefEntry();
-                        xref.offset = -numberFromBytes(field1);
-                        if (field2.length > 0) {
-                            xref.generation = 0;
-                        }
-                        section.getXRefSection().add(new COSKey(id.intValue(),
-                                xref.generation), xref.offset);
-                        break;
-                    default:
-                        throw new IOException("Error in parsing xref stream");
+            } else {
+                for (; id < end; ++id) {
+                    // default value for type is 1
+                    int type = fieldSizes[0] > 0 ? (int) numberFromBytes(buffer, pointer, fieldSizes[0]) : 1;
+                    pointer += fieldSizes[0];
+                    long field1 = numberFromBytes(buffer, pointer, fieldSizes[1]);
+                    pointer += fieldSizes[1];
+                    long field2 = numberFromBytes(buffer, pointer, fieldSizes[2]);
+                    pointer += fieldSizes[2];
+                    addEntry(xrefSection, id, type, field1, field2, fieldSizes[2] > 0);
                 }
             }
+            parsed += count;
+        }
+    }
+
+    private static void addEntry(COSXRefSection xrefSection, int id, int type, long field1,
+                                 long field2, boolean hasField2) throws IOException {
+        switch (type) {
+            case 0:
+                break;
+            case 1:
+                xrefSection.add(id, field1, hasField2 ? (int) field2 : 0, 'n');
+                break;
+            case 2:
+                xrefSection.addCompressed(id, (int) field1, hasField2 ? (int) field2 : -1);
+                break;
+            default:
+                throw new IOException("Error in parsing xref stream");
         }
     }
 
@@ -191,7 +251,17 @@ class XrefStreamParser {
      * section.
      */
     private void setTrailer() {
-        COSTrailer trailer = section.getTrailer();
+        setTrailer(section.getTrailer(), xrefCOSStream);
+    }
+
+    /**
+     * Puts all necessary information from xref stream dictionary into
+     * trailer.
+     *
+     * @param trailer       is trailer to fill.
+     * @param xrefCOSStream is xref stream.
+     */
+    static void setTrailer(COSTrailer trailer, COSStream xrefCOSStream) {
         if (xrefCOSStream.getKey(ASAtom.SIZE).get() != null) {
             trailer.setSize(((COSInteger) xrefCOSStream.getKey(ASAtom.SIZE).get()).get());
         }
@@ -214,15 +284,17 @@ class XrefStreamParser {
 
     /**
      * This is a helper method for low-level parsing, it converts number
-     * represented with array of bytes into long.
+     * represented with bytes of buffer into long.
      *
-     * @param num is byte array to be converted.
+     * @param buffer is buffer with bytes to be converted.
+     * @param offset is offset of number in buffer.
+     * @param length is amount of bytes in number.
      * @return long obtained from given bytes.
      */
-    private long numberFromBytes(byte[] num) {
+    private static long numberFromBytes(byte[] buffer, int offset, int length) {
         long res = 0;
-        for (int i = 0; i < num.length; ++i) {
-            res += (num[i] & 0x00FF) << ((num.length - i - 1) * 8);
+        for (int i = offset; i < offset + length; ++i) {
+            res = (res << 8) | (buffer[i] & 0x00FF);
         }
         return res;
     }
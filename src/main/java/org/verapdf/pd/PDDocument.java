@@ -26,12 +26,16 @@ import org.verapdf.cos.COSIndirect;
 import org.verapdf.cos.COSObject;
 import org.verapdf.cos.visitor.IndirectWriter;
 import org.verapdf.cos.visitor.Writer;
+import org.verapdf.io.ByteBufferInputStream;
 import org.verapdf.io.SeekableInputStream;
+import org.verapdf.io.SharedFileSource;
 import org.verapdf.pd.form.PDAcroForm;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -58,11 +62,84 @@ public class PDDocument {
 		this.document = new COSDocument(filename, this);
 	}
 
+	/**
+	 * Opens document from file, file data is accessed in a given way.
+	 *
+	 * @param filename is name of pdf file.
+	 * @param mode     is way in which file data is accessed.
+	 */
+	public PDDocument(final String filename,
+					  final SeekableInputStream.FileAccessMode mode) throws IOException {
+		this.catalog = new PDCatalog();
+		this.document = new COSDocument(filename, this, mode);
+	}
+
 	public PDDocument(final InputStream fileStream) throws IOException {
 		this.catalog = new PDCatalog();
 		this.document = new COSDocument(fileStream, this);
 	}
 
+	/**
+	 * Opens document from file that can be opened by several documents at
+	 * once. All such documents share one memory mapping of file, and xref of
+	 * file is parsed only once.
+	 *
+	 * @param source is shared source of pdf file, it is closed together with
+	 *               this document.
+	 */
+	public PDDocument(final SharedFileSource source) throws IOException {
+		this.catalog = new PDCatalog();
+		this.document = new COSDocument(source, this);
+	}
+
+	/**
+	 * Opens document from data in byte buffer. Data between buffer position
+	 * and limit is used without copying, so buffer content should not be
+	 * changed until document is closed.
+	 *
+	 * @param buffer is buffer with pdf data, can be direct.
+	 */
+	public PDDocument(final ByteBuffer buffer) throws IOException {
+		this.catalog = new PDCatalog();
+		this.document = new COSDocument(new ByteBufferInputStream(buffer), this);
+	}
+
+	/**
+	 * Opens document from part of byte array. Array is used without copying.
+	 *
+	 * @param data   is array with pdf data.
+	 * @param offset is offset of pdf data in array.
+	 * @param length is length of pdf data.
+	 */
+	public PDDocument(final byte[] data, final int offset, final int length) throws IOException {
+		this(ByteBuffer.wrap(data, offset, length));
+	}
+
+	/**
+	 * Opens document from file with given path. File is mapped into memory.
+	 *
+	 * @param path is path of pdf file.
+	 */
+	public PDDocument(final Path path) throws IOException {
+		this.catalog = new PDCatalog();
+		this.document = new COSDocument(ByteBufferInputStream.map(path), this);
+	}
+
+	/**
+	 * Opens document from seekable stream. In progressive mode catalog and the
+	 * first page of linearized document can be obtained as soon as the first
+	 * page section of source is available, e.g. when document is received
+	 * into {@link org.verapdf.io.GrowingInputStream}. Other objects are read
+	 * when the rest of source arrives.
+	 *
+	 * @param source      is stream with pdf data.
+	 * @param progressive is true if progressive mode should be used.
+	 */
+	public PDDocument(final SeekableInputStream source, final boolean progressive) throws IOException {
+		this.catalog = new PDCatalog();
+		this.document = new COSDocument(source, this, progressive);
+	}
+
 	private void constructDocument() throws IOException {
 		document = new COSDocument(this);
 		document.setHeader(PDF_HEADER_DEFAULT);
@@ -76,12 +153,76 @@ public class PDDocument {
 		document = new COSDocument(filename, this);
 	}
 
+	public void open(final String filename,
+					 final SeekableInputStream.FileAccessMode mode) throws IOException {
+		this.close();
+
+		document = new COSDocument(filename, this, mode);
+	}
+
 	public void open(final InputStream inputStream) throws IOException {
 		this.close();
 
 		document = new COSDocument(inputStream, this);
 	}
 
+	/**
+	 * Opens document from shared file source.
+	 *
+	 * @param source is shared source of pdf file, it is closed together with
+	 *               this document.
+	 */
+	public void open(final SharedFileSource source) throws IOException {
+		this.close();
+
+		document = new COSDocument(source, this);
+	}
+
+	/**
+	 * Opens document from data in byte buffer without copying.
+	 *
+	 * @param buffer is buffer with pdf data, can be direct.
+	 */
+	public void open(final ByteBuffer buffer) throws IOException {
+		this.close();
+
+		document = new COSDocument(new ByteBufferInputStream(buffer), this);
+	}
+
+	/**
+	 * Opens document from part of byte array without copying.
+	 *
+	 * @param data   is array with pdf data.
+	 * @param offset is offset of pdf data in array.
+	 * @param length is length of pdf data.
+	 */
+	public void open(final byte[] data, final int offset, final int length) throws IOException {
+		open(ByteBuffer.wrap(data, offset, length));
+	}
+
+	/**
+	 * Opens document from file with given path. File is mapped into memory.
+	 *
+	 * @param path is path of pdf file.
+	 */
+	public void open(final Path path) throws IOException {
+		this.close();
+
+		document = new COSDocument(ByteBufferInputStream.map(path), this);
+	}
+
+	/**
+	 * Opens document from seekable stream, possibly in progressive mode.
+	 *
+	 * @param source      is stream with pdf data.
+	 * @param progressive is true if progressive mode should be used.
+	 */
+	public void open(final SeekableInputStream source, final boolean progressive) throws IOException {
+		this.close();
+
+		document = new COSDocument(source, this, progressive);
+	}
+
 	public void close() {
 		if (document != null) {
 			try {
@@ -150,6 +291,22 @@ public class PDDocument {
 		return pages;
 	}
 
+	/**
+	 * Gets the first page of document. For progressively opened linearized
+	 * document page is found with linearization dictionary without reading
+	 * of page tree, so other pages need not be available. Page objects of
+	 * linearized documents contain all inheritable attributes explicitly.
+	 *
+	 * @return the first page of document.
+	 */
+	public PDPage getFirstPage() throws IOException {
+		COSObject page = document == null ? null : document.getFirstPageObject();
+		if (page != null) {
+			return new PDPage(page);
+		}
+		return getPage(0);
+	}
+
 	public PDPage getPage(final int number) throws IOException {
 		return this.getCatalog().getPageTree().getPage(number);
 	}
@@ -224,4 +381,13 @@ public class PDDocument {
 	public SeekableInputStream getPDFSource() {
 		return this.document.getPDFSource();
 	}
+
+	/**
+	 * @return true if xref of document could not be read and objects were
+	 * found by scanning of the whole document, so they can differ from
+	 * objects that other readers show.
+	 */
+	public boolean isXRefReconstructed() {
+		return this.document != null && this.document.isXRefReconstructed();
+	}
 }
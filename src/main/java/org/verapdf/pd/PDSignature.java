@@ -39,7 +39,10 @@ public class PDSignature extends PDObject {
 
     /**
      * @return int[] representation of ByteRange entry.
+     * @deprecated offsets in files larger than 2 GB do not fit into int, use
+     * {@link #getLongByteRange()} instead.
      */
+    @Deprecated
     public int[] getByteRange() {
         COSObject cosByteRange = this.getKey(ASAtom.BYTERANGE);
         if (cosByteRange.getType() == COSObjType.COS_ARRAY) {
@@ -55,6 +58,24 @@ public class PDSignature extends PDObject {
         return null;
     }
 
+    /**
+     * @return long[] representation of ByteRange entry.
+     */
+    public long[] getLongByteRange() {
+        COSObject cosByteRange = this.getKey(ASAtom.BYTERANGE);
+        if (cosByteRange.getType() == COSObjType.COS_ARRAY) {
+            COSArray array = (COSArray) cosByteRange.getDirectBase();
+            if (array.size() >= 4) {
+                long[] res = new long[4];
+                for (int i = 0; i < 4; ++i) {
+                    res[i] = array.at(i).getInteger().longValue();
+                }
+                return res;
+            }
+        }
+        return null;
+    }
+
     /**
      * @return array of signature reference dictionaries.
      */
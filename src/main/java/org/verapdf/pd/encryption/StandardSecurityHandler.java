@@ -161,7 +161,8 @@ public class StandardSecurityHandler {
      */
     public void decryptStream(COSStream stream, COSKey key)
             throws IOException, GeneralSecurityException {
-        ASInputStream encStream = stream.getData();
+        // encrypted data is released when stream data is replaced
+        ASInputStream encStream = ASInputStream.createStreamFromStream(stream.getData());
         ASInputStream filter;
         if (isRC4Decryption) {
             filter = new COSFilterRC4DecryptionDefault(encStream, key,
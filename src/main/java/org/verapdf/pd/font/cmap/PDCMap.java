@@ -21,16 +21,15 @@
 package org.verapdf.pd.font.cmap;
 
 import org.verapdf.as.ASAtom;
-import org.verapdf.as.io.ASFileInStream;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.cos.COSDictionary;
 import org.verapdf.cos.COSObjType;
 import org.verapdf.cos.COSObject;
 import org.verapdf.cos.COSStream;
-import org.verapdf.tools.IntReference;
+import org.verapdf.io.RoutingSpillStorage;
+import org.verapdf.io.SpillOutputStream;
 
 import java.io.*;
-import java.net.URL;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -181,34 +180,14 @@ public class PDCMap {
     }
 
     private static ASInputStream loadCMap(String cMapName) {
-        try {
-            File cMapFile;
-            URL res = PDCMap.class.getResource(cMapName);
-            if (res == null) {
+        try (InputStream input = PDCMap.class.getResourceAsStream(cMapName)) {
+            if (input == null) {
                 throw new IOException("CMap " + cMapName + " can't be found.");
             }
-            if (res.toString().startsWith("jar:")) {
-                cMapFile = File.createTempFile("tempfile", ".tmp");
-                InputStream input = PDCMap.class.getResourceAsStream(cMapName);
-                OutputStream out = new FileOutputStream(cMapFile);
-                int read;
-                byte[] bytes = new byte[1024];
-
-                while ((read = input.read(bytes)) != -1) {
-                    out.write(bytes, 0, read);
-                }
-                input.close();
-                out.close();
-                cMapFile.deleteOnExit();
-            } else {
-                cMapFile = new File(res.getFile());
-            }
-            if (!cMapFile.exists()) {
-                throw new IOException("Error: File " + cMapFile + " not found!");
+            try (SpillOutputStream output = RoutingSpillStorage.getDefault().createOutput(-1)) {
+                output.write(input);
+                return output.getInputStream();
             }
-            return new ASFileInStream(
-                    new RandomAccessFile(cMapFile, "r"), 0, cMapFile.length(),
-                    new IntReference(), cMapFile.getAbsolutePath(), true);
         } catch (IOException e) {
             LOGGER.log(Level.FINE, "Error in opening predefined CMap " + cMapName, e);
             return null;
@@ -20,12 +20,12 @@
  */
 package org.verapdf.pd.font.stdmetrics;
 
-import org.verapdf.as.io.ASFileInStream;
 import org.verapdf.as.io.ASInputStream;
-import org.verapdf.tools.IntReference;
+import org.verapdf.io.RoutingSpillStorage;
+import org.verapdf.io.SpillOutputStream;
 
-import java.io.*;
-import java.net.URL;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -61,31 +61,14 @@ public class StandardFontMetricsFactory {
     }
 
     private static ASInputStream load(String fileName) {
-        try {
-            File afmFile;
-            URL res = StandardFontMetrics.class.getResource(fileName);
-            if (res.toString().startsWith("jar:")) {
-                InputStream input = StandardFontMetrics.class.getResourceAsStream(fileName);
-                afmFile = File.createTempFile("tempfile", ".tmp");
-                OutputStream out = new FileOutputStream(afmFile);
-                int read;
-                byte[] bytes = new byte[1024];
-
-                while ((read = input.read(bytes)) != -1) {
-                    out.write(bytes, 0, read);
-                }
-                input.close();
-                out.close();
-                afmFile.deleteOnExit();
-            } else {
-                afmFile = new File(res.getFile());
+        try (InputStream input = StandardFontMetrics.class.getResourceAsStream(fileName)) {
+            if (input == null) {
+                throw new IOException("Error: File " + fileName + " not found!");
             }
-            if (!afmFile.exists()) {
-                throw new IOException("Error: File " + afmFile + " not found!");
+            try (SpillOutputStream output = RoutingSpillStorage.getDefault().createOutput(-1)) {
+                output.write(input);
+                return output.getInputStream();
             }
-            return new ASFileInStream(
-                    new RandomAccessFile(afmFile, "r"), 0, afmFile.length(),
-                    new IntReference(), afmFile.getAbsolutePath(), true);
         } catch (IOException e) {
             LOGGER.log(Level.FINE, "Error in opening predefined font metrics file " + fileName, e);
             return null;
@@ -21,8 +21,11 @@
 package org.verapdf.pd.font.truetype;
 
 
-import java.io.*;
-import java.net.URL;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -40,56 +43,29 @@ public class AdobeGlyphList {
     private static final Map<String, AGLUnicode> MAPPING =
             new HashMap<>();
     private static final String AGL_FILE = "/font/AdobeGlyphList.txt";
+    private static final Charset AGL_CHARSET = Charset.forName("ISO-8859-1");
     private static final AGLUnicode EMPTY = new AGLUnicode(-1);
 
     static {
-        try {
-            File aglFile;
-            boolean isTempFile = false;
-            URL res = AdobeGlyphList.class.getResource(AGL_FILE);
-            if (res.toString().startsWith("jar:")) {
-                try (InputStream input = AdobeGlyphList.class.getResourceAsStream(AGL_FILE)) {
-                    aglFile = File.createTempFile("tempfile", ".tmp");
-                    isTempFile = true;
-                    OutputStream out = new FileOutputStream(aglFile);
-                    int read;
-                    byte[] bytes = new byte[1024];
-
-                    while ((read = input.read(bytes)) != -1) {
-                        out.write(bytes, 0, read);
-                    }
-                    aglFile.deleteOnExit();
-                }
-            } else {
-                aglFile = new File(res.getFile());
-            }
-
-            if (!aglFile.exists()) {
-                throw new IOException("Error: File " + aglFile + " not found!");
+        try (InputStream input = AdobeGlyphList.class.getResourceAsStream(AGL_FILE)) {
+            if (input == null) {
+                throw new IOException("Error: File " + AGL_FILE + " not found!");
             }
-
-            try (RandomAccessFile stream = new RandomAccessFile(aglFile, "r")) {
-                String line;
-                line = stream.readLine();
-                do {
-                    String[] words = line.split(" ");
-                    int symbolCode = Integer.parseInt(words[1], 16);
-                    if (words.length == 2) {
-                        MAPPING.put(words[0], new AGLUnicode(symbolCode));
-                        line = stream.readLine();
-                        continue;
-                    } else {
-                        int[] diacritic = new int[words.length - 2];
-                        for (int i = 0; i < diacritic.length; ++i) {
-                            diacritic[i] = Integer.parseInt(words[i + 2], 16);
-                        }
-                        MAPPING.put(words[0], new AGLUnicode(symbolCode, diacritic));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, AGL_CHARSET));
+            String line = reader.readLine();
+            while (line != null) {
+                String[] words = line.split(" ");
+                int symbolCode = Integer.parseInt(words[1], 16);
+                if (words.length == 2) {
+                    MAPPING.put(words[0], new AGLUnicode(symbolCode));
+                } else {
+                    int[] diacritic = new int[words.length - 2];
+                    for (int i = 0; i < diacritic.length; ++i) {
+                        diacritic[i] = Integer.parseInt(words[i + 2], 16);
                     }
-                    line = stream.readLine();
-                } while (line != null);
-            }
-            if (aglFile != null && isTempFile) {
-                aglFile.delete();
+                    MAPPING.put(words[0], new AGLUnicode(symbolCode, diacritic));
+                }
+                line = reader.readLine();
             }
         } catch (IOException e) {
             LOGGER.log(Level.FINE, "Error in opening Adobe Glyph List file", e);
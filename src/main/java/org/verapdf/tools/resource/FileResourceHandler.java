@@ -20,45 +20,274 @@
  */
 package org.verapdf.tools.resource;
 
+import org.verapdf.as.io.ASFileInStream;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.io.ByteBufferInputStream;
+import org.verapdf.io.InternalInputStream;
+import org.verapdf.io.RoutingSpillStorage;
+import org.verapdf.io.SpillOutputStream;
+import org.verapdf.io.SpillStorage;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
+ * Registry of resources that should be closed together with document.
+ * Resources are identified by reference, so registration and release take
+ * constant time. Handler also counts registered resources: open handles,
+ * file substreams, bytes of in-memory data pinned by them and temporary files
+ * kept alive. Counters reflect resources that were registered and not yet
+ * released through this handler.
+ *
  * @author Sergey Shemyakov
  */
 public class FileResourceHandler implements Closeable {
 
-    private List<Closeable> resources;
+    private static final Logger LOGGER = Logger.getLogger(FileResourceHandler.class.getCanonicalName());
+
+    private final Map<Closeable, ResourceEntry> resources;
+    private final Map<String, Integer> tempFiles;
+    private final Map<Object, Integer> openHandles;
+    private int openSubstreams = 0;
+    private long pinnedBytes = 0;
+    private SpillStorage spillStorage;
 
     public FileResourceHandler() {
-        this.resources = new ArrayList<>();
+        this.resources = new IdentityHashMap<>();
+        this.tempFiles = new HashMap<>();
+        this.openHandles = new IdentityHashMap<>();
     }
 
     public void addResource(ASFileStreamCloser obj) {
         if (obj != null) {
             Closeable resource = obj.getStream();
-            if (resource != null && !resources.contains(resource)) {
-                resources.add(obj);
+            if (resource != null) {
+                register(resource, obj);
             }
         }
     }
 
     public void addResource(Closeable res) {
-        if (res != null && !resources.contains(res)) {
-            resources.add(res);
+        if (res != null) {
+            register(res, res);
+        }
+    }
+
+    /**
+     * Closes given resource and removes it from this handler. Resource can be
+     * either registered resource itself or stream wrapped into registered
+     * {@link ASFileStreamCloser}.
+     *
+     * @param resource is resource to release.
+     * @return true if resource was registered in this handler.
+     */
+    public boolean releaseResource(Closeable resource) throws IOException {
+        if (resource instanceof ASFileStreamCloser) {
+            resource = ((ASFileStreamCloser) resource).getStream();
+        }
+        ResourceEntry entry = unregister(resource);
+        if (entry == null) {
+            return false;
+        }
+        entry.closer.close();
+        return true;
+    }
+
+    /**
+     * Removes given resource from this handler without closing it.
+     *
+     * @param resource is resource to remove.
+     * @return true if resource was registered in this handler.
+     */
+    public boolean removeResource(Closeable resource) {
+        if (resource instanceof ASFileStreamCloser) {
+            resource = ((ASFileStreamCloser) resource).getStream();
+        }
+        return unregister(resource) != null;
+    }
+
+    /**
+     * @return number of resources registered in this handler.
+     */
+    public synchronized int getResourcesCount() {
+        return this.resources.size();
+    }
+
+    /**
+     * @return number of distinct files or other system handles held by
+     * registered resources. File stream and its substreams share one handle.
+     */
+    public synchronized int getOpenHandles() {
+        return this.openHandles.size();
+    }
+
+    /**
+     * @return number of registered substreams of files.
+     */
+    public synchronized int getOpenSubstreams() {
+        return this.openSubstreams;
+    }
+
+    /**
+     * @return number of bytes of in-memory data held by registered resources.
+     * Memory-mapped files are not counted.
+     */
+    public synchronized long getPinnedBytes() {
+        return this.pinnedBytes;
+    }
+
+    /**
+     * @return number of temporary files that are used by registered resources.
+     */
+    public synchronized int getTempFilesAlive() {
+        return this.tempFiles.size();
+    }
+
+    /**
+     * Gets spill storage bound to this handler. Spills are created in default
+     * spill storage, and streams with spilled data are released together with
+     * other resources of this handler.
+     *
+     * @return spill storage that registers its spills in this handler.
+     */
+    public SpillStorage getSpillStorage() {
+        if (this.spillStorage == null) {
+            this.spillStorage = new SpillStorage() {
+                @Override
+                public SpillOutputStream createOutput(long expectedSize) throws IOException {
+                    SpillOutputStream res = RoutingSpillStorage.getDefault().createOutput(expectedSize);
+                    res.setResourceHandler(FileResourceHandler.this);
+                    return res;
+                }
+            };
         }
+        return this.spillStorage;
     }
 
     @Override
     public void close() throws IOException {
-        for (Closeable obj : resources) {
-            obj.close();
+        List<ResourceEntry> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<>(this.resources.values());
+            this.resources.clear();
+            this.tempFiles.clear();
+            this.openHandles.clear();
+            this.openSubstreams = 0;
+            this.pinnedBytes = 0;
+        }
+        IOException exception = null;
+        for (ResourceEntry entry : toClose) {
+            try {
+                entry.closer.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Can't close resource", e);
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
         }
     }
 
     public void addAll(List<Closeable> resources) {
-        this.resources.addAll(resources);
+        for (Closeable resource : resources) {
+            addResource(resource);
+        }
+    }
+
+    private synchronized void register(Closeable resource, Closeable closer) {
+        if (this.resources.containsKey(resource)) {
+            return;
+        }
+        ResourceEntry entry = new ResourceEntry(closer);
+        if (resource instanceof ByteBufferInputStream) {
+            // data of mapped file is kept in page cache, so it is not pinned
+            if (!((ByteBufferInputStream) resource).isMapped()) {
+                try {
+                    entry.pinnedBytes = ((ByteBufferInputStream) resource).getStreamLength();
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Can't obtain length of in-memory stream", e);
+                }
+            }
+        } else if (resource instanceof ASFileInStream) {
+            ASFileInStream substream = (ASFileInStream) resource;
+            entry.handle = substream.getStream();
+            entry.isSubstream = true;
+            if (substream.isTempFile()) {
+                entry.tempFile = substream.getFilePath();
+            }
+        } else if (resource instanceof InternalInputStream) {
+            InternalInputStream fileStream = (InternalInputStream) resource;
+            entry.handle = fileStream.getStream();
+            if (fileStream.isTempFile()) {
+                entry.tempFile = fileStream.getFileName();
+            }
+        } else if (!(resource instanceof ASMemoryInStream)) {
+            entry.handle = resource;
+        }
+        this.resources.put(resource, entry);
+        if (entry.handle != null) {
+            increment(this.openHandles, entry.handle);
+        }
+        if (entry.isSubstream) {
+            this.openSubstreams++;
+        }
+        this.pinnedBytes += entry.pinnedBytes;
+        if (entry.tempFile != null) {
+            increment(this.tempFiles, entry.tempFile);
+        }
+    }
+
+    private synchronized ResourceEntry unregister(Closeable resource) {
+        ResourceEntry entry = this.resources.remove(resource);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.handle != null) {
+            decrement(this.openHandles, entry.handle);
+        }
+        if (entry.isSubstream) {
+            this.openSubstreams--;
+        }
+        this.pinnedBytes -= entry.pinnedBytes;
+        if (entry.tempFile != null) {
+            decrement(this.tempFiles, entry.tempFile);
+        }
+        return entry;
+    }
+
+    private static <K> void increment(Map<K, Integer> users, K key) {
+        Integer count = users.get(key);
+        users.put(key, count == null ? 1 : count + 1);
+    }
+
+    private static <K> void decrement(Map<K, Integer> users, K key) {
+        Integer count = users.get(key);
+        if (count == null || count <= 1) {
+            users.remove(key);
+        } else {
+            users.put(key, count - 1);
+        }
+    }
+
+    private static class ResourceEntry {
+        private final Closeable closer;
+        private Object handle;
+        private boolean isSubstream = false;
+        private long pinnedBytes = 0;
+        private String tempFile;
+
+        private ResourceEntry(Closeable closer) {
+            this.closer = closer;
+        }
     }
 }
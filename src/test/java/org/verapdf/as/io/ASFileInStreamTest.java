@@ -0,0 +1,228 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.as.io;
+
+import org.junit.Test;
+import org.verapdf.io.InternalInputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks reading of file substreams.
+ */
+public class ASFileInStreamTest {
+
+    @Test
+    public void interruptedReadDoesNotCloseFile() throws IOException {
+        File file = createFile(100);
+        InternalInputStream source = new InternalInputStream(file);
+        try {
+            source.seek(5);
+            ASInputStream substream = source.getStream(10, 20);
+            byte[] buffer = new byte[20];
+            Thread.currentThread().interrupt();
+            try {
+                assertEquals(20, substream.read(buffer, 20));
+            } finally {
+                assertTrue(Thread.interrupted());
+            }
+            assertEquals(10, buffer[0]);
+            assertEquals(29, buffer[19]);
+            assertEquals(5, source.getOffset());
+            assertEquals(5, source.read());
+            assertEquals(-1, substream.read());
+            // channel that was closed by interrupt is opened again
+            ASInputStream other = source.getStream(50, 10);
+            assertEquals(50, other.read());
+        } finally {
+            source.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void readIntoByteBuffer() throws IOException {
+        File file = createFile(100);
+        InternalInputStream source = new InternalInputStream(file);
+        try {
+            ASInputStream substream = source.getStream(90, 20);
+            assertEquals(0, substream.read(ByteBuffer.allocate(0)));
+            ByteBuffer buffer = ByteBuffer.allocateDirect(20);
+            assertEquals(10, substream.read(buffer));
+            assertEquals(10, buffer.position());
+            assertEquals(99, buffer.get(9));
+            assertEquals(-1, substream.read(buffer));
+        } finally {
+            source.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void sequentialReadSwitchesToReadAhead() throws IOException {
+        File file = createFile(100);
+        InternalInputStream source = new InternalInputStream(file);
+        ASFileInStream.setReadAhead(1, null);
+        try {
+            ASFileInStream substream = (ASFileInStream) source.getStream(10, 90);
+            byte[] buffer = new byte[4];
+            substream.read(buffer, 4);
+            substream.read(buffer, 4);
+            assertFalse(substream.isReadingAhead());
+            substream.read(buffer, 4);
+            assertTrue(substream.isReadingAhead());
+            assertEquals(18, buffer[0]);
+            assertEquals(22, substream.read());
+        } finally {
+            ASFileInStream.setReadAhead(0, null);
+            source.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void prefetchedBufferIsSwapped() throws IOException {
+        final int[] prefetches = new int[1];
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                prefetches[0]++;
+                command.run();
+            }
+        };
+        checkReadAhead(executor);
+        assertEquals(6, prefetches[0]);
+    }
+
+    @Test
+    public void queuedPrefetchIsReadByCaller() throws IOException {
+        File file = createFile(100);
+        QueueExecutor executor = new QueueExecutor();
+        try (PositionalFileReader reader = new PositionalFileReader(file.getAbsolutePath())) {
+            ReadAheadBuffer buffer = new ReadAheadBuffer(reader, 100, 16, executor);
+            byte[] data = new byte[16];
+            assertEquals(16, buffer.read(0, data, 0, 16));
+            assertEquals(1, executor.tasks.size());
+            // prefetch was not started, so data is read without waiting for it
+            assertEquals(16, buffer.read(16, data, 0, 16));
+            assertEquals(16, data[0]);
+            executor.runAll();
+            assertEquals(16, buffer.read(32, data, 0, 16));
+            assertEquals(32, data[0]);
+            assertEquals(47, data[15]);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void closeWhilePrefetching() throws Exception {
+        File file = createFile(100);
+        QueueExecutor queue = new QueueExecutor();
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        try (PositionalFileReader reader = new PositionalFileReader(file.getAbsolutePath())) {
+            ReadAheadBuffer queued = new ReadAheadBuffer(reader, 100, 16, queue);
+            ReadAheadBuffer running = new ReadAheadBuffer(reader, 100, 16, background);
+            byte[] data = new byte[10];
+            assertEquals(10, queued.read(0, data, 0, 10));
+            assertEquals(10, running.read(0, data, 0, 10));
+            queued.close();
+            running.close();
+            queue.runAll();
+            background.shutdown();
+            assertTrue(background.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            background.shutdownNow();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void rejectedPrefetchFallsBackToRead() throws IOException {
+        checkReadAhead(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+    }
+
+    private static void checkReadAhead(Executor executor) throws IOException {
+        File file = createFile(100);
+        try (PositionalFileReader reader = new PositionalFileReader(file.getAbsolutePath())) {
+            ReadAheadBuffer buffer = new ReadAheadBuffer(reader, 100, 16, executor);
+            byte[] data = new byte[10];
+            for (int pos = 0; pos < 100; pos += 10) {
+                assertEquals(10, buffer.read(pos, data, 0, 10));
+                for (int i = 0; i < 10; ++i) {
+                    assertEquals(pos + i, data[i]);
+                }
+            }
+            assertEquals(0, buffer.read(100, data, 0, 10));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.tasks.add(command);
+        }
+
+        private void runAll() {
+            for (Runnable task : this.tasks) {
+                task.run();
+            }
+            this.tasks.clear();
+        }
+    }
+
+    private static File createFile(int length) throws IOException {
+        File file = File.createTempFile("verapdf_test", ".pdf");
+        file.deleteOnExit();
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            data[i] = (byte) i;
+        }
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(data);
+        }
+        return file;
+    }
+}
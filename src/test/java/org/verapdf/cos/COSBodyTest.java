@@ -0,0 +1,62 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks releasing and pinning of objects loaded from file.
+ */
+public class COSBodyTest {
+
+    @Test
+    public void releasedObjectsAreKeptWhileUsed() {
+        COSBody body = new COSBody(1);
+        COSObject first = COSInteger.construct(1);
+        COSObject second = COSInteger.construct(2);
+        body.setLoaded(new COSKey(1, 0), first);
+        body.setLoaded(new COSKey(2, 0), second);
+
+        assertSame(first.get(), body.get(new COSKey(1, 0)).get());
+        assertSame(second.get(), body.get(new COSKey(2, 0)).get());
+        assertEquals(1, body.getAll().size());
+    }
+
+    @Test
+    public void pinnedObjectsAreNotReleased() {
+        COSBody body = new COSBody(1);
+        COSObject first = COSInteger.construct(1);
+        body.setLoaded(new COSKey(1, 0), first);
+        assertTrue(body.pin(new COSKey(1, 0)));
+        assertFalse(body.pin(new COSKey(3, 0)));
+        body.setLoaded(new COSKey(2, 0), COSInteger.construct(2));
+        body.setLoaded(new COSKey(4, 0), COSInteger.construct(4));
+
+        assertEquals(2, body.getAll().size());
+        assertSame(first, body.get(new COSKey(1, 0)));
+        assertTrue(body.get(new COSKey(5, 0)).empty());
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos;
+
+import org.junit.Test;
+import org.verapdf.io.ObjectStreamsCache;
+import org.verapdf.pd.PDDocument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that objects released by document with limited number of loaded
+ * objects are parsed again on access, and that changed objects are kept.
+ */
+public class COSDocumentTest {
+
+    private static final int OBJECTS = 12;
+    private static final int OBJECT_STREAM = OBJECTS + 1;
+    private static final int COMPRESSED_OBJECTS = 5;
+    private static final int XREF_STREAM = OBJECT_STREAM + COMPRESSED_OBJECTS + 1;
+
+    @Test
+    public void releasedObjectIsParsedAgain() throws Exception {
+        PDDocument document = openDocument();
+        try {
+            COSDocument cosDocument = document.getDocument();
+            WeakReference<COSBase> reference = new WeakReference<>(
+                    cosDocument.getObject(new COSKey(3, 0)).get());
+            loadAll(cosDocument);
+            collect(reference);
+            assertEquals("object 3", cosDocument.getObject(new COSKey(3, 0)).getString());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void releasedCompressedObjectIsNotDecodedAgain() throws Exception {
+        PDDocument document = openDocument();
+        try {
+            COSDocument cosDocument = document.getDocument();
+            int first = OBJECT_STREAM + 1;
+            WeakReference<COSBase> reference = new WeakReference<>(
+                    cosDocument.getObject(new COSKey(first, 0)).get());
+            // sequential access parses the rest of object stream and releases its data
+            loadAll(cosDocument);
+            ObjectStreamsCache cache = cosDocument.getObjectStreamsCache();
+            long misses = cache.getMisses();
+            for (int i = first; i < XREF_STREAM; ++i) {
+                assertEquals("compressed " + i, cosDocument.getObject(new COSKey(i, 0)).getString());
+            }
+            assertEquals(misses, cache.getMisses());
+            // parsed copy is kept by object stream
+            System.gc();
+            assertNotNull(reference.get());
+            assertSame(reference.get(), cosDocument.getObject(new COSKey(first, 0)).get());
+            assertEquals(0, cache.getRedecodes());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void usedObjectKeepsIdentity() throws IOException {
+        PDDocument document = openDocument();
+        try {
+            COSDocument cosDocument = document.getDocument();
+            COSObject used = cosDocument.getObject(new COSKey(4, 0));
+            loadAll(cosDocument);
+            System.gc();
+            assertSame(used.get(), cosDocument.getObject(new COSKey(4, 0)).get());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void changedObjectsArePinned() throws Exception {
+        PDDocument document = openDocument();
+        try {
+            COSDocument cosDocument = document.getDocument();
+            COSObject changed = cosDocument.getObject(new COSKey(5, 0));
+            ((COSString) changed.getDirectBase()).setString("changed 5");
+            cosDocument.addChangedObject(changed);
+            COSObject added = cosDocument.getObject(new COSKey(OBJECT_STREAM + 2, 0));
+            ((COSString) added.getDirectBase()).setString("added");
+            cosDocument.addObject(added);
+            // objects are kept by body even when they are not registered anymore
+            cosDocument.removeChangedObject(changed);
+            cosDocument.removeAddedObject(added);
+            WeakReference<COSBase> changedReference = new WeakReference<>(changed.get());
+            WeakReference<COSBase> addedReference = new WeakReference<>(added.get());
+            changed = null;
+            added = null;
+
+            loadAll(cosDocument);
+            for (int i = 0; i < 10; ++i) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertEquals("changed 5", cosDocument.getObject(new COSKey(5, 0)).getString());
+            assertSame(changedReference.get(), cosDocument.getObject(new COSKey(5, 0)).get());
+            assertEquals("added", cosDocument.getObject(new COSKey(OBJECT_STREAM + 2, 0)).getString());
+            assertSame(addedReference.get(), cosDocument.getObject(new COSKey(OBJECT_STREAM + 2, 0)).get());
+        } finally {
+            document.close();
+        }
+    }
+
+    private static PDDocument openDocument() throws IOException {
+        byte[] data = createDocument();
+        PDDocument document = new PDDocument(data, 0, data.length);
+        document.getDocument().setLoadedObjectsLimit(1);
+        return document;
+    }
+
+    /**
+     * Loads all objects of document one by one, so objects that are not used
+     * are released.
+     */
+    private static void loadAll(COSDocument document) {
+        for (int i = 3; i < XREF_STREAM; ++i) {
+            if (i != OBJECT_STREAM) {
+                document.getObject(new COSKey(i, 0)).getString();
+            }
+        }
+    }
+
+    private static void collect(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 100 && reference.get() != null; ++i) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    /**
+     * Creates document with objects written directly and into object stream,
+     * and with uncompressed xref stream.
+     */
+    private static byte[] createDocument() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long[] offsets = new long[XREF_STREAM + 1];
+        write(output, "%PDF-1.5\n");
+        offsets[1] = output.size();
+        write(output, "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        offsets[2] = output.size();
+        write(output, "2 0 obj\n<< /Type /Pages /Kids [] /Count 0 >>\nendobj\n");
+        for (int i = 3; i <= OBJECTS; ++i) {
+            offsets[i] = output.size();
+            write(output, i + " 0 obj\n(object " + i + ")\nendobj\n");
+        }
+
+        StringBuilder header = new StringBuilder();
+        StringBuilder objects = new StringBuilder();
+        for (int i = 0; i < COMPRESSED_OBJECTS; ++i) {
+            int number = OBJECT_STREAM + 1 + i;
+            header.append(number).append(' ').append(objects.length()).append(' ');
+            objects.append("(compressed ").append(number).append(") ");
+        }
+        offsets[OBJECT_STREAM] = output.size();
+        write(output, OBJECT_STREAM + " 0 obj\n<< /Type /ObjStm /N " + COMPRESSED_OBJECTS +
+                " /First " + header.length() + " /Length " + (header.length() + objects.length()) +
+                " >>\nstream\n" + header + objects + "\nendstream\nendobj\n");
+
+        long xref = output.size();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        for (int i = 0; i <= XREF_STREAM; ++i) {
+            if (i == 0) {
+                writeEntry(entries, 0, 0, 65535);
+            } else if (i > OBJECT_STREAM && i < XREF_STREAM) {
+                writeEntry(entries, 2, OBJECT_STREAM, i - OBJECT_STREAM - 1);
+            } else {
+                writeEntry(entries, 1, i == XREF_STREAM ? xref : offsets[i], 0);
+            }
+        }
+        write(output, XREF_STREAM + " 0 obj\n<< /Type /XRef /Size " + (XREF_STREAM + 1) +
+                " /W [1 4 2] /Root 1 0 R /Length " + entries.size() + " >>\nstream\n");
+        entries.writeTo(output);
+        write(output, "\nendstream\nendobj\nstartxref\n" + xref + "\n%%EOF\n");
+        return output.toByteArray();
+    }
+
+    private static void writeEntry(ByteArrayOutputStream output, int type, long field1, int field2) {
+        output.write(type);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            output.write((int) (field1 >>> shift));
+        }
+        output.write(field2 >>> 8);
+        output.write(field2);
+    }
+
+    private static void write(ByteArrayOutputStream output, String data) throws IOException {
+        output.write(data.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
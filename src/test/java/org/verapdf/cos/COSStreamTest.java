@@ -22,13 +22,25 @@ package org.verapdf.cos;
 
 import org.junit.Test;
 import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASFileInStream;
 import org.verapdf.as.io.ASInputStream;
 import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.io.AsyncFileReader;
+import org.verapdf.io.InternalInputStream;
+import org.verapdf.tools.resource.FileResourceHandler;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Sergey Shemyakov
@@ -36,6 +48,12 @@ import static org.junit.Assert.assertEquals;
 public class COSStreamTest {
 
     private static final String SAMPLE_DATA = "Just some generic data";
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
 
     @Test
     public void test() throws IOException {
@@ -50,4 +68,98 @@ public class COSStreamTest {
         assertEquals(message, SAMPLE_DATA);
     }
 
+    @Test
+    public void replacedDataIsReleased() throws IOException {
+        FileResourceHandler handler = new FileResourceHandler();
+        COSObject cosStream = COSStream.construct();
+        cosStream.setKey(ASAtom.FILTER, COSName.construct(ASAtom.FLATE_DECODE));
+        COSStream stream = (COSStream) cosStream.get();
+        stream.setResourceHandler(handler);
+        stream.setData(new ASMemoryInStream("first".getBytes()));
+        assertEquals(1, handler.getResourcesCount());
+        stream.setData(new ASMemoryInStream(SAMPLE_DATA.getBytes()));
+        assertEquals(1, handler.getResourcesCount());
+        stream.setFilters(new COSFilters(COSName.construct(ASAtom.FLATE_DECODE)));
+        assertEquals(1, handler.getResourcesCount());
+        byte[] buf = new byte[100];
+        int read = cosStream.getData(COSStream.FilterFlags.DECODE).read(buf, 100);
+        assertEquals(SAMPLE_DATA, new String(Arrays.copyOf(buf, read)));
+        handler.close();
+        assertEquals(0, handler.getResourcesCount());
+    }
+
+
+    @Test
+    public void asyncDataOfMemoryStream() throws Exception {
+        COSObject cosStream = COSStream.construct(new ASMemoryInStream(SAMPLE_DATA.getBytes()));
+        COSStream stream = (COSStream) cosStream.get();
+        stream.setFilters(new COSFilters(COSName.construct(ASAtom.FLATE_DECODE)));
+        Future<ASInputStream> data = stream.getDataAsync(COSStream.FilterFlags.DECODE, DIRECT_EXECUTOR);
+        assertEquals(SAMPLE_DATA, readAll(data.get()));
+    }
+
+    @Test
+    public void asyncDataFailsIfRejected() throws Exception {
+        COSStream stream = (COSStream) COSStream.construct(SAMPLE_DATA).get();
+        Future<ASInputStream> data = stream.getDataAsync(COSStream.FilterFlags.DECODE, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        assertTrue(data.isDone());
+        try {
+            data.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void asyncDataOfDeletedFile() throws Exception {
+        File file = File.createTempFile("cos_stream_test", ".tmp");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(("0123456789" + SAMPLE_DATA).getBytes());
+        }
+        try (InternalInputStream source = new InternalInputStream(file)) {
+            ASInputStream bounded = source.getStream(10, 4);
+            ASInputStream unbounded = source.getStream(10, -1);
+            assertTrue(file.delete());
+            COSStream boundedStream = (COSStream) COSStream.construct(bounded).get();
+            COSStream unboundedStream = (COSStream) COSStream.construct(unbounded).get();
+            assertEquals("Just", readAll(boundedStream.getDataAsync(
+                    COSStream.FilterFlags.RAW_DATA, DIRECT_EXECUTOR).get()));
+            assertEquals(SAMPLE_DATA, readAll(unboundedStream.getDataAsync(
+                    COSStream.FilterFlags.RAW_DATA, DIRECT_EXECUTOR).get()));
+        }
+    }
+
+    @Test
+    public void asyncDataOverMemoryLimit() throws Exception {
+        File file = File.createTempFile("cos_stream_test", ".tmp");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(("0123456789" + SAMPLE_DATA).getBytes());
+        }
+        long limit = AsyncFileReader.getMaxBytesInFlight();
+        AsyncFileReader.setMaxBytesInFlight(0);
+        try (InternalInputStream source = new InternalInputStream(file)) {
+            ASInputStream data = source.getStream(10, SAMPLE_DATA.length());
+            COSStream stream = (COSStream) COSStream.construct(data).get();
+            ASInputStream fetched = stream.getDataAsync(COSStream.FilterFlags.RAW_DATA, DIRECT_EXECUTOR).get();
+            // data is read from file on executor, without copy into memory
+            assertTrue(fetched instanceof ASFileInStream);
+            assertEquals(SAMPLE_DATA, readAll(fetched));
+            fetched.close();
+        } finally {
+            AsyncFileReader.setMaxBytesInFlight(limit);
+            file.delete();
+        }
+    }
+
+    private static String readAll(ASInputStream stream) throws IOException {
+        byte[] buf = new byte[100];
+        int read = stream.read(buf, buf.length);
+        return new String(buf, 0, read);
+    }
 }
@@ -0,0 +1,103 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos.filters;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.cos.COSDictionary;
+import org.verapdf.cos.COSObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Checks predictor decoding of Flate encoded streams.
+ */
+public class COSPredictorDecodeTest {
+
+    private static final int COLUMNS = 5;
+    private static final int ROWS = 1000;
+
+    @Test
+    public void byteBufferReadTest() throws IOException {
+        byte[] expected = new byte[COLUMNS * ROWS];
+        for (int i = 0; i < expected.length; ++i) {
+            expected[i] = (byte) (i * 7 + i / COLUMNS);
+        }
+        byte[] encoded = deflate(applyUpPredictor(expected));
+        assertArrayEquals(expected, readAll(getDecoder(encoded), ByteBuffer.allocate(3)));
+        assertArrayEquals(expected, readAll(getDecoder(encoded), ByteBuffer.allocateDirect(3)));
+        assertArrayEquals(expected, readAll(getDecoder(encoded), ByteBuffer.allocateDirect(4096)));
+    }
+
+    private static ASInputStream getDecoder(byte[] encoded) throws IOException {
+        COSObject params = COSDictionary.construct(ASAtom.PREDICTOR, 12);
+        params.setIntegerKey(ASAtom.COLUMNS, COLUMNS);
+        ASInputStream flate = new COSFilterFlateDecode(new ASMemoryInStream(encoded));
+        return new COSPredictorDecode(flate, (COSDictionary) params.getDirectBase());
+    }
+
+    private static byte[] applyUpPredictor(byte[] data) {
+        ByteArrayOutputStream res = new ByteArrayOutputStream();
+        for (int row = 0; row < ROWS; ++row) {
+            res.write(2);
+            for (int i = 0; i < COLUMNS; ++i) {
+                byte up = row == 0 ? 0 : data[(row - 1) * COLUMNS + i];
+                res.write((byte) (data[row * COLUMNS + i] - up));
+            }
+        }
+        return res.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream res = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            res.write(chunk, 0, length);
+        }
+        deflater.end();
+        return res.toByteArray();
+    }
+
+    private static byte[] readAll(ASInputStream stream, ByteBuffer buffer) throws IOException {
+        ByteArrayOutputStream res = new ByteArrayOutputStream();
+        buffer.clear();
+        while (stream.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                res.write(buffer.get());
+            }
+            buffer.clear();
+        }
+        stream.close();
+        return res.toByteArray();
+    }
+}
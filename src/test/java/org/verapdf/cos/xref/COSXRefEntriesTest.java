@@ -0,0 +1,109 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.cos.xref;
+
+import org.junit.Test;
+import org.verapdf.cos.COSKey;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks merging of xref sections into primitive columns.
+ */
+public class COSXRefEntriesTest {
+
+    @Test
+    public void revisionsAreMerged() {
+        COSXRefSection first = new COSXRefSection();
+        first.add(new COSKey(1, 0), 100);
+        first.add(new COSKey(2, 0), 200);
+        first.add(new COSKey(3, 0), 300);
+        COSXRefSection second = new COSXRefSection();
+        second.add(new COSKey(2, 0), 250);
+        second.add(new COSKey(3, 1), 0, 'f');
+        second.addCompressed(5, 4, 7);
+        second.add(new COSKey(4, 0), 400);
+
+        COSXRefEntries entries = new COSXRefEntries(Arrays.asList(first, second));
+        assertEquals(100, entries.getOffset(new COSKey(1, 0)));
+        assertEquals(250, entries.getOffset(new COSKey(2, 0)));
+        assertFalse(entries.contains(new COSKey(3, 0)));
+        assertEquals(0, entries.getOffset(new COSKey(3, 0)));
+        assertFalse(entries.contains(new COSKey(1, 1)));
+        assertEquals(-4, entries.getOffset(new COSKey(5, 0)));
+        assertEquals(7, entries.getObjectStreamIndex(new COSKey(5, 0)));
+        assertEquals(-1, entries.getObjectStreamIndex(new COSKey(4, 0)));
+        assertEquals(5, entries.getGreatestNumber());
+
+        List<COSKey> keys = entries.getKeys();
+        assertEquals(Arrays.asList(new COSKey(1, 0), new COSKey(2, 0),
+                new COSKey(4, 0), new COSKey(5, 0)), keys);
+        keys.add(new COSKey(6, 0));
+        assertEquals(5, keys.size());
+        assertEquals(new COSKey(6, 0), keys.get(4));
+    }
+
+    @Test
+    public void sparseNumbers() {
+        COSXRefSection section = new COSXRefSection();
+        section.add(new COSKey(2000000000, 3), 42);
+        section.add(new COSKey(7, 0), 70);
+
+        COSXRefEntries entries = new COSXRefEntries(Arrays.asList(section));
+        assertEquals(42, entries.getOffset(new COSKey(2000000000, 3)));
+        assertEquals(70, entries.getOffset(new COSKey(7, 0)));
+        assertFalse(entries.contains(new COSKey(8, 0)));
+        assertTrue(entries.contains(new COSKey(7, 0)));
+        assertEquals(2000000000, entries.getGreatestNumber());
+        assertEquals(2, entries.size());
+    }
+
+    @Test
+    public void reversedSubsections() {
+        COSXRefSection section = new COSXRefSection();
+        for (int number = 1000; number >= 0; number -= 10) {
+            section.addEntries(number, 10, new long[] {number, number + 1, number + 2, number + 3,
+                    number + 4, number + 5, number + 6, number + 7, number + 8, number + 9},
+                    new int[10], new char[] {'n', 'n', 'n', 'n', 'n', 'n', 'n', 'n', 'n', 'n'});
+        }
+        section.addCompressed(500, 3, 2);
+        section.add(new COSKey(20, 0), 7);
+
+        assertEquals(1010, section.size());
+        for (int i = 0; i < section.size(); ++i) {
+            assertEquals(i, section.getNumber(i));
+        }
+        assertEquals(1010, section.next());
+        assertEquals(7, section.getEntry(20).offset);
+        assertEquals(999, section.getEntry(999).offset);
+
+        COSXRefEntries entries = new COSXRefEntries(Arrays.asList(section));
+        assertEquals(-3, entries.getOffset(new COSKey(500, 0)));
+        assertEquals(2, entries.getObjectStreamIndex(new COSKey(500, 0)));
+        assertEquals(-1, entries.getObjectStreamIndex(new COSKey(501, 0)));
+        assertEquals(1009, entries.getGreatestNumber());
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.as.io.ASInputStream;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks reading of windowed and memory-mapped ByteBufferInputStream.
+ */
+public class ByteBufferInputStreamTest {
+
+    private static final byte[] DATA = "0123456789abcdef".getBytes();
+
+    @Test
+    public void testWindows() throws IOException {
+        ByteBuffer[] windows = new ByteBuffer[4];
+        for (int i = 0; i < windows.length; ++i) {
+            windows[i] = ByteBuffer.wrap(DATA, 4 * i, 4).slice();
+        }
+        ByteBufferInputStream stream = new ByteBufferInputStream(windows, 2);
+        assertEquals(16, stream.getStreamLength());
+        stream.seek(3);
+        assertEquals('3', stream.read());
+        assertEquals('4', stream.peek());
+        byte[] buf = new byte[6];
+        assertEquals(6, stream.read(buf, 6));
+        assertEquals("456789", new String(buf));
+        stream.unread(2);
+        assertEquals('8', stream.readByte());
+        stream.seekFromEnd(1);
+        assertEquals('f', stream.read());
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void testMappedSubstream() throws IOException {
+        File file = File.createTempFile("mapped", ".tmp");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(DATA);
+        }
+        SeekableInputStream stream = SeekableInputStream.getSeekableStream(
+                file.getAbsolutePath(), SeekableInputStream.FileAccessMode.MEMORY_MAPPED);
+        ASInputStream substream = stream.getStream(10, 4);
+        byte[] buf = new byte[10];
+        assertEquals(4, substream.read(buf, 10));
+        assertEquals("abcd", new String(buf, 0, 4));
+        assertEquals(-1, substream.read());
+        assertEquals(0, stream.getOffset());
+        substream.close();
+        stream.close();
+        file.delete();
+    }
+
+    @Test
+    public void testConcurrentClose() throws Exception {
+        final int[] releases = new int[1];
+        Closeable releaser = new Closeable() {
+            @Override
+            public void close() {
+                synchronized (releases) {
+                    releases[0]++;
+                }
+            }
+        };
+        ByteBufferInputStream stream = new ByteBufferInputStream(
+                new ByteBuffer[]{ByteBuffer.wrap(DATA)}, 30, releaser);
+        final ASInputStream[] substreams = new ASInputStream[4000];
+        for (int i = 0; i < substreams.length; ++i) {
+            substreams[i] = stream.getStream(0, 4);
+        }
+        stream.close();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int first = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = first; i < substreams.length; i += 4) {
+                            substreams[i].close();
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, releases[0]);
+    }
+}
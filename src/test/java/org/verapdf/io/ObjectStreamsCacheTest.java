@@ -0,0 +1,89 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.parser.DecodedObjectStreamParser;
+import org.verapdf.parser.ObjectStreamTestUtils;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks eviction of decoded object streams from cache.
+ */
+public class ObjectStreamsCacheTest {
+
+    private static final String HEADER = "1 0 ";
+    private static final String OBJECT = "(one)";
+    private static final int DATA_LENGTH = HEADER.length() + OBJECT.length();
+
+    @Test
+    public void leastRecentlyUsedStreamsAreEvicted() throws IOException {
+        ObjectStreamsCache cache = new ObjectStreamsCache(2 * DATA_LENGTH);
+        DecodedObjectStreamParser first = createParser();
+        DecodedObjectStreamParser second = createParser();
+        cache.put(1, first);
+        cache.put(2, second);
+        assertSame(first, cache.get(1));
+        cache.put(3, createParser());
+
+        assertNull(cache.get(2));
+        assertTrue(second.isReleased());
+        assertSame(first, cache.get(1));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2 * DATA_LENGTH, cache.getSize());
+
+        cache.setMaxSize(0);
+        assertEquals(1, cache.getStreamsNumber());
+        assertEquals("one", cache.get(1).getObject(1).getString());
+        cache.clear();
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void redecodesAreCounted() throws IOException {
+        ObjectStreamsCache cache = new ObjectStreamsCache(DATA_LENGTH);
+        DecodedObjectStreamParser parser = createParser();
+        cache.put(1, parser);
+        parser.loadAll();
+        assertEquals("one", cache.get(1).getObject(1, 0).getString());
+        assertEquals(0, cache.getRedecodes());
+        assertEquals("one", cache.get(1).getObject(1).getString());
+        assertEquals(1, cache.getRedecodes());
+        // evicted stream keeps its count
+        cache.put(2, createParser());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.getRedecodes());
+        assertEquals(2, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    private static DecodedObjectStreamParser createParser() throws IOException {
+        return ObjectStreamTestUtils.createParser(HEADER, OBJECT, 1);
+    }
+}
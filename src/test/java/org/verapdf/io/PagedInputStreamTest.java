@@ -0,0 +1,69 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.as.io.ASMemoryInStream;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks page cache of PagedInputStream.
+ */
+public class PagedInputStreamTest {
+
+    @Test
+    public void test() throws IOException {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) i;
+        }
+        PagedInputStream stream = new PagedInputStream(new ASMemoryInStream(data), 16, 2);
+        stream.seek(15);
+        assertEquals(15, stream.read());
+        assertEquals(16, stream.peek());
+        stream.unread();
+        assertEquals(15, stream.readByte());
+        assertEquals(2, stream.getCacheMisses());
+        byte[] buf = new byte[20];
+        assertEquals(20, stream.read(buf, 20));
+        assertEquals(16, buf[0]);
+        assertEquals(35, buf[19]);
+        assertEquals(3, stream.getCacheMisses());
+        stream.seekFromEnd(1);
+        assertEquals(99, stream.read());
+        assertEquals(-1, stream.read());
+        stream.seek(0);
+        assertEquals(0, stream.read());
+        assertEquals(5, stream.getCacheMisses());
+        assertEquals(2, stream.getCacheHits());
+    }
+
+    @Test(expected = IOException.class)
+    public void readAfterClose() throws IOException {
+        PagedInputStream stream = new PagedInputStream(new ASMemoryInStream(new byte[100]), 16, 2);
+        stream.read();
+        stream.close();
+        stream.read();
+    }
+}
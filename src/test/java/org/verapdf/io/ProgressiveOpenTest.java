@@ -0,0 +1,240 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASInputStream;
+import org.verapdf.cos.COSInteger;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSStream;
+import org.verapdf.pd.PDDocument;
+import org.verapdf.pd.PDPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks opening of linearized documents before all data is received.
+ */
+public class ProgressiveOpenTest {
+
+    private static final String FIRST_PAGE_CONTENT = "BT /F1 12 Tf (first) Tj ET";
+    private static final String SECOND_PAGE_CONTENT = "BT /F1 12 Tf (second) Tj ET";
+
+    private int firstPageEnd;
+
+    @Test
+    public void failFastTest() throws IOException {
+        byte[] pdf = buildLinearizedDocument();
+        GrowingInputStream source = new GrowingInputStream(GrowingInputStream.FAIL_FAST);
+        source.append(pdf, 0, firstPageEnd);
+        PDDocument document = new PDDocument(source, true);
+        assertTrue(document.getDocument().isLinearized());
+        assertFalse(document.getCatalog().empty());
+        PDPage firstPage = document.getFirstPage();
+        assertNotNull(firstPage);
+        assertEquals(4, firstPage.getObject().getObjectKey().getNumber());
+        assertEquals(FIRST_PAGE_CONTENT, readContent(document, 5));
+        try {
+            document.getDocument().getObject(new COSKey(7, 0));
+            fail("Object of the second page is not received yet");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof DataNotAvailableException);
+        }
+
+        source.append(pdf, firstPageEnd, pdf.length - firstPageEnd);
+        source.finish();
+        assertEquals(SECOND_PAGE_CONTENT, readContent(document, 7));
+        assertEquals(2, document.getNumberOfPages());
+        PDDocument full = new PDDocument(ByteBuffer.wrap(pdf));
+        assertEquals(full.getDocument().getObjects().size(), document.getDocument().getObjects().size());
+        full.close();
+        document.close();
+    }
+
+    @Test
+    public void waitingTest() throws Exception {
+        final byte[] pdf = buildLinearizedDocument();
+        final GrowingInputStream source = new GrowingInputStream();
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < pdf.length; i += 64) {
+                        source.append(pdf, i, Math.min(64, pdf.length - i));
+                        Thread.sleep(1);
+                    }
+                    source.finish();
+                } catch (Exception e) {
+                    source.abort(new IOException(e));
+                }
+            }
+        });
+        producer.start();
+        PDDocument document = new PDDocument(source, true);
+        assertEquals(FIRST_PAGE_CONTENT, readContent(document, 5));
+        assertEquals(SECOND_PAGE_CONTENT, readContent(document, 7));
+        producer.join();
+        document.close();
+    }
+
+    @Test
+    public void updatedDocumentTest() throws IOException {
+        byte[] pdf = appendUpdate(buildLinearizedDocument());
+        GrowingInputStream source = new GrowingInputStream(GrowingInputStream.FAIL_FAST);
+        source.append(pdf, 0, pdf.length);
+        source.finish();
+        PDDocument document = new PDDocument(source, true);
+        assertNull(document.getDocument().getFirstPageObject());
+        assertEquals("updated", document.getCatalog().getStringKey(ASAtom.LANG));
+        assertEquals("new", document.getDocument().getObject(new COSKey(8, 0)).getString());
+        document.close();
+    }
+
+    @Test
+    public void updatedGrowingDocumentTest() throws IOException {
+        byte[] pdf = appendUpdate(buildLinearizedDocument());
+        GrowingInputStream source = new GrowingInputStream(GrowingInputStream.FAIL_FAST);
+        source.append(pdf, 0, firstPageEnd);
+        PDDocument document = new PDDocument(source, true);
+        assertEquals(FIRST_PAGE_CONTENT, readContent(document, 5));
+        // keys of objects that are not read yet are not reused
+        COSKey newKey = document.getDocument().setObject(COSInteger.construct(42));
+        assertEquals(8, newKey.getNumber());
+
+        source.append(pdf, firstPageEnd, pdf.length - firstPageEnd);
+        source.finish();
+        document.getDocument().completeXRef();
+        assertEquals(SECOND_PAGE_CONTENT, readContent(document, 7));
+        COSObject updated = document.getDocument().getObject(new COSKey(2, 0));
+        assertEquals("updated", updated.getStringKey(ASAtom.LANG));
+        document.close();
+    }
+
+    @Test
+    public void missingLengthTest() throws IOException {
+        String text = new String(buildLinearizedDocument(), StandardCharsets.ISO_8859_1);
+        // replacement keeps offsets of objects
+        byte[] pdf = text.replaceFirst("/L (\\d+)", "/X $1").getBytes(StandardCharsets.ISO_8859_1);
+        GrowingInputStream source = new GrowingInputStream(GrowingInputStream.FAIL_FAST);
+        source.append(pdf, 0, pdf.length);
+        source.finish();
+        PDDocument document = new PDDocument(source, true);
+        assertNull(document.getDocument().getFirstPageObject());
+        assertEquals(SECOND_PAGE_CONTENT, readContent(document, 7));
+        document.close();
+    }
+
+    private static String readContent(PDDocument document, int number) throws IOException {
+        COSObject content = document.getDocument().getObject(new COSKey(number, 0));
+        ASInputStream data = content.getData(COSStream.FilterFlags.DECODE);
+        ByteArrayOutputStream res = new ByteArrayOutputStream();
+        int b;
+        while ((b = data.read()) != -1) {
+            res.write(b);
+        }
+        return new String(res.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private byte[] buildLinearizedDocument() {
+        byte[] res = buildLinearizedDocument(new long[4]);
+        return buildLinearizedDocument(new long[]{res.length, this.firstPageEnd,
+                getMainXRefOffset(res), this.firstPageEnd});
+    }
+
+    private static long getMainXRefOffset(byte[] pdf) {
+        String text = new String(pdf, StandardCharsets.ISO_8859_1);
+        return text.indexOf("xref", text.indexOf("6 0 obj"));
+    }
+
+    /**
+     * @param values are file length, end of the first page, offset of main
+     *               xref and offset of the first object of main xref.
+     */
+    private byte[] buildLinearizedDocument(long[] values) {
+        StringBuilder pdf = new StringBuilder("%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+        long[] offsets = new long[8];
+        offsets[1] = pdf.length();
+        pdf.append(String.format("1 0 obj\n<</Linearized 1 /L %010d /H [0 0] /O 4 /E %010d /N 2 /T %010d>>\nendobj\n",
+                values[0], values[1], values[3]));
+        int firstPageXRef = pdf.length();
+        pdf.append("xref\n1 5\n");
+        int entriesStart = pdf.length();
+        for (int i = 1; i <= 5; ++i) {
+            pdf.append(String.format("%010d 00000 n\r\n", 0));
+        }
+        pdf.append(String.format("trailer\n<</Size 8 /Root 2 0 R /Prev %010d>>\nstartxref\n0\n%%%%EOF\n", values[2]));
+        offsets[2] = pdf.length();
+        pdf.append("2 0 obj\n<</Type /Catalog /Pages 3 0 R>>\nendobj\n");
+        offsets[3] = pdf.length();
+        pdf.append("3 0 obj\n<</Type /Pages /Kids [4 0 R 6 0 R] /Count 2>>\nendobj\n");
+        offsets[4] = pdf.length();
+        pdf.append("4 0 obj\n<</Type /Page /Parent 3 0 R /MediaBox [0 0 612 792] /Contents 5 0 R>>\nendobj\n");
+        offsets[5] = pdf.length();
+        appendStream(pdf, 5, FIRST_PAGE_CONTENT);
+        this.firstPageEnd = pdf.length();
+        offsets[6] = pdf.length();
+        pdf.append("6 0 obj\n<</Type /Page /Parent 3 0 R /MediaBox [0 0 612 792] /Contents 7 0 R>>\nendobj\n");
+        offsets[7] = pdf.length();
+        appendStream(pdf, 7, SECOND_PAGE_CONTENT);
+        pdf.append("xref\n0 1\n0000000000 65535 f\r\n6 2\n");
+        pdf.append(String.format("%010d 00000 n\r\n%010d 00000 n\r\n", offsets[6], offsets[7]));
+        pdf.append(String.format("trailer\n<</Size 8>>\nstartxref\n%d\n%%%%EOF\n", firstPageXRef));
+        for (int i = 1; i <= 5; ++i) {
+            pdf.replace(entriesStart + 20 * (i - 1), entriesStart + 20 * (i - 1) + 10,
+                    String.format("%010d", offsets[i]));
+        }
+        return pdf.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Appends incremental update that changes catalog and adds object 8.
+     */
+    private static byte[] appendUpdate(byte[] pdf) {
+        String text = new String(pdf, StandardCharsets.ISO_8859_1);
+        StringBuilder update = new StringBuilder(text);
+        int catalog = update.length();
+        update.append("2 0 obj\n<</Type /Catalog /Pages 3 0 R /Lang (updated)>>\nendobj\n");
+        int newObject = update.length();
+        update.append("8 0 obj\n(new)\nendobj\n");
+        int xref = update.length();
+        update.append(String.format("xref\n2 1\n%010d 00000 n\r\n8 1\n%010d 00000 n\r\n", catalog, newObject));
+        update.append(String.format("trailer\n<</Size 9 /Root 2 0 R /Prev %d>>\nstartxref\n%d\n%%%%EOF\n",
+                text.indexOf("xref\n1 5"), xref));
+        return update.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void appendStream(StringBuilder pdf, int number, String content) {
+        pdf.append(number).append(" 0 obj\n<</Length ").append(content.length())
+                .append(">>\nstream\n").append(content).append("\nendstream\nendobj\n");
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks moving of spilled data between storages.
+ */
+public class RoutingSpillStorageTest {
+
+    @Test
+    public void testRouting() throws IOException {
+        DirectSpillStorage offHeap = new DirectSpillStorage(1 << 17);
+        RoutingSpillStorage storage = new RoutingSpillStorage(new HeapSpillStorage(),
+                offHeap, new DiskSpillStorage(), 1000, 100000);
+        assertTrue(spill(storage, 500) instanceof ByteBufferInputStream);
+        assertEquals(0, offHeap.getAllocated());
+        assertTrue(spill(storage, 70000) instanceof ByteBufferInputStream);
+        assertEquals(1 << 17, offHeap.getAllocated());
+        assertTrue(spill(storage, 200000) instanceof InternalInputStream);
+        // chunks of closed spills are reused
+        spill(storage, 70000);
+        assertEquals(1 << 17, offHeap.getAllocated());
+    }
+
+    private static SeekableInputStream spill(SpillStorage storage, int size) throws IOException {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            data[i] = (byte) i;
+        }
+        SpillOutputStream output = storage.createOutput(-1);
+        for (int i = 0; i < size; i += 300) {
+            output.write(data, i, Math.min(300, size - i));
+        }
+        try (SeekableInputStream res = output.getInputStream()) {
+            assertEquals(size, res.getStreamLength());
+            res.seek(size - 1);
+            assertEquals(data[size - 1] & 0xFF, res.read());
+            res.seek(0);
+            byte[] read = new byte[size];
+            assertEquals(size, res.read(read, size));
+            for (int i = 0; i < size; ++i) {
+                assertEquals(data[i], read[i]);
+            }
+            return res;
+        }
+    }
+}
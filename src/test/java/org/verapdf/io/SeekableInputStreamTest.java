@@ -24,9 +24,12 @@ import org.junit.Test;
 import org.verapdf.as.io.ASMemoryInStream;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -49,7 +52,38 @@ public class SeekableInputStreamTest {
         SeekableInputStream ssThree = SeekableInputStream.getSeekableStream(streamThree);
         assertTrue(ssOne instanceof ASMemoryInStream);
         assertTrue(ssTwo instanceof ASMemoryInStream);
-        assertTrue(ssThree instanceof InternalInputStream);
+        assertTrue(ssThree instanceof ByteBufferInputStream);
+        assertEquals(15000, ssThree.getStreamLength());
+    }
+
+    @Test
+    public void testSpill() throws IOException {
+        byte[] data = new byte[100000];
+        data[99999] = 42;
+        SeekableInputStream inMemory = SeekableInputStream.getSeekableStream(
+                new ByteArrayInputStream(data));
+        SeekableInputStream spilled = SeekableInputStream.getSeekableStream(
+                new ByteArrayInputStream(data), 12000);
+        assertTrue(inMemory instanceof ByteBufferInputStream);
+        assertTrue(spilled instanceof InternalInputStream);
+        inMemory.seek(99999);
+        spilled.seek(99999);
+        assertEquals(42, inMemory.read());
+        assertEquals(42, spilled.read());
+        spilled.close();
+    }
+
+    @Test
+    public void testTempFileDeletedOnClose() throws IOException {
+        InternalInputStream stream = new InternalInputStream(new byte[] {1, 2},
+                new ByteArrayInputStream(new byte[] {3, 4, 5}));
+        File file = new File(stream.getFileName());
+        assertTrue(stream.isTempFile());
+        assertEquals(5, stream.getStreamLength());
+        stream.seek(2);
+        assertEquals(3, stream.read());
+        stream.close();
+        assertFalse(file.exists());
     }
 
 }
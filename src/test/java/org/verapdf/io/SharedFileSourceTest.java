@@ -0,0 +1,63 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.io;
+
+import org.junit.Test;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.pd.PDDocument;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks acquisition and release of shared file source.
+ */
+public class SharedFileSourceTest {
+
+    private static final String FILE_PATH = "src/test/resources/org/verapdf/cos/filters/validDocument.pdf";
+
+    @Test
+    public void test() throws IOException {
+        SharedFileSource source = SharedFileSource.acquire(FILE_PATH);
+        assertNull(source.getXRefIndex());
+        PDDocument first = new PDDocument(source);
+        XRefIndex index = source.getXRefIndex();
+        assertNotNull(index);
+
+        PDDocument second = new PDDocument(SharedFileSource.acquire(FILE_PATH));
+        assertSame(index, source.getXRefIndex());
+        assertEquals(2, source.getUsers());
+        COSDocument firstDocument = first.getDocument();
+        COSDocument secondDocument = second.getDocument();
+        assertEquals(firstDocument.getObjects().size(), secondDocument.getObjects().size());
+        assertEquals(first.getNumberOfPages(), second.getNumberOfPages());
+        assertEquals(firstDocument.getLastTrailerOffset(), secondDocument.getLastTrailerOffset());
+
+        first.close();
+        assertEquals(1, source.getUsers());
+        second.close();
+        assertEquals(0, source.getUsers());
+    }
+}
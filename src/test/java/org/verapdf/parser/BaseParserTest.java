@@ -0,0 +1,173 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.io.SeekableInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks tokenizer on tokens that cross boundary of scanned window and on
+ * source that is read directly between tokens.
+ */
+public class BaseParserTest {
+
+    @Test
+    public void tokensOnWindowBoundary() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 4090; ++i) {
+            builder.append(' ');
+        }
+        builder.append("/SomeLongName#20X 12345678 (str\\051ing) <48656C6C6F> endobj");
+        BaseParser parser = getParser(builder.toString());
+
+        parser.nextToken();
+        assertEquals(Token.Type.TT_NAME, parser.getToken().type);
+        assertEquals("SomeLongName X", parser.getToken().getValue());
+        parser.nextToken();
+        assertEquals(Token.Type.TT_INTEGER, parser.getToken().type);
+        assertEquals(12345678L, parser.getToken().integer);
+        parser.nextToken();
+        assertEquals(Token.Type.TT_LITSTRING, parser.getToken().type);
+        assertEquals("str)ing", parser.getToken().getValue());
+        parser.nextToken();
+        assertEquals(Token.Type.TT_HEXSTRING, parser.getToken().type);
+        assertEquals("Hello", parser.getToken().getValue());
+        parser.nextToken();
+        assertEquals(Token.Keyword.KW_ENDOBJ, parser.getToken().keyword);
+        parser.nextToken();
+        assertEquals(Token.Type.TT_EOF, parser.getToken().type);
+    }
+
+    @Test
+    public void sourceIsSynchronizedWithTokenizer() throws IOException {
+        BaseParser parser = getParser("12 0 obj\nabcde 7 -3.5");
+
+        parser.nextToken();
+        assertEquals(12L, parser.getToken().integer);
+        assertEquals(2L, parser.source.getOffset());
+        parser.nextToken();
+        parser.nextToken();
+        assertEquals(Token.Keyword.KW_OBJ, parser.getToken().keyword);
+        parser.skipSingleEol();
+        parser.source.skip(5);
+        parser.nextToken();
+        assertEquals(7L, parser.getToken().integer);
+        parser.source.seek(0);
+        parser.nextToken();
+        assertEquals(12L, parser.getToken().integer);
+        parser.source.seek(17);
+        parser.nextToken();
+        assertEquals(Token.Type.TT_REAL, parser.getToken().type);
+        assertEquals(-3.5, parser.getToken().real, 0);
+    }
+
+    @Test
+    public void keywordsAreClassified() throws IOException {
+        BaseParser parser = getParser("endstream startxref trailer endobj stream xrefs R n obj nul");
+        Token.Keyword[] expected = {Token.Keyword.KW_ENDSTREAM, Token.Keyword.KW_STARTXREF,
+                Token.Keyword.KW_TRAILER, Token.Keyword.KW_ENDOBJ, Token.Keyword.KW_STREAM,
+                null, Token.Keyword.KW_R, Token.Keyword.KW_N, Token.Keyword.KW_OBJ, null};
+        for (Token.Keyword keyword : expected) {
+            parser.nextToken();
+            assertEquals(Token.Type.TT_KEYWORD, parser.getToken().type);
+            assertEquals(keyword, parser.getToken().keyword);
+        }
+        assertEquals(Token.Keyword.KW_NONE, Token.getKeyword(null));
+        assertEquals(Token.Keyword.KW_FALSE, Token.getKeyword("false"));
+    }
+
+    @Test
+    public void wellFormedNumbers() throws IOException {
+        assertNumber("0 5.", Token.Type.TT_REAL, 5L, 5.0);
+        assertNumber("0 .5", Token.Type.TT_REAL, 1L, 0.5);
+        assertNumber("0 -.5", Token.Type.TT_REAL, -1L, -0.5);
+        assertNumber("0 -17", Token.Type.TT_INTEGER, -17L, -17.0);
+        assertNumber("0 9223372036854775807", Token.Type.TT_INTEGER,
+                Long.MAX_VALUE, (double) Long.MAX_VALUE);
+        assertNumber("0 0.1", Token.Type.TT_REAL, 0L, 0.1);
+    }
+
+    @Test
+    public void malformedNumbersKeepPreviousValue() throws IOException {
+        assertNumber("12 9223372036854775808", Token.Type.TT_INTEGER, 12L, 12.0);
+        assertNumber("12 99999999999999999999", Token.Type.TT_INTEGER, 12L, 12.0);
+        assertNumber("12 1.2.3", Token.Type.TT_REAL, 12L, 12.0);
+        assertNumber("12 .", Token.Type.TT_REAL, 12L, 12.0);
+        // sign is applied to values kept from previous token
+        assertNumber("12 -", Token.Type.TT_INTEGER, -12L, -12.0);
+        assertNumber("12 - 3", Token.Type.TT_INTEGER, -12L, -12.0);
+    }
+
+    @Test
+    public void longRealsFallBackToDoubleValueOf() throws IOException {
+        String[] numbers = {"0.12345678901234567890123", "12345678901234567.5",
+                "99999999999999999999.5", "3.14159265358979323846264338",
+                "9007199254740993.0", "0.00000000000000000000000001"};
+        for (String number : numbers) {
+            double expected = Double.valueOf(number).doubleValue();
+            assertNumber("0 " + number, Token.Type.TT_REAL, Math.round(expected), expected);
+        }
+    }
+
+    @Test
+    public void realsMatchDoubleValueOf() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; ++i) {
+            StringBuilder number = new StringBuilder();
+            int integerDigits = random.nextInt(12);
+            for (int j = 0; j < integerDigits; ++j) {
+                number.append((char) ('0' + random.nextInt(10)));
+            }
+            number.append('.');
+            int fractionDigits = random.nextInt(integerDigits == 0 ? 25 : 26 - integerDigits) + 1;
+            for (int j = 0; j < fractionDigits; ++j) {
+                number.append((char) ('0' + random.nextInt(10)));
+            }
+            double expected = Double.valueOf(number.toString()).doubleValue();
+            assertNumber("0 " + number, Token.Type.TT_REAL, Math.round(expected), expected);
+        }
+    }
+
+    private static void assertNumber(String data, Token.Type type, long integer,
+                                     double real) throws IOException {
+        BaseParser parser = getParser(data);
+        parser.nextToken();
+        parser.nextToken();
+        Token token = parser.getToken();
+        assertEquals(data, type, token.type);
+        assertEquals(data, integer, token.integer);
+        assertEquals(data, Double.doubleToLongBits(real), Double.doubleToLongBits(token.real));
+    }
+
+    private static BaseParser getParser(String data) throws IOException {
+        BaseParser parser = new BaseParser(SeekableInputStream.getSeekableStream(
+                new ByteArrayInputStream(data.getBytes(StandardCharsets.ISO_8859_1))));
+        parser.initializeToken();
+        return parser;
+    }
+}
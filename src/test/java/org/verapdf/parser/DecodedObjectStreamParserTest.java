@@ -0,0 +1,117 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.cos.*;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks lazy and one-pass parsing of object streams.
+ */
+public class DecodedObjectStreamParserTest {
+
+    // objects are not sorted by number, integer object is followed by reference
+    private static final String HEADER = "12 0 10 3 11 9 ";
+    private static final String OBJECTS = "42 (ten) [12 0 R 7]";
+
+    @Test
+    public void randomAccess() throws IOException {
+        DecodedObjectStreamParser parser = createParser();
+        assertEquals("ten", parser.getObject(10).getString());
+        assertEquals(42, parser.getObject(12, 0).getInteger().intValue());
+        assertFalse(parser.isReleased());
+        assertEquals(7, parser.getObject(11, 5).at(1).getInteger().intValue());
+        assertTrue(parser.getObject(13).empty());
+        parser.closeInputStream();
+        try {
+            parser.getObject(10);
+            fail("Object is parsed from closed stream");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void sequentialAccess() throws IOException {
+        DecodedObjectStreamParser parser = createParser();
+        assertEquals(42, parser.getObject(12, 0).getInteger().intValue());
+        assertEquals("ten", parser.getObject(10, 1).getString());
+        assertTrue(parser.isReleased());
+        COSObject array = parser.getObject(11, 2);
+        assertEquals(2, array.size().intValue());
+        assertEquals(new COSKey(12, 0), array.at(0).getObjectKey());
+        assertEquals(3, parser.getInternalObjectsKeys().size());
+        parser.closeInputStream();
+    }
+
+    @Test
+    public void parsedObjectsAreKept() throws IOException {
+        DecodedObjectStreamParser parser = createParser();
+        COSObject ten = parser.getObject(10, 1);
+        assertSame(ten, parser.getObject(10, 1));
+        assertNotSame(parser.getObject(10), parser.getObject(10));
+        // sequential access parses the rest of stream and releases data
+        assertEquals(2, parser.getObject(11, 2).size().intValue());
+        assertTrue(parser.isReleased());
+        assertSame(ten, parser.getObject(10, 1));
+        assertEquals(42, parser.getObject(12, 0).getInteger().intValue());
+        assertEquals(0, parser.getRedecodes());
+        // object is parsed again from data that is decoded again
+        assertEquals("ten", parser.getObject(10).getString());
+        assertFalse(parser.isReleased());
+        assertEquals(1, parser.getRedecodes());
+        assertTrue(parser.getObject(13).empty());
+        parser.closeInputStream();
+    }
+
+    @Test
+    public void loadAllSkipsBrokenObject() throws IOException {
+        DecodedObjectStreamParser parser = createParser("12 0 10 3 11 10 ", "42 <</A 1 [12 0 R 7]");
+        assertEquals(42, parser.getObject(12, 0).getInteger().intValue());
+        try {
+            parser.getObject(10, 1);
+            fail("Broken object is parsed");
+        } catch (IOException e) {
+            // expected
+        }
+        // stream is decoded again to parse object that failed in one pass
+        assertEquals(1, parser.getRedecodes());
+        assertEquals(7, parser.getObject(11, 2).at(1).getInteger().intValue());
+        assertEquals(1, parser.getRedecodes());
+    }
+
+    private static DecodedObjectStreamParser createParser() throws IOException {
+        return createParser(HEADER, OBJECTS);
+    }
+
+    private static DecodedObjectStreamParser createParser(String header, String objects) throws IOException {
+        return ObjectStreamTestUtils.createParser(header, objects, 3);
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.cos.COSObject;
+import org.verapdf.io.SeekableInputStream;
+import org.verapdf.pd.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that objects and xref located after 4 GB in sparse file are parsed.
+ * On file systems without sparse files each test writes 4.5 GB, so tests are
+ * run only if system property {@value #ENABLE_PROPERTY} is true.
+ */
+public class LargeOffsetTest {
+
+    private static final String ENABLE_PROPERTY = "verapdf.test.largeFiles";
+    private static final long BODY_OFFSET = (9L << 29) + 17;    // 4.5 GB
+
+    private File file;
+
+    @Before
+    public void createSparseFile() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean(ENABLE_PROPERTY));
+        this.file = File.createTempFile("large_offset_test", ".pdf");
+        String header = "%PDF-1.4\n%\u00E2\u00E3\u00CF\u00D3\n";
+        String info = "3 0 obj\n<< /Producer (veraPDF) >>\nendobj\n";
+        String catalog = "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n";
+        String pages = "2 0 obj\n<< /Type /Pages /Kids [] /Count 0 >>\nendobj\n";
+        long pagesOffset = BODY_OFFSET + catalog.length();
+        long xrefOffset = pagesOffset + pages.length();
+        String tail = "xref\n0 4\n0000000000 65535 f\r\n" +
+                String.format("%010d 00000 n\r\n", BODY_OFFSET) +
+                String.format("%010d 00000 n\r\n", pagesOffset) +
+                String.format("%010d 00000 n\r\n", header.length()) +
+                "trailer\n<< /Size 4 /Root 1 0 R /Info 3 0 R >>\nstartxref\n" +
+                xrefOffset + "\n%%EOF\n";
+        try (RandomAccessFile raf = new RandomAccessFile(this.file, "rw")) {
+            raf.write((header + info).getBytes(StandardCharsets.ISO_8859_1));
+            // data between header and body is never written, so file is sparse
+            raf.seek(BODY_OFFSET);
+            raf.write((catalog + pages + tail).getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    @After
+    public void deleteFile() {
+        if (this.file != null) {
+            this.file.delete();
+        }
+    }
+
+    @Test
+    public void testRandomAccessFile() throws IOException {
+        check(SeekableInputStream.FileAccessMode.RANDOM_ACCESS_FILE);
+    }
+
+    @Test
+    public void testMemoryMapped() throws IOException {
+        check(SeekableInputStream.FileAccessMode.MEMORY_MAPPED);
+    }
+
+    private void check(SeekableInputStream.FileAccessMode mode) throws IOException {
+        PDDocument document = new PDDocument(this.file.getAbsolutePath(), mode);
+        try {
+            COSObject root = document.getDocument().getTrailer().getRoot();
+            assertEquals(ASAtom.CATALOG, root.getNameKey(ASAtom.TYPE));
+            COSObject pages = root.getKey(ASAtom.PAGES);
+            assertEquals(ASAtom.PAGES, pages.getNameKey(ASAtom.TYPE));
+            assertEquals(0, document.getNumberOfPages());
+            COSObject info = document.getDocument().getTrailer().getInfo();
+            assertEquals("veraPDF", info.getStringKey(ASAtom.PRODUCER));
+        } finally {
+            document.close();
+        }
+    }
+}
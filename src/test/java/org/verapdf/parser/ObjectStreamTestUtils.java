@@ -0,0 +1,60 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.cos.COSInteger;
+import org.verapdf.cos.COSKey;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Creates parsers of object streams for tests.
+ */
+public final class ObjectStreamTestUtils {
+
+    private ObjectStreamTestUtils() {
+    }
+
+    /**
+     * Creates parser of decoded object stream 1 0 with given data.
+     *
+     * @param header          contains pairs of object numbers and offsets.
+     * @param objects         contains objects at offsets relative to the end
+     *                        of header.
+     * @param numberOfObjects is value of N entry.
+     * @return parser of object stream.
+     */
+    public static DecodedObjectStreamParser createParser(String header, String objects,
+                                                         int numberOfObjects) throws IOException {
+        byte[] data = (header + objects).getBytes(StandardCharsets.ISO_8859_1);
+        COSObject stream = COSStream.construct(new ASMemoryInStream(data));
+        stream.setKey(ASAtom.N, COSInteger.construct(numberOfObjects));
+        stream.setKey(ASAtom.FIRST, COSInteger.construct(header.length()));
+        return new DecodedObjectStreamParser(new ASMemoryInStream(data),
+                (COSStream) stream.getDirectBase(), new COSKey(1, 0), new COSDocument(null));
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.cos.COSKey;
+import org.verapdf.pd.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks reading of xref sections of document with several revisions, where
+ * Prev entry of the oldest trailer points to the newest section.
+ */
+public class XRefPrevChainTest {
+
+    private static final int REVISIONS = 5;
+
+    @Test
+    public void loopedPrevChain() throws IOException {
+        check(createDocument());
+    }
+
+    @Test
+    public void loopedPrevChainWithExecutor() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        PDFParser.setXRefExecutor(executor);
+        try {
+            check(createDocument());
+        } finally {
+            PDFParser.setXRefExecutor(null);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void xrefStreamsWithExecutor() throws IOException {
+        File file = File.createTempFile("xrefStreams", ".pdf");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        PDFParser.setXRefExecutor(executor);
+        try {
+            Files.write(file.toPath(), createXRefStreamsDocument());
+            PDDocument document = new PDDocument(file.getAbsolutePath());
+            try {
+                checkObjects(document);
+            } finally {
+                document.close();
+            }
+        } finally {
+            PDFParser.setXRefExecutor(null);
+            executor.shutdown();
+            file.delete();
+        }
+    }
+
+    private static void check(byte[] data) throws IOException {
+        PDDocument document = new PDDocument(data, 0, data.length);
+        try {
+            checkObjects(document);
+        } finally {
+            document.close();
+        }
+    }
+
+    private static void checkObjects(PDDocument document) {
+        assertEquals(ASAtom.CATALOG, document.getDocument().getTrailer().getRoot()
+                .getNameKey(ASAtom.TYPE));
+        assertEquals("revision " + (REVISIONS - 1),
+                document.getDocument().getObject(new COSKey(3, 0)).getString());
+        for (int i = 1; i < REVISIONS; ++i) {
+            assertEquals("object of revision " + i,
+                    document.getDocument().getObject(new COSKey(3 + i, 0)).getString());
+        }
+    }
+
+    private static byte[] createDocument() {
+        StringBuilder builder = new StringBuilder("%PDF-1.4\n");
+        long catalog = builder.length();
+        builder.append("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        long pages = builder.length();
+        builder.append("2 0 obj\n<< /Type /Pages /Kids [] /Count 0 >>\nendobj\n");
+        long prev = 0;
+        int prevMark = 0;
+        for (int i = 0; i < REVISIONS; ++i) {
+            long object = builder.length();
+            builder.append("3 0 obj\n(revision ").append(i).append(")\nendobj\n");
+            long added = builder.length();
+            if (i > 0) {
+                builder.append(3 + i).append(" 0 obj\n(object of revision ").append(i).append(")\nendobj\n");
+            }
+            long xref = builder.length();
+            builder.append("xref\n");
+            if (i == 0) {
+                builder.append("0 4\n0000000000 65535 f\r\n")
+                        .append(String.format("%010d 00000 n\r\n", catalog))
+                        .append(String.format("%010d 00000 n\r\n", pages));
+            } else {
+                builder.append("3 1\n");
+            }
+            builder.append(String.format("%010d 00000 n\r\n", object));
+            if (i > 0) {
+                builder.append(3 + i).append(" 1\n").append(String.format("%010d 00000 n\r\n", added));
+            }
+            builder.append("trailer\n<< /Size ").append(4 + i).append(" /Root 1 0 R /Prev ");
+            if (i == 0) {
+                // points to the newest section, filled after all sections are written
+                prevMark = builder.length();
+                builder.append("0000000000");
+            } else {
+                builder.append(prev);
+            }
+            builder.append(" >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+            prev = xref;
+        }
+        builder.replace(prevMark, prevMark + 10, String.format("%010d", prev));
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Creates document where each revision has uncompressed xref stream with
+     * entries for objects 0-3 and object added in this revision.
+     */
+    private static byte[] createXRefStreamsDocument() {
+        StringBuilder builder = new StringBuilder("%PDF-1.5\n");
+        long catalog = builder.length();
+        builder.append("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        long pages = builder.length();
+        builder.append("2 0 obj\n<< /Type /Pages /Kids [] /Count 0 >>\nendobj\n");
+        long prev = 0;
+        for (int i = 0; i < REVISIONS; ++i) {
+            long object = builder.length();
+            builder.append("3 0 obj\n(revision ").append(i).append(")\nendobj\n");
+            long added = builder.length();
+            if (i > 0) {
+                builder.append(3 + i).append(" 0 obj\n(object of revision ").append(i).append(")\nendobj\n");
+            }
+            long xref = builder.length();
+            int number = 4 + REVISIONS + i;
+            StringBuilder entries = new StringBuilder();
+            appendEntry(entries, 0, 0);
+            appendEntry(entries, 1, catalog);
+            appendEntry(entries, 1, pages);
+            appendEntry(entries, 1, object);
+            String index = "0 4";
+            if (i > 0) {
+                appendEntry(entries, 1, added);
+                index += " " + (3 + i) + " 1";
+            }
+            builder.append(number).append(" 0 obj\n<< /Type /XRef /W [1 4 0] /Index [").append(index)
+                    .append("] /Size ").append(number + 1).append(" /Root 1 0 R /Length ")
+                    .append(entries.length());
+            if (i > 0) {
+                builder.append(" /Prev ").append(prev);
+            }
+            builder.append(" >>\nstream\n").append(entries).append("\nendstream\nendobj\n")
+                    .append("startxref\n").append(xref).append("\n%%EOF\n");
+            prev = xref;
+        }
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void appendEntry(StringBuilder builder, int type, long offset) {
+        builder.append((char) type);
+        for (int i = 3; i >= 0; --i) {
+            builder.append((char) ((offset >>> (8 * i)) & 0xFF));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.cos.COSKey;
+import org.verapdf.pd.PDDocument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks reconstruction of xref of documents which xref can't be read.
+ */
+public class XRefReconstructionTest {
+
+    private static final String BODY = "%PDF-1.4\n" +
+            "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n" +
+            "2 0 obj\n<< /Type /Pages /Kids [] /Count 0 >>\nendobj\n" +
+            "3 0 obj\n(old value)\nendobj\n" +
+            "4 0 obj\n(endobj 5 0 obj)\nendobj\n" +
+            "3 0 obj\n(new value)\nendobj\n";
+
+    @Test
+    public void brokenStartXRef() throws IOException {
+        String document = BODY + "xref\n0 1\n0000000000 65535 f\r\n" +
+                "trailer\n<< /Size 5 /Root 1 0 R >>\nstartxref\n999999\n%%EOF\n";
+        check(document);
+    }
+
+    @Test
+    public void missingTrailer() throws IOException {
+        check(BODY + "%%EOF\n");
+    }
+
+    @Test
+    public void junkBeforeHeader() throws IOException {
+        check("junk bytes 1 0 obj\n" + BODY + "%%EOF\n");
+    }
+
+    @Test
+    public void readableXRefIsNotReconstructed() throws IOException {
+        String document = BODY + "xref\n0 5\n0000000000 65535 f\r\n" +
+                String.format("%010d 00000 n\r\n", BODY.indexOf("1 0 obj")) +
+                String.format("%010d 00000 n\r\n", BODY.indexOf("2 0 obj")) +
+                String.format("%010d 00000 n\r\n", BODY.lastIndexOf("3 0 obj")) +
+                String.format("%010d 00000 n\r\n", BODY.indexOf("4 0 obj")) +
+                "trailer\n<< /Size 5 /Root 1 0 R >>\nstartxref\n" + BODY.length() + "\n%%EOF\n";
+        byte[] data = document.getBytes(StandardCharsets.ISO_8859_1);
+        PDDocument pdDocument = new PDDocument(data, 0, data.length);
+        try {
+            assertFalse(pdDocument.isXRefReconstructed());
+            assertEquals("new value", pdDocument.getDocument().getObject(new COSKey(3, 0)).getString());
+        } finally {
+            pdDocument.close();
+        }
+    }
+
+    @Test
+    public void noObjects() {
+        checkFailure("%PDF-1.4\nno objects here\n%%EOF\n");
+    }
+
+    @Test
+    public void noCatalog() {
+        checkFailure("%PDF-1.4\n1 0 obj\n(text)\nendobj\n%%EOF\n");
+    }
+
+    private static void checkFailure(String document) {
+        byte[] data = document.getBytes(StandardCharsets.ISO_8859_1);
+        try {
+            new PDDocument(data, 0, data.length).close();
+            fail("Document without objects or catalog should not be opened");
+        } catch (IOException e) {
+            // exception of xref reading is thrown, reconstruction problem is attached
+            assertFalse(e.getMessage().startsWith("Xref reconstruction"));
+            assertEquals(1, e.getSuppressed().length);
+            assertTrue(e.getSuppressed()[0].getMessage().startsWith("Xref reconstruction"));
+        }
+    }
+
+    private static void check(String document) throws IOException {
+        byte[] data = document.getBytes(StandardCharsets.ISO_8859_1);
+        PDDocument pdDocument = new PDDocument(data, 0, data.length);
+        try {
+            assertTrue(pdDocument.isXRefReconstructed());
+            assertEquals(ASAtom.CATALOG, pdDocument.getDocument().getTrailer().getRoot()
+                    .getNameKey(ASAtom.TYPE));
+            assertEquals(0, pdDocument.getNumberOfPages());
+            assertEquals("new value", pdDocument.getDocument().getObject(new COSKey(3, 0)).getString());
+            assertEquals("endobj 5 0 obj", pdDocument.getDocument().getObject(new COSKey(4, 0)).getString());
+        } finally {
+            pdDocument.close();
+        }
+    }
+}
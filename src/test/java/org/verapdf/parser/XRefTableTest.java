@@ -0,0 +1,129 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.cos.COSDocument;
+import org.verapdf.cos.COSKey;
+import org.verapdf.pd.PDDocument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks parsing of xref table rows that are decoded in blocks, including
+ * rows that are parsed by tokenizer.
+ */
+public class XRefTableTest {
+
+    // more rows than fit into one block of decoded rows
+    private static final int OBJECTS = 1300;
+    private static final int FIRST_SUBSECTION = 700;
+
+    @Test
+    public void crlfRows() throws IOException {
+        check(createDocument("xref\n", "\r\n", false), true, true);
+    }
+
+    @Test
+    public void spaceLfRows() throws IOException {
+        check(createDocument("xref\r\n", " \n", false), true, true);
+    }
+
+    @Test
+    public void lfRows() throws IOException {
+        check(createDocument("xref\n", "\n", false), true, true);
+    }
+
+    @Test
+    public void malformedRows() throws IOException {
+        check(createDocument("xref\n", "\r\n", true), true, true);
+        check(createDocument("xref\n", "\n", true), true, true);
+    }
+
+    @Test
+    public void nonCompliantHeaders() throws IOException {
+        check(createDocument("xref \n", "\r\n", false), false, false);
+    }
+
+    private static void check(byte[] data, boolean eolComply,
+                              boolean headerSpaceSeparated) throws IOException {
+        PDDocument document = new PDDocument(data, 0, data.length);
+        try {
+            COSDocument cosDocument = document.getDocument();
+            assertEquals(ASAtom.CATALOG, cosDocument.getTrailer().getRoot().getNameKey(ASAtom.TYPE));
+            for (int i = 3; i < OBJECTS; ++i) {
+                assertEquals("object " + i, cosDocument.getObject(new COSKey(i, 0)).getString());
+            }
+            assertEquals(eolComply, cosDocument.isXrefEOLMarkersComplyPDFA());
+            assertEquals(headerSpaceSeparated, cosDocument.isSubsectionHeaderSpaceSeparated());
+        } finally {
+            document.close();
+        }
+    }
+
+    /**
+     * Creates document with xref table of two subsections. In case of
+     * malformed rows some rows are not zero-padded or are preceded by comment,
+     * such rows are placed in both blocks of the first subsection and at
+     * subsection ends.
+     */
+    private static byte[] createDocument(String xrefHeader, String eol, boolean malformed) {
+        StringBuilder builder = new StringBuilder("%PDF-1.4\n");
+        long[] offsets = new long[OBJECTS];
+        offsets[1] = builder.length();
+        builder.append("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        offsets[2] = builder.length();
+        builder.append("2 0 obj\n<< /Type /Pages /Kids [] /Count 0 >>\nendobj\n");
+        for (int i = 3; i < OBJECTS; ++i) {
+            offsets[i] = builder.length();
+            builder.append(i).append(" 0 obj\n(object ").append(i).append(")\nendobj\n");
+        }
+        // objects that are not in xref, they would be taken by reconstruction
+        for (int i = 3; i < OBJECTS; ++i) {
+            builder.append(i).append(" 0 obj\n(unused ").append(i).append(")\nendobj\n");
+        }
+        long xref = builder.length();
+        boolean spaceSeparated = !xrefHeader.startsWith("xref ");
+        builder.append(xrefHeader).append(spaceSeparated ? "0 " : "0  ").append(FIRST_SUBSECTION).append('\n');
+        builder.append("0000000000 65535 f").append(eol);
+        for (int i = 1; i < OBJECTS; ++i) {
+            if (i == FIRST_SUBSECTION) {
+                builder.append(FIRST_SUBSECTION).append(spaceSeparated ? " " : "  ")
+                        .append(OBJECTS - FIRST_SUBSECTION).append('\n');
+            }
+            if (malformed && (i == 5 || i == 600 || i == FIRST_SUBSECTION - 1)) {
+                builder.append(offsets[i]).append(" 0 n").append(eol);
+            } else if (malformed && (i == 200 || i == OBJECTS - 1)) {
+                builder.append("% comment").append(eol)
+                        .append(String.format("%010d 00000 n", offsets[i])).append(eol);
+            } else {
+                builder.append(String.format("%010d 00000 n", offsets[i])).append(eol);
+            }
+        }
+        builder.append("trailer\n<< /Size ").append(OBJECTS).append(" /Root 1 0 R >>\nstartxref\n")
+                .append(xref).append("\n%%EOF\n");
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
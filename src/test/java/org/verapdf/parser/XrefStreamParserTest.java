@@ -0,0 +1,154 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.parser;
+
+import org.junit.Test;
+import org.verapdf.as.ASAtom;
+import org.verapdf.as.filters.io.ASBufferingInFilter;
+import org.verapdf.as.io.ASMemoryInStream;
+import org.verapdf.cos.COSArray;
+import org.verapdf.cos.COSInteger;
+import org.verapdf.cos.COSName;
+import org.verapdf.cos.COSObject;
+import org.verapdf.cos.COSStream;
+import org.verapdf.cos.xref.COSXRefInfo;
+import org.verapdf.cos.xref.COSXRefSection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks decoding of xref stream entries for field sizes that have
+ * specialized loops and for generic field sizes.
+ */
+public class XrefStreamParserTest {
+
+    @Test
+    public void shortOffsets() throws IOException {
+        check(new int[]{1, 2, 1}, new int[]{0, 200});
+    }
+
+    @Test
+    public void mediumOffsets() throws IOException {
+        check(new int[]{1, 3, 1}, new int[]{0, 150, 1000, 120});
+    }
+
+    @Test
+    public void longOffsets() throws IOException {
+        check(new int[]{1, 4, 2}, new int[]{0, 300});
+    }
+
+    @Test
+    public void genericFieldSizes() throws IOException {
+        check(new int[]{2, 5, 3}, new int[]{0, 100, 500, 100});
+        // type defaults to 1, generation to 0
+        check(new int[]{0, 3, 0}, new int[]{0, 250});
+    }
+
+    @Test
+    public void unfilteredStreamLongerThanBuffer() throws IOException {
+        int entries = 3 * ASBufferingInFilter.BF_BUFFER_SIZE;
+        assertTrue(entries * 4 > ASBufferingInFilter.BF_BUFFER_SIZE);
+        check(new int[]{1, 2, 1}, new int[]{0, entries});
+        check(new int[]{2, 5, 3}, new int[]{0, entries});
+    }
+
+    private static void check(int[] w, int[] index) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        int size = 0;
+        for (int i = 0; i < index.length; i += 2) {
+            for (int number = index[i]; number < index[i] + index[i + 1]; ++number) {
+                write(data, getType(number), w[0]);
+                write(data, getField1(w, number), w[1]);
+                write(data, getField2(w, number), w[2]);
+            }
+            size = Math.max(size, index[i] + index[i + 1]);
+        }
+        COSStream stream = (COSStream) COSStream.construct(new ASMemoryInStream(data.toByteArray())).get();
+        stream.setKey(ASAtom.TYPE, COSName.construct(ASAtom.XREF));
+        stream.setKey(ASAtom.W, array(w));
+        stream.setKey(ASAtom.INDEX, array(index));
+        stream.setKey(ASAtom.SIZE, COSInteger.construct(size));
+
+        COSXRefInfo info = new COSXRefInfo();
+        new XrefStreamParser(info, stream).parseStream();
+        COSXRefSection section = info.getXRefSection();
+
+        // section always has entry of object 0, it is replaced by used entry
+        int entries = 1;
+        for (int i = 0; i < index.length; i += 2) {
+            for (int number = index[i]; number < index[i] + index[i + 1]; ++number) {
+                int type = w[0] == 0 ? 1 : getType(number);
+                if (type == 0) {
+                    continue;
+                }
+                long field1 = getField1(w, number);
+                long field2 = getField2(w, number);
+                int position = number == 0 ? 0 : entries++;
+                assertEquals(number, section.getNumber(position));
+                assertEquals('n', section.getType(position));
+                if (type == 1) {
+                    assertEquals(field1, section.getOffset(position));
+                    assertEquals(w[2] == 0 ? 0 : field2, section.getGeneration(position));
+                    assertEquals(-1, section.getObjectStreamIndex(position));
+                } else {
+                    assertEquals(-field1, section.getOffset(position));
+                    assertEquals(w[2] == 0 ? -1 : field2, section.getObjectStreamIndex(position));
+                }
+            }
+        }
+        assertEquals(entries, section.size());
+    }
+
+    private static int getType(int number) {
+        return number % 3;
+    }
+
+    private static long getField1(int[] w, int number) {
+        return (number * 7919L + 13) % getLimit(w[1]);
+    }
+
+    private static long getField2(int[] w, int number) {
+        return number % getLimit(w[2]);
+    }
+
+    private static long getLimit(int size) {
+        // offsets of compressed objects are object stream numbers of int type
+        return size >= 4 ? Integer.MAX_VALUE : 1L << (8 * size);
+    }
+
+    private static void write(ByteArrayOutputStream data, long value, int size) {
+        for (int i = size - 1; i >= 0; --i) {
+            data.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    private static COSObject array(int[] values) {
+        COSObject[] objects = new COSObject[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            objects[i] = COSInteger.construct(values[i]);
+        }
+        return COSArray.construct(values.length, objects);
+    }
+}
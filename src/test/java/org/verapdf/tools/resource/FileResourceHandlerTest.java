@@ -0,0 +1,74 @@
+/**
+ * This file is part of veraPDF Parser, a module of the veraPDF project.
+ * Copyright (c) 2015, veraPDF Consortium <info@verapdf.org>
+ * All rights reserved.
+ *
+ * veraPDF Parser is free software: you can redistribute it and/or modify
+ * it under the terms of either:
+ *
+ * The GNU General public license GPLv3+.
+ * You should have received a copy of the GNU General Public License
+ * along with veraPDF Parser as the LICENSE.GPL file in the root of the source
+ * tree.  If not, see http://www.gnu.org/licenses/ or
+ * https://www.gnu.org/licenses/gpl-3.0.en.html.
+ *
+ * The Mozilla Public License MPLv2+.
+ * You should have received a copy of the Mozilla Public License along with
+ * veraPDF Parser as the LICENSE.MPL file in the root of the source tree.
+ * If a copy of the MPL was not distributed with this file, you can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.verapdf.tools.resource;
+
+import org.junit.Test;
+import org.verapdf.io.ByteBufferInputStream;
+import org.verapdf.io.InternalInputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks resource counters of FileResourceHandler.
+ */
+public class FileResourceHandlerTest {
+
+    @Test
+    public void testCounters() throws IOException {
+        File file = File.createTempFile("resource_handler_test", ".tmp");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[100]);
+        }
+        FileResourceHandler handler = new FileResourceHandler();
+        InternalInputStream fileStream = new InternalInputStream(file, 1, true);
+        ByteBufferInputStream memoryStream = new ByteBufferInputStream(ByteBuffer.allocate(50));
+        handler.addResource(new ASFileStreamCloser(fileStream));
+        handler.addResource(new ASFileStreamCloser(fileStream));
+        handler.addResource(memoryStream);
+        handler.addResource(fileStream.getStream(10, 20));
+        ByteBufferInputStream mappedStream = ByteBufferInputStream.map(file);
+        handler.addResource(mappedStream.getStream(0, 40));
+        mappedStream.close();
+        assertEquals(4, handler.getResourcesCount());
+        // file stream and its substream share one file
+        assertEquals(1, handler.getOpenHandles());
+        assertEquals(1, handler.getOpenSubstreams());
+        assertEquals(50, handler.getPinnedBytes());
+        assertEquals(1, handler.getTempFilesAlive());
+
+        assertTrue(handler.releaseResource(memoryStream));
+        assertFalse(handler.releaseResource(memoryStream));
+        assertEquals(0, handler.getPinnedBytes());
+
+        handler.close();
+        assertEquals(0, handler.getOpenHandles());
+        assertEquals(0, handler.getOpenSubstreams());
+        assertEquals(0, handler.getTempFilesAlive());
+        assertFalse(file.exists());
+    }
+}